@@ -0,0 +1,60 @@
+// Writes a .br and a .gz copy next to every compressible file in the build
+// output, so the server can send them as they are instead of compressing
+// each response (see docs/compression.md). Runs as npm's postbuild step.
+//
+//   node scripts/precompress.js [directory]      (default: build)
+
+const fs = require("fs");
+const path = require("path");
+const zlib = require("zlib");
+
+const COMPRESSIBLE = /\.(html|js|css|json|map|svg|txt|ico)$/;
+
+// below this, the saving doesn't pay for the extra file
+const MIN_SIZE = 1024;
+
+function* files(dir) {
+  for (const entry of fs.readdirSync(dir, { withFileTypes: true })) {
+    const file = path.join(dir, entry.name);
+    if (entry.isDirectory()) {
+      yield* files(file);
+    } else {
+      yield file;
+    }
+  }
+}
+
+const encoders = {
+  ".br": (data) =>
+    zlib.brotliCompressSync(data, {
+      params: {
+        [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY,
+        [zlib.constants.BROTLI_PARAM_SIZE_HINT]: data.length,
+      },
+    }),
+  ".gz": (data) => zlib.gzipSync(data, { level: zlib.constants.Z_BEST_COMPRESSION }),
+};
+
+const root = process.argv[2] || "build";
+let originalBytes = 0;
+let written = 0;
+
+for (const file of files(root)) {
+  if (!COMPRESSIBLE.test(file)) {
+    continue;
+  }
+  const data = fs.readFileSync(file);
+  if (data.length < MIN_SIZE) {
+    continue;
+  }
+  originalBytes += data.length;
+  for (const [extension, encode] of Object.entries(encoders)) {
+    const compressed = encode(data);
+    if (compressed.length < data.length) {
+      fs.writeFileSync(file + extension, compressed);
+      written++;
+    }
+  }
+}
+
+console.log(`precompress: wrote ${written} files for ${originalBytes} bytes of assets in ${root}`);
@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Writing and reading /api/menuitemreview/all in each format the API
+ * offers (see BinaryFormatConfig), with mappers configured the way the
+ * application configures its converters. Setup prints the size of the
+ * payload, plain and gzipped, for each format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+  private static final TypeReference<List<MenuItemReview>> REVIEWS = new TypeReference<>() {
+  };
+
+  @Param({ "json", "cbor", "smile" })
+  String format;
+
+  @Param({ "100000" })
+  int size;
+
+  ObjectMapper mapper;
+  List<MenuItemReview> listing;
+  byte[] payload;
+
+  @Setup
+  public void setup() throws Exception {
+    JsonFactory factory = switch (format) {
+      case "json" -> new JsonFactory();
+      case "cbor" -> new CBORFactory();
+      case "smile" -> new SmileFactory();
+      default -> throw new IllegalArgumentException(format);
+    };
+    mapper = Jackson2ObjectMapperBuilder.json()
+        .factory(factory)
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+
+    LocalDateTime when = LocalDateTime.parse("2022-01-03T00:00:00");
+    listing = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      listing.add(MenuItemReview.builder()
+          .id(i).itemId(i % 200).reviewerEmail("reviewer" + i + "@ucsb.edu").stars(1 + i % 5)
+          .dateReviewed(when.plusMinutes(i)).comments("review number " + i).build());
+    }
+    payload = mapper.writeValueAsBytes(listing);
+
+    ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+      out.write(payload);
+    }
+    System.out.printf("%n%s: %,d bytes, %,d gzipped%n", format, payload.length, gzipped.size());
+  }
+
+  @Benchmark
+  public byte[] writeListing() throws Exception {
+    return mapper.writeValueAsBytes(listing);
+  }
+
+  @Benchmark
+  public List<MenuItemReview> readListing() throws Exception {
+    return mapper.readValue(payload, REVIEWS);
+  }
+}
@@ -0,0 +1,104 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import edu.ucsb.cs156.example.config.JacksonConfig;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cost of turning a whole /all listing into JSON, per entity type, with an
+ * ObjectMapper configured the way Spring Boot configures the application's:
+ * with plain reflective accessors, or with the Blackbird module that
+ * JacksonConfig installs. writeListingWithListWriter writes through an
+ * ObjectWriter built once for the list type, as EntityWriterService does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntitySerializationBenchmark {
+
+  @Param({ "MenuItemReview", "RecommendationRequest", "Restaurant", "UCSBDate", "UCSBDiningCommonsMenuItem" })
+  String entity;
+
+  @Param({ "10000" })
+  int size;
+
+  @Param({ "reflection", "blackbird" })
+  String accessors;
+
+  ObjectMapper mapper;
+  ObjectWriter listWriter;
+  List<?> listing;
+
+  @Setup
+  public void setup() {
+    Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    if (accessors.equals("blackbird")) {
+      builder.modulesToInstall(new JacksonConfig().blackbirdModule());
+    }
+    mapper = builder.build();
+    LocalDateTime when = LocalDateTime.parse("2022-01-03T00:00:00");
+    IntFunction<?> factory = switch (entity) {
+      case "MenuItemReview" -> i -> MenuItemReview.builder()
+          .id(i).itemId(i % 200).reviewerEmail("reviewer" + i + "@ucsb.edu").stars(1 + i % 5)
+          .dateReviewed(when.plusMinutes(i)).comments("review number " + i).build();
+      case "RecommendationRequest" -> i -> RecommendationRequest.builder()
+          .id(i).requesterEmail("student" + i + "@ucsb.edu").professorEmail("prof" + i % 50 + "@ucsb.edu")
+          .explanation("graduate school application " + i).dateRequested(when).dateNeeded(when.plusDays(30))
+          .done(i % 2 == 0).build();
+      case "Restaurant" -> i -> Restaurant.builder()
+          .id(i).name("Restaurant " + i).description("Description of restaurant " + i).build();
+      case "UCSBDate" -> i -> UCSBDate.builder()
+          .id(i).quarterYYYYQ("2022" + (1 + i % 4)).name("date " + i).localDateTime(when.plusHours(i)).build();
+      case "UCSBDiningCommonsMenuItem" -> i -> UCSBDiningCommonsMenuItem.builder()
+          .Id(i).diningCommonsCode("ortega").name("Menu item " + i).station("Entrees").build();
+      default -> throw new IllegalArgumentException(entity);
+    };
+    List<Object> items = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      items.add(factory.apply(i));
+    }
+    listing = items;
+    listWriter = mapper.writerFor(mapper.getTypeFactory()
+        .constructCollectionType(List.class, items.get(0).getClass()));
+  }
+
+  @Benchmark
+  public byte[] writeListing() throws Exception {
+    return mapper.writeValueAsBytes(listing);
+  }
+
+  @Benchmark
+  public byte[] writeListingWithListWriter() throws Exception {
+    return listWriter.writeValueAsBytes(listing);
+  }
+}
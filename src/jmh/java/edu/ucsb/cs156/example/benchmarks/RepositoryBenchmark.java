@@ -0,0 +1,136 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.config.SecondLevelCacheConfig;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.TableVersionService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Repository reads and writes against an in-memory H2 database, through the
+ * same JPA, batching and second-level cache settings the application uses.
+ * Saves grow the tables for the length of the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+  @Configuration
+  @EnableAutoConfiguration
+  @EntityScan(basePackageClasses = Restaurant.class)
+  @EnableJpaRepositories(basePackageClasses = RestaurantRepository.class)
+  @Import({ TableVersionService.class, SecondLevelCacheConfig.class })
+  static class RepositoryContext {
+  }
+
+  @Param({ "1000" })
+  int rows;
+
+  ConfigurableApplicationContext context;
+  RestaurantRepository restaurantRepository;
+  MenuItemReviewRepository menuItemReviewRepository;
+  List<Long> restaurantIds;
+
+  @Setup
+  public void setup() {
+    context = new SpringApplicationBuilder(RepositoryContext.class).run(
+        "--spring.profiles.active=benchmark",
+        "--spring.main.web-application-type=none",
+        "--spring.main.banner-mode=off",
+        "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+        "--spring.jpa.hibernate.ddl-auto=create-drop");
+    restaurantRepository = context.getBean(RestaurantRepository.class);
+    menuItemReviewRepository = context.getBean(MenuItemReviewRepository.class);
+
+    List<Restaurant> restaurants = new ArrayList<>(rows);
+    List<MenuItemReview> reviews = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      restaurants.add(restaurant(i));
+      reviews.add(review(i));
+    }
+    restaurantIds = new ArrayList<>(rows);
+    restaurantRepository.saveAll(restaurants).forEach(r -> restaurantIds.add(r.getId()));
+    menuItemReviewRepository.saveAll(reviews);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public List<Restaurant> findAllRestaurants() {
+    List<Restaurant> result = new ArrayList<>(rows);
+    restaurantRepository.findAll().forEach(result::add);
+    return result;
+  }
+
+  @Benchmark
+  public List<MenuItemReview> findAllMenuItemReviews() {
+    List<MenuItemReview> result = new ArrayList<>(rows);
+    menuItemReviewRepository.findAll().forEach(result::add);
+    return result;
+  }
+
+  @Benchmark
+  public Optional<Restaurant> findRestaurantById() {
+    Long id = restaurantIds.get(ThreadLocalRandom.current().nextInt(restaurantIds.size()));
+    return restaurantRepository.findById(id);
+  }
+
+  @Benchmark
+  public Restaurant saveRestaurant() {
+    return restaurantRepository.save(restaurant(ThreadLocalRandom.current().nextInt()));
+  }
+
+  @Benchmark
+  public MenuItemReview saveMenuItemReview() {
+    return menuItemReviewRepository.save(review(ThreadLocalRandom.current().nextInt()));
+  }
+
+  private static Restaurant restaurant(int i) {
+    return Restaurant.builder().name("Restaurant " + i).description("Description of restaurant " + i).build();
+  }
+
+  private static MenuItemReview review(int i) {
+    return MenuItemReview.builder()
+        .itemId(Math.floorMod(i, 200))
+        .reviewerEmail("reviewer" + i + "@ucsb.edu")
+        .stars(1 + Math.floorMod(i, 5))
+        .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+        .comments("review number " + i)
+        .build();
+  }
+}
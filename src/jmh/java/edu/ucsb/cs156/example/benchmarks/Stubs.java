@@ -0,0 +1,62 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+
+/**
+ * Plain stand-ins for collaborators, so benchmarks measure our code and not
+ * a mocking library.
+ */
+public final class Stubs {
+
+  private Stubs() {
+  }
+
+  /** A UserRepository that knows exactly one user and accepts every save. */
+  public static UserRepository userRepository(User user) {
+    return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+        new Class<?>[] { UserRepository.class },
+        (proxy, method, args) -> switch (method.getName()) {
+          case "findByEmail" -> user.getEmail().equals(args[0]) ? Optional.of(user) : Optional.empty();
+          case "save" -> args[0];
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  public static Map<String, Object> googleAttributes(String email) {
+    return Map.of(
+        "sub", "sub-" + email,
+        "email", email,
+        "name", "Chris Gaucho",
+        "given_name", "Chris",
+        "family_name", "Gaucho",
+        "email_verified", true,
+        "picture", "https://example.org/picture.png",
+        "locale", "en",
+        "hd", "ucsb.edu");
+  }
+
+  public static List<GrantedAuthority> googleAuthorities(String email) {
+    return List.of(
+        new OAuth2UserAuthority(googleAttributes(email)),
+        new SimpleGrantedAuthority("SCOPE_openid"),
+        new SimpleGrantedAuthority("SCOPE_email"),
+        new SimpleGrantedAuthority("SCOPE_profile"));
+  }
+
+  public static OAuth2AuthenticationToken googleLogin(String email, List<GrantedAuthority> authorities) {
+    DefaultOAuth2User principal = new DefaultOAuth2User(authorities, googleAttributes(email), "sub");
+    return new OAuth2AuthenticationToken(principal, authorities, "google");
+  }
+}
@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.benchmarks.Stubs;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.services.AdminLookupService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+
+/**
+ * The OAuth2 login authority mapping in SecurityConfig, for an admin listed
+ * in ADMIN_EMAILS, an admin known only from the database, an ordinary
+ * member and an outside account.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthoritiesMapperBenchmark {
+
+  @Param({ "admin@ucsb.edu", "dbadmin@ucsb.edu", "cgaucho@ucsb.edu", "someone@gmail.com" })
+  String email;
+
+  GrantedAuthoritiesMapper mapper;
+  List<GrantedAuthority> authorities;
+
+  @Setup
+  public void setup() {
+    User dbAdmin = User.builder().id(2L).email("dbadmin@ucsb.edu").admin(true).build();
+    SecurityConfig securityConfig = new SecurityConfig();
+    securityConfig.adminLookupService = new AdminLookupService(
+        List.of("admin@ucsb.edu"), Stubs.userRepository(dbAdmin), 10_000, 300);
+    mapper = securityConfig.userAuthoritiesMapper();
+    authorities = Stubs.googleAuthorities(email);
+  }
+
+  @Benchmark
+  public Collection<? extends GrantedAuthority> mapAuthorities() {
+    return mapper.mapAuthorities(authorities);
+  }
+}
@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.benchmarks.Stubs;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CurrentUser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * CurrentUserServiceImpl.getCurrentUser for a signed-in Google user, both
+ * when the user is already cached and when it has to be resolved again.
+ * Lives in this package so it can wire the service's collaborators.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrentUserBenchmark {
+
+  static final String EMAIL = "cgaucho@ucsb.edu";
+
+  CurrentUserServiceImpl currentUserService;
+  UserCacheService userCacheService;
+
+  @Setup
+  public void setup() {
+    User user = User.builder().id(1L).email(EMAIL).googleSub("sub-" + EMAIL).build();
+    userCacheService = new UserCacheService(10_000, 300);
+
+    currentUserService = new CurrentUserServiceImpl();
+    ReflectionTestUtils.setField(currentUserService, "userRepository", Stubs.userRepository(user));
+    currentUserService.grantedAuthoritiesService = new GrantedAuthoritiesService();
+    currentUserService.userCacheService = userCacheService;
+    currentUserService.adminLookupService = new AdminLookupService(
+        List.of("admin@ucsb.edu"), Stubs.userRepository(user), 10_000, 300);
+
+    List<GrantedAuthority> authorities = new ArrayList<>(Stubs.googleAuthorities(EMAIL));
+    authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+    authorities.add(new SimpleGrantedAuthority("ROLE_MEMBER"));
+    SecurityContextHolder.getContext().setAuthentication(Stubs.googleLogin(EMAIL, authorities));
+  }
+
+  @Benchmark
+  public CurrentUser cachedUser() {
+    return currentUserService.getCurrentUser();
+  }
+
+  @Benchmark
+  public CurrentUser uncachedUser() {
+    userCacheService.invalidateAll();
+    return currentUserService.getCurrentUser();
+  }
+}
@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.config;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Stands in for Google login under the load-test profile. A request that is
+ * not already logged in and carries X-Load-Test-User: name is authenticated
+ * as name@ucsb.edu, with an OAuth2 token shaped like Google's so that
+ * CurrentUserServiceImpl and the authority mapping behave as in production.
+ * The login is kept in the session like a real one.
+ */
+public class LoadTestAuthenticationFilter extends OncePerRequestFilter {
+
+  public static final String USER_HEADER = "X-Load-Test-User";
+
+  private final GrantedAuthoritiesMapper authoritiesMapper;
+
+  public LoadTestAuthenticationFilter(GrantedAuthoritiesMapper authoritiesMapper) {
+    this.authoritiesMapper = authoritiesMapper;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String name = request.getHeader(USER_HEADER);
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    if (name != null && !name.isBlank() && securityContext.getAuthentication() == null) {
+      securityContext.setAuthentication(authenticate(name));
+    }
+    filterChain.doFilter(request, response);
+  }
+
+  OAuth2AuthenticationToken authenticate(String name) {
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("sub", "loadtest_" + name);
+    attributes.put("email", name + "@ucsb.edu");
+    attributes.put("email_verified", true);
+    attributes.put("name", "Load Test " + name);
+    attributes.put("given_name", "Load Test");
+    attributes.put("family_name", name);
+    attributes.put("picture", "https://example.org/" + name + ".jpg");
+    attributes.put("locale", "en");
+    attributes.put("hd", "ucsb.edu");
+
+    Collection<? extends GrantedAuthority> authorities =
+        authoritiesMapper.mapAuthorities(Set.of(new OAuth2UserAuthority(attributes)));
+    return new OAuth2AuthenticationToken(new DefaultOAuth2User(authorities, attributes, "sub"), authorities, "google");
+  }
+}
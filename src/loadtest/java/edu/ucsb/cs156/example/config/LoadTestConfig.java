@@ -0,0 +1,54 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Wires the stand-in login used by the load-test profile into
+ * SecurityConfig. This class only exists in builds with -Ploadtest, and
+ * refuses to start alongside the production profile.
+ */
+@Slf4j
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfig {
+
+  public LoadTestConfig(Environment environment) {
+    if (environment.acceptsProfiles(Profiles.of("production"))) {
+      throw new IllegalStateException("the loadtest profile cannot be combined with production");
+    }
+    log.warn("loadtest profile: requests with a {} header are logged in without Google",
+        LoadTestAuthenticationFilter.USER_HEADER);
+  }
+
+  // SecurityConfig collects this bean, so it is only looked up once the
+  // filter chain is being built.
+  @Bean
+  public LoadTestLoginConfigurer loadTestLoginConfigurer(ObjectProvider<SecurityConfig> securityConfig) {
+    return new LoadTestLoginConfigurer(securityConfig);
+  }
+
+  public static class LoadTestLoginConfigurer extends AbstractHttpConfigurer<LoadTestLoginConfigurer, HttpSecurity> {
+    private final ObjectProvider<SecurityConfig> securityConfig;
+
+    LoadTestLoginConfigurer(ObjectProvider<SecurityConfig> securityConfig) {
+      this.securityConfig = securityConfig;
+    }
+
+    @Override
+    public void configure(HttpSecurity http) {
+      LoadTestAuthenticationFilter filter =
+          new LoadTestAuthenticationFilter(securityConfig.getObject().userAuthoritiesMapper());
+      http.addFilterBefore(filter, AnonymousAuthenticationFilter.class);
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class EndpointLoadStatistics {
+  private String endpoint;
+  private long requests;
+  private long errors;
+  private double requestsPerSecond;
+  private double meanMillis;
+  private double p50Millis;
+  private double p90Millis;
+  private double p99Millis;
+  private double p999Millis;
+  private double maxMillis;
+}
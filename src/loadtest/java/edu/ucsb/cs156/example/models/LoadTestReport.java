@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class LoadTestReport {
+  private int threads;
+  private long measuredSeconds;
+  private long requests;
+  private long errors;
+  private double requestsPerSecond;
+  private List<EndpointLoadStatistics> endpoints;
+}
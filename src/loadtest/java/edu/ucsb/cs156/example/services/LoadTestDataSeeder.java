@@ -0,0 +1,232 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.BatchItemResult;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills an empty database with generated rows for every entity before the
+ * load-test driver starts. Volumes come from app.loadtest.seed.*, and the
+ * data is the same on every run for a given app.loadtest.seed.randomSeed.
+ * Also creates one admin user per driver thread.
+ */
+@Slf4j
+@Service("loadTestDataSeeder")
+@Profile("loadtest")
+public class LoadTestDataSeeder {
+
+  private static final int CHUNK_SIZE = 1000;
+  private static final LocalDateTime EPOCH = LocalDateTime.of(2020, 1, 1, 0, 0);
+  private static final String[] WORDS = {
+    "chicken", "tofu", "pasta", "salad", "burrito", "curry", "soup", "pizza",
+    "noodle", "rice", "taco", "waffle", "omelette", "sandwich", "sushi", "stir fry"
+  };
+
+  @Autowired
+  RestaurantRepository restaurantRepository;
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  MenuItemReviewBatchService menuItemReviewBatchService;
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Value("${app.loadtest.seed.randomSeed:42}")
+  long randomSeed;
+
+  @Value("${app.loadtest.seed.restaurants:1000}")
+  int restaurants;
+
+  @Value("${app.loadtest.seed.ucsbDates:1000}")
+  int ucsbDates;
+
+  @Value("${app.loadtest.seed.ucsbDiningCommons:20}")
+  int ucsbDiningCommons;
+
+  @Value("${app.loadtest.seed.ucsbDiningCommonsMenuItems:1000}")
+  int ucsbDiningCommonsMenuItems;
+
+  @Value("${app.loadtest.seed.ucsbOrganizations:200}")
+  int ucsbOrganizations;
+
+  @Value("${app.loadtest.seed.recommendationRequests:1000}")
+  int recommendationRequests;
+
+  @Value("${app.loadtest.seed.menuItemReviews:10000}")
+  int menuItemReviews;
+
+  @Value("${app.loadtest.driver.threads:16}")
+  int driverThreads;
+
+  // Runs before the other startup listeners, so that rating stats, the
+  // dining commons index and so on are built from the seeded data.
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @EventListener(ApplicationReadyEvent.class)
+  public void seed() {
+    Random random = new Random(randomSeed);
+    long start = System.currentTimeMillis();
+
+    seed("users", userRepository, driverThreads, i -> User.builder()
+        .email(driverUser(i) + "@ucsb.edu")
+        .googleSub("loadtest_" + driverUser(i))
+        .fullName("Load Test " + driverUser(i))
+        .givenName("Load Test")
+        .familyName(driverUser(i))
+        .emailVerified(true)
+        .locale("en")
+        .hostedDomain("ucsb.edu")
+        .admin(true)
+        .build());
+
+    seed("restaurants", restaurantRepository, restaurants, i -> Restaurant.builder()
+        .name("Restaurant " + i)
+        .description(phrase(random, 8))
+        .build());
+
+    seed("ucsbDates", ucsbDateRepository, ucsbDates, i -> UCSBDate.builder()
+        .quarterYYYYQ(quarter(random))
+        .name(phrase(random, 3))
+        .localDateTime(dateTime(random))
+        .build());
+
+    seed("ucsbDiningCommons", ucsbDiningCommonsRepository, ucsbDiningCommons, i -> UCSBDiningCommons.builder()
+        .code("commons" + i)
+        .name("Dining Commons " + i)
+        .hasSackMeal(random.nextBoolean())
+        .hasTakeOutMeal(random.nextBoolean())
+        .hasDiningCam(random.nextBoolean())
+        .latitude(34.40 + random.nextDouble() * 0.03)
+        .longitude(-119.87 + random.nextDouble() * 0.04)
+        .build());
+
+    seed("ucsbDiningCommonsMenuItems", ucsbDiningCommonsMenuItemRepository, ucsbDiningCommonsMenuItems,
+        i -> UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("commons" + random.nextInt(Math.max(ucsbDiningCommons, 1)))
+            .name(phrase(random, 3))
+            .station(WORDS[random.nextInt(WORDS.length)])
+            .build());
+
+    seed("ucsbOrganizations", ucsbOrganizationRepository, ucsbOrganizations, i -> UCSBOrganization.builder()
+        .orgCode("ORG" + i)
+        .orgTranslationShort("Org " + i)
+        .orgTranslation("Organization " + i + " " + phrase(random, 3))
+        .inactive(random.nextInt(10) == 0)
+        .build());
+
+    seed("recommendationRequests", recommendationRequestRepository, recommendationRequests,
+        i -> RecommendationRequest.builder()
+            .requesterEmail("student" + random.nextInt(1000) + "@ucsb.edu")
+            .professorEmail("professor" + random.nextInt(100) + "@ucsb.edu")
+            .explanation(phrase(random, 12))
+            .dateRequested(dateTime(random))
+            .dateNeeded(dateTime(random))
+            .done(random.nextBoolean())
+            .build());
+
+    // through the batch service so the rating stats are kept up to date
+    if (menuItemReviewRepository.count() == 0 && menuItemReviews > 0) {
+      List<BatchItemResult> results = menuItemReviewBatchService.createAll(IntStream.range(0, menuItemReviews)
+          .mapToObj(i -> MenuItemReview.builder()
+              .itemId(1 + random.nextInt(Math.max(ucsbDiningCommonsMenuItems, 1)))
+              .reviewerEmail("student" + random.nextInt(1000) + "@ucsb.edu")
+              .stars(1 + random.nextInt(5))
+              .dateReviewed(dateTime(random))
+              .comments(phrase(random, 10))
+              .build())
+          .iterator());
+      log.info("seeded {} menuItemReviews", results.stream().filter(BatchItemResult::getCreated).count());
+    }
+
+    log.info("seeding finished in {} ms", System.currentTimeMillis() - start);
+  }
+
+  public static String driverUser(int thread) {
+    return "loadtest" + thread;
+  }
+
+  private <T> void seed(String label, CrudRepository<T, ?> repository, int count, IntFunction<T> factory) {
+    if (repository.count() > 0) {
+      log.info("{} already has rows, not seeding", label);
+      return;
+    }
+    List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+    for (int i = 0; i < count; i++) {
+      chunk.add(factory.apply(i));
+      if (chunk.size() == CHUNK_SIZE || i == count - 1) {
+        repository.saveAll(chunk);
+        chunk.clear();
+      }
+    }
+    log.info("seeded {} {}", count, label);
+  }
+
+  private static String phrase(Random random, int words) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < words; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return sb.toString();
+  }
+
+  private static String quarter(Random random) {
+    return "%d%d".formatted(2020 + random.nextInt(5), 1 + random.nextInt(4));
+  }
+
+  private static LocalDateTime dateTime(Random random) {
+    return EPOCH.plusMinutes(random.nextInt(5 * 365 * 24 * 60));
+  }
+}
@@ -0,0 +1,505 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.config.LoadTestAuthenticationFilter;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.EndpointLoadStatistics;
+import edu.ucsb.cs156.example.models.LoadTestReport;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives a mixed read/write workload against the running app once it is up
+ * and seeded. Each thread is one logged-in admin user with its own session
+ * and connection; it picks an entity and an operation at random (weighted
+ * by app.loadtest.driver.weight.*) and sends the next request as soon as
+ * the previous one returns. Latencies after the warmup are recorded per
+ * endpoint and reported as throughput and percentiles, both in the log and
+ * as JSON in app.loadtest.driver.reportFile.
+ */
+@Slf4j
+@Service("loadTestDriver")
+@Profile("loadtest")
+public class LoadTestDriver {
+
+  private static final String CSRF_TOKEN = "loadtest";
+  private static final DateTimeFormatter ISO_SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+  private static final LocalDateTime EPOCH = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+  enum Operation {
+    ALL("GET", "/all"),
+    GET("GET", ""),
+    POST("POST", "/post"),
+    PUT("PUT", ""),
+    DELETE("DELETE", "");
+
+    final String method;
+    final String suffix;
+
+    Operation(String method, String suffix) {
+      this.method = method;
+      this.suffix = suffix;
+    }
+  }
+
+  /**
+   * One REST resource: the parameter (and JSON field) that identifies a row, and how to make up a new
+   * row (as request parameters) or an updated one (as a JSON body). Deletes
+   * only ever take rows the driver created itself.
+   */
+  record Resource(String path, String keyParam, List<String> seededKeys,
+      BiFunction<Random, String, Map<String, Object>> newRow, Function<Random, Map<String, Object>> updatedRow,
+      Queue<String> createdKeys) {
+
+    String anyKey(Random random) {
+      return seededKeys.isEmpty() ? "0" : seededKeys.get(random.nextInt(seededKeys.size()));
+    }
+
+    String endpoint(Operation operation) {
+      return operation.method + " " + path + operation.suffix;
+    }
+  }
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Autowired
+  ConfigurableApplicationContext context;
+
+  @Autowired
+  RestaurantRepository restaurantRepository;
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Value("${app.loadtest.driver.enabled:true}")
+  boolean enabled;
+
+  @Value("${app.loadtest.driver.threads:16}")
+  int threads;
+
+  @Value("${app.loadtest.driver.warmupSeconds:30}")
+  long warmupSeconds;
+
+  @Value("${app.loadtest.driver.durationSeconds:120}")
+  long durationSeconds;
+
+  @Value("${app.loadtest.driver.reportFile:target/loadtest-result.json}")
+  String reportFile;
+
+  @Value("${app.loadtest.driver.exitWhenDone:true}")
+  boolean exitWhenDone;
+
+  @Value("${app.loadtest.driver.weight.all:2}")
+  int allWeight;
+
+  @Value("${app.loadtest.driver.weight.get:70}")
+  int getWeight;
+
+  @Value("${app.loadtest.driver.weight.post:10}")
+  int postWeight;
+
+  @Value("${app.loadtest.driver.weight.put:10}")
+  int putWeight;
+
+  @Value("${app.loadtest.driver.weight.delete:8}")
+  int deleteWeight;
+
+  private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+  private final AtomicLong uniqueKeys = new AtomicLong();
+
+  // After LoadTestDataSeeder and everything else that runs at startup.
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  @EventListener(ApplicationReadyEvent.class)
+  public void start(ApplicationReadyEvent event) {
+    if (!enabled) {
+      log.info("load-test driver disabled; the app is up with seeded data");
+      return;
+    }
+    URI base = URI.create("http://localhost:" + event.getApplicationContext().getEnvironment()
+        .getProperty("local.server.port"));
+    List<Resource> resources = resources();
+    new Thread(() -> run(base, resources), "loadtest-driver").start();
+  }
+
+  void run(URI base, List<Resource> resources) {
+    long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+    long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+    log.info("driving {} threads against {} for {}s warmup + {}s measured", threads, base, warmupSeconds,
+        durationSeconds);
+
+    ExecutorService workers = Executors.newFixedThreadPool(threads);
+    for (int thread = 0; thread < threads; thread++) {
+      int t = thread;
+      workers.execute(() -> {
+        try {
+          work(t, base, resources, measureFrom, end);
+        } catch (RuntimeException e) {
+          log.error("load-test thread {} failed", t, e);
+        }
+      });
+    }
+    workers.shutdown();
+    try {
+      workers.awaitTermination(warmupSeconds + durationSeconds + 60, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    LoadTestReport report = report();
+    log(report);
+    try {
+      File file = new File(reportFile);
+      file.getAbsoluteFile().getParentFile().mkdirs();
+      mapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+      log.info("report written to {}", file.getAbsolutePath());
+    } catch (IOException e) {
+      log.error("could not write {}", reportFile, e);
+    }
+
+    if (exitWhenDone) {
+      System.exit(SpringApplication.exit(context));
+    }
+  }
+
+  private void work(int thread, URI base, List<Resource> resources, long measureFrom, long end) {
+    // CookieCsrfTokenRepository only compares the cookie with the header
+    CookieManager cookies = new CookieManager();
+    HttpCookie csrf = new HttpCookie("XSRF-TOKEN", CSRF_TOKEN);
+    csrf.setPath("/");
+    csrf.setVersion(0);
+    cookies.getCookieStore().add(base, csrf);
+    HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .cookieHandler(cookies)
+        .build();
+    String user = LoadTestDataSeeder.driverUser(thread);
+    Random random = new Random(thread);
+
+    while (System.nanoTime() < end) {
+      Resource resource = resources.get(random.nextInt(resources.size()));
+      Operation operation = pickOperation(random);
+      String key = operation == Operation.DELETE ? resource.createdKeys().poll() : null;
+      if (operation == Operation.DELETE && key == null) {
+        operation = Operation.POST;
+      }
+      HttpRequest request = request(base, user, resource, operation, key, random);
+
+      long started = System.nanoTime();
+      HttpResponse<String> response = null;
+      try {
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+      } catch (IOException e) {
+        log.debug("{} failed", request, e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      long elapsed = System.nanoTime() - started;
+
+      int status = response == null ? -1 : response.statusCode();
+      if (started >= measureFrom) {
+        record(resource.endpoint(operation), elapsed, status);
+      }
+      if (operation == Operation.POST && status == 200) {
+        resource.createdKeys().add(createdKey(resource, response.body()));
+      }
+    }
+  }
+
+  private Operation pickOperation(Random random) {
+    int roll = random.nextInt(allWeight + getWeight + postWeight + putWeight + deleteWeight);
+    if ((roll -= allWeight) < 0) {
+      return Operation.ALL;
+    }
+    if ((roll -= getWeight) < 0) {
+      return Operation.GET;
+    }
+    if ((roll -= postWeight) < 0) {
+      return Operation.POST;
+    }
+    if ((roll -= putWeight) < 0) {
+      return Operation.PUT;
+    }
+    return Operation.DELETE;
+  }
+
+  private HttpRequest request(URI base, String user, Resource resource, Operation operation, String key,
+      Random random) {
+    HttpRequest.Builder builder = HttpRequest.newBuilder()
+        .timeout(Duration.ofSeconds(30))
+        .header(LoadTestAuthenticationFilter.USER_HEADER, user)
+        .header("X-XSRF-TOKEN", CSRF_TOKEN);
+    String path = resource.path() + operation.suffix;
+    switch (operation) {
+      case ALL -> builder.uri(uri(base, path, Map.of())).GET();
+      case GET -> builder.uri(uri(base, path, Map.of(resource.keyParam(), resource.anyKey(random)))).GET();
+      case POST -> builder
+          .uri(uri(base, path, resource.newRow().apply(random, "lt" + uniqueKeys.incrementAndGet())))
+          .POST(HttpRequest.BodyPublishers.noBody());
+      case PUT -> builder
+          .uri(uri(base, path, Map.of(resource.keyParam(), resource.anyKey(random))))
+          .header("Content-Type", "application/json")
+          .PUT(HttpRequest.BodyPublishers.ofString(json(resource.updatedRow().apply(random))));
+      case DELETE -> builder.uri(uri(base, path, Map.of(resource.keyParam(), key))).DELETE();
+    }
+    return builder.build();
+  }
+
+  private void record(String endpoint, long elapsedNanos, int status) {
+    latencies.computeIfAbsent(endpoint, e -> new ConcurrentHistogram(3)).recordValue(elapsedNanos);
+    if (status < 200 || status >= 400) {
+      LongAdder count = errors.computeIfAbsent(endpoint, e -> {
+        log.warn("first error on {}: status {}", e, status);
+        return new LongAdder();
+      });
+      count.increment();
+    }
+  }
+
+  LoadTestReport report() {
+    List<EndpointLoadStatistics> endpoints = new ArrayList<>();
+    long requests = 0;
+    long errorCount = 0;
+    for (Map.Entry<String, Histogram> entry : new TreeMap<>(latencies).entrySet()) {
+      Histogram histogram = entry.getValue();
+      long endpointErrors = errors.getOrDefault(entry.getKey(), new LongAdder()).sum();
+      endpoints.add(EndpointLoadStatistics.builder()
+          .endpoint(entry.getKey())
+          .requests(histogram.getTotalCount())
+          .errors(endpointErrors)
+          .requestsPerSecond((double) histogram.getTotalCount() / durationSeconds)
+          .meanMillis(histogram.getMean() / 1e6)
+          .p50Millis(histogram.getValueAtPercentile(50) / 1e6)
+          .p90Millis(histogram.getValueAtPercentile(90) / 1e6)
+          .p99Millis(histogram.getValueAtPercentile(99) / 1e6)
+          .p999Millis(histogram.getValueAtPercentile(99.9) / 1e6)
+          .maxMillis(histogram.getMaxValue() / 1e6)
+          .build());
+      requests += histogram.getTotalCount();
+      errorCount += endpointErrors;
+    }
+    return LoadTestReport.builder()
+        .threads(threads)
+        .measuredSeconds(durationSeconds)
+        .requests(requests)
+        .errors(errorCount)
+        .requestsPerSecond((double) requests / durationSeconds)
+        .endpoints(endpoints)
+        .build();
+  }
+
+  private void log(LoadTestReport report) {
+    StringBuilder table = new StringBuilder();
+    table.append("%n%-50s %9s %7s %9s %9s %9s %9s %9s %9s%n".formatted(
+        "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+    for (EndpointLoadStatistics e : report.getEndpoints()) {
+      table.append("%-50s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n".formatted(
+          e.getEndpoint(), e.getRequests(), e.getErrors(), e.getRequestsPerSecond(),
+          e.getP50Millis(), e.getP90Millis(), e.getP99Millis(), e.getP999Millis(), e.getMaxMillis()));
+    }
+    table.append("%-50s %9d %7d %9.1f".formatted(
+        "total", report.getRequests(), report.getErrors(), report.getRequestsPerSecond()));
+    log.info("load test finished ({} threads, {}s measured):{}", report.getThreads(), report.getMeasuredSeconds(),
+        table);
+  }
+
+  private List<Resource> resources() {
+    return List.of(
+        resource("/api/restaurants", "id", restaurantRepository, r -> String.valueOf(r.getId()),
+            (random, unique) -> Map.of(
+                "name", "Restaurant " + unique,
+                "description", "added by the load test"),
+            random -> Map.of(
+                "name", "Restaurant " + random.nextInt(1000),
+                "description", "updated by the load test")),
+        resource("/api/ucsbdates", "id", ucsbDateRepository, d -> String.valueOf(d.getId()),
+            (random, unique) -> Map.of(
+                "quarterYYYYQ", quarter(random),
+                "name", "date " + unique,
+                "localDateTime", dateTime(random)),
+            random -> Map.of(
+                "quarterYYYYQ", quarter(random),
+                "name", "updated date",
+                "localDateTime", dateTime(random))),
+        resource("/api/ucsbdiningcommons", "code", ucsbDiningCommonsRepository, UCSBDiningCommons::getCode,
+            (random, unique) -> Map.of(
+                "code", unique,
+                "name", "Dining Commons " + unique,
+                "hasSackMeal", random.nextBoolean(),
+                "hasTakeOutMeal", random.nextBoolean(),
+                "hasDiningCam", random.nextBoolean(),
+                "latitude", 34.40 + random.nextDouble() * 0.03,
+                "longitude", -119.87 + random.nextDouble() * 0.04),
+            random -> Map.of(
+                "name", "updated commons",
+                "hasSackMeal", random.nextBoolean(),
+                "hasTakeOutMeal", random.nextBoolean(),
+                "hasDiningCam", random.nextBoolean(),
+                "latitude", 34.40 + random.nextDouble() * 0.03,
+                "longitude", -119.87 + random.nextDouble() * 0.04)),
+        resource("/api/ucsbdiningcommonsmenuitem", "id", ucsbDiningCommonsMenuItemRepository,
+            i -> String.valueOf(i.getId()),
+            (random, unique) -> Map.of(
+                "diningCommonsCode", "commons0",
+                "name", "item " + unique,
+                "station", "load test"),
+            random -> Map.of(
+                "diningCommonsCode", "commons0",
+                "name", "updated item",
+                "station", "load test")),
+        resource("/api/ucsborganization", "orgCode", ucsbOrganizationRepository,
+            UCSBOrganization::getOrgCode,
+            (random, unique) -> Map.of(
+                "orgCode", unique,
+                "orgTranslationShort", "Org " + unique,
+                "orgTranslation", "Organization " + unique,
+                "inactive", false),
+            random -> Map.of(
+                "orgTranslationShort", "updated org",
+                "orgTranslation", "updated organization",
+                "inactive", random.nextBoolean())),
+        resource("/api/RecommendationRequest", "id", recommendationRequestRepository,
+            r -> String.valueOf(r.getId()),
+            (random, unique) -> Map.of(
+                "requesterEmail", unique + "@ucsb.edu",
+                "professorEmail", "professor" + random.nextInt(100) + "@ucsb.edu",
+                "explanation", "added by the load test",
+                "dateRequested", dateTime(random),
+                "dateNeeded", dateTime(random),
+                "done", false),
+            random -> Map.of(
+                "requesterEmail", "student" + random.nextInt(1000) + "@ucsb.edu",
+                "professorEmail", "professor" + random.nextInt(100) + "@ucsb.edu",
+                "explanation", "updated by the load test",
+                "dateRequested", dateTime(random),
+                "dateNeeded", dateTime(random),
+                "done", random.nextBoolean())),
+        resource("/api/menuitemreview", "id", menuItemReviewRepository, r -> String.valueOf(r.getId()),
+            (random, unique) -> Map.of(
+                "itemId", 1 + random.nextInt(1000),
+                "reviewerEmail", unique + "@ucsb.edu",
+                "stars", 1 + random.nextInt(5),
+                "dateReviewed", dateTime(random),
+                "comments", "added by the load test"),
+            random -> Map.of(
+                "itemId", 1 + random.nextInt(1000),
+                "reviewerEmail", "student" + random.nextInt(1000) + "@ucsb.edu",
+                "stars", 1 + random.nextInt(5),
+                "dateReviewed", dateTime(random),
+                "comments", "updated by the load test")));
+  }
+
+  private <T> Resource resource(String path, String keyParam, CrudRepository<T, ?> repository,
+      Function<T, String> key, BiFunction<Random, String, Map<String, Object>> newRow,
+      Function<Random, Map<String, Object>> updatedRow) {
+    List<String> seededKeys = StreamSupport.stream(repository.findAll().spliterator(), false)
+        .map(key)
+        .collect(Collectors.toList());
+    return new Resource(path, keyParam, seededKeys, newRow, updatedRow, new ConcurrentLinkedQueue<>());
+  }
+
+  private String createdKey(Resource resource, String body) {
+    try {
+      JsonNode created = mapper.readTree(body);
+      return created.path(resource.keyParam()).asText();
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("unexpected response from " + resource.path(), e);
+    }
+  }
+
+  private String json(Map<String, Object> row) {
+    try {
+      return mapper.writeValueAsString(row);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static URI uri(URI base, String path, Map<String, ?> params) {
+    String query = params.entrySet().stream()
+        .map(p -> p.getKey() + "=" + URLEncoder.encode(String.valueOf(p.getValue()), StandardCharsets.UTF_8))
+        .collect(Collectors.joining("&"));
+    return base.resolve(query.isEmpty() ? path : path + "?" + query);
+  }
+
+  private static String quarter(Random random) {
+    return "%d%d".formatted(2020 + random.nextInt(5), 1 + random.nextInt(4));
+  }
+
+  private static String dateTime(Random random) {
+    return EPOCH.plusMinutes(random.nextInt(5 * 365 * 24 * 60)).format(ISO_SECONDS);
+  }
+}
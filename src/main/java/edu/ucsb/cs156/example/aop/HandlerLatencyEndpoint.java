@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.models.HandlerLatency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summarizes the per-handler meters recorded by {@link LoggingAspect} at
+ * /actuator/handlerlatency, keyed by Controller.method.
+ */
+@Component
+@Endpoint(id = "handlerlatency")
+public class HandlerLatencyEndpoint {
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @ReadOperation
+  public Map<String, HandlerLatency> handlerLatency() {
+    Map<String, HandlerLatency> result = new TreeMap<>();
+    for (Timer timer : meterRegistry.find(LoggingAspect.HANDLER_TIMER).timers()) {
+      String controller = timer.getId().getTag("controller");
+      String method = timer.getId().getTag("method");
+
+      HistogramSnapshot snapshot = timer.takeSnapshot();
+      HandlerLatency.HandlerLatencyBuilder latency = HandlerLatency.builder()
+          .count(snapshot.count())
+          .meanMs(snapshot.mean(TimeUnit.MILLISECONDS))
+          .maxMs(snapshot.max(TimeUnit.MILLISECONDS));
+      for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+        double ms = percentile.value(TimeUnit.MILLISECONDS);
+        if (percentile.percentile() == 0.5) {
+          latency.p50Ms(ms);
+        } else if (percentile.percentile() == 0.9) {
+          latency.p90Ms(ms);
+        } else if (percentile.percentile() == 0.99) {
+          latency.p99Ms(ms);
+        }
+      }
+
+      Counter errors = meterRegistry.find(LoggingAspect.HANDLER_ERRORS)
+          .tags("controller", controller, "method", method).counter();
+      latency.errors(errors == null ? 0 : errors.count());
+      Gauge inFlight = meterRegistry.find(LoggingAspect.HANDLER_IN_FLIGHT)
+          .tags("controller", controller, "method", method).gauge();
+      latency.inFlight(inFlight == null ? 0 : inFlight.value());
+
+      result.put(controller + "." + method, latency.build());
+    }
+    return result;
+  }
+}
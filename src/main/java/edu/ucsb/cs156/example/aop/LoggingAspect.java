@@ -1,9 +1,15 @@
 package edu.ucsb.cs156.example.aop;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -12,12 +18,21 @@ import javax.servlet.http.HttpServletRequest;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Aspect
 @Component
 public class LoggingAspect {
+  public static final String HANDLER_TIMER = "http.handler";
+  public static final String HANDLER_ERRORS = "http.handler.errors";
+  public static final String HANDLER_IN_FLIGHT = "http.handler.inflight";
+
   // language=PointcutExpression
   private static final String pointcut = """
       @annotation(org.springframework.web.bind.annotation.RequestMapping) ||
@@ -31,16 +46,73 @@ public class LoggingAspect {
   private ArrayList<String> stoplist = new ArrayList<String>(Arrays.asList(
       "edu.ucsb.cs156.example.controllers.FrontendProxyController"));
 
-  @Before(pointcut)
-  public void logControllers(JoinPoint joinPoint) {
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  private final Map<String, HandlerMeters> meters = new ConcurrentHashMap<>();
+
+  @Around(pointcut)
+  public Object logControllers(ProceedingJoinPoint joinPoint) throws Throwable {
+    String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
+    if (stoplist.contains(declaringTypeName)) {
+      return joinPoint.proceed();
+    }
+
+    String methodName = joinPoint.getSignature().getName();
     getCurrentHttpRequest().ifPresent(
-        request -> {
-          String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
-          if (!stoplist.contains(declaringTypeName)) {
-            log.info("===== %s %s handled by %s in %s".formatted(request.getMethod(), request.getRequestURI(),
-                joinPoint.getSignature().getName(), declaringTypeName));
-          }
-        });
+        request -> log.info("===== %s %s handled by %s in %s".formatted(request.getMethod(), request.getRequestURI(),
+            methodName, declaringTypeName)));
+
+    HandlerMeters handlerMeters = meters.computeIfAbsent(declaringTypeName + "#" + methodName,
+        key -> new HandlerMeters(joinPoint.getSignature().getDeclaringType().getSimpleName(), methodName));
+
+    handlerMeters.inFlight.incrementAndGet();
+    long start = System.nanoTime();
+    Object result;
+    try {
+      result = joinPoint.proceed();
+    } catch (Throwable t) {
+      handlerMeters.finished(start, true);
+      throw t;
+    }
+    if (result instanceof CompletionStage<?> stage) {
+      // async handlers are measured until their result is ready
+      stage.whenComplete((value, error) -> handlerMeters.finished(start, error != null));
+    } else {
+      handlerMeters.finished(start, false);
+    }
+    return result;
+  }
+
+  private class HandlerMeters {
+    final Timer timer;
+    final Counter errors;
+    final AtomicInteger inFlight = new AtomicInteger();
+
+    HandlerMeters(String controller, String method) {
+      Tags tags = Tags.of("controller", controller, "method", method);
+      timer = Timer.builder(HANDLER_TIMER)
+          .description("Time spent in controller handler methods")
+          .tags(tags)
+          .publishPercentiles(0.5, 0.9, 0.99)
+          .register(meterRegistry);
+      errors = Counter.builder(HANDLER_ERRORS)
+          .description("Controller handler invocations that threw")
+          .tags(tags)
+          .register(meterRegistry);
+      Gauge.builder(HANDLER_IN_FLIGHT, inFlight, AtomicInteger::get)
+          .description("Controller handler invocations currently running")
+          .tags(tags)
+          .register(meterRegistry);
+    }
+
+    void finished(long start, boolean failed) {
+      if (failed) {
+        errors.increment();
+      }
+      timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      inFlight.decrementAndGet();
+    }
   }
 
   private static Optional<HttpServletRequest> getCurrentHttpRequest() {
@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * CBOR (application/cbor) and Smile (application/x-jackson-smile) for
+ * clients that ask for them in Accept. Both are Jackson's own data model in
+ * a binary encoding, so every endpoint that returns objects as JSON returns
+ * the same shapes in either format; JSON stays the default.
+ *
+ * Spring MVC would register these converters by itself once the formats are
+ * on the classpath, but with a plain ObjectMapper. These are built from
+ * Boot's Jackson2ObjectMapperBuilder instead, so they get the same modules
+ * and spring.jackson.* settings as JSON (dates as ISO strings, for
+ * instance), and Boot puts them in place of the plain ones.
+ * See docs/binary-formats.md.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+  }
+}
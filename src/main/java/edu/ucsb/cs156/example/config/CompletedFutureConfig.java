@@ -0,0 +1,121 @@
+package edu.ucsb.cs156.example.config;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * Writes a handler's CompletableFuture on the request thread when it is
+ * already complete by the time the handler returns, instead of through
+ * Spring's async dispatch. That is every request while the controller
+ * executor is off (the default, see ControllerExecutorConfig), since
+ * ApiController.async then runs the work inline, and every 304 from
+ * ApiController.conditionalListing. Async dispatch would cost each of them
+ * a second pass through the filter chain and DispatcherServlet for nothing.
+ *
+ * A future that failed is rethrown, so the controller's @ExceptionHandlers
+ * answer it as they would any other exception. Futures still running are
+ * left to Spring's usual handling.
+ */
+@Configuration
+public class CompletedFutureConfig implements WebMvcRegistrations {
+
+  @Override
+  public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+    return new RequestMappingHandlerAdapter() {
+      @Override
+      public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(getReturnValueHandlers());
+        HandlerMethodReturnValueHandlerComposite defaults = new HandlerMethodReturnValueHandlerComposite()
+            .addHandlers(handlers);
+        handlers.add(0, new CompletedFutureReturnValueHandler(defaults));
+        setReturnValueHandlers(handlers);
+      }
+    };
+  }
+
+  static class CompletedFutureReturnValueHandler implements HandlerMethodReturnValueHandler {
+
+    private final HandlerMethodReturnValueHandler defaults;
+
+    CompletedFutureReturnValueHandler(HandlerMethodReturnValueHandler defaults) {
+      this.defaults = defaults;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+      return CompletionStage.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType,
+        ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+      if (!(returnValue instanceof CompletableFuture<?> future) || !future.isDone()) {
+        defaults.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+        return;
+      }
+      Object result;
+      try {
+        result = future.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof Exception cause) {
+          throw cause;
+        }
+        throw e;
+      }
+      defaults.handleReturnValue(result, new ResultParameter(returnType, result), mavContainer, webRequest);
+    }
+  }
+
+  /**
+   * The handler's return type with the future taken off, so that the
+   * handlers for the value (ResponseEntity, @ResponseBody) pick it up and
+   * see its generic type, as they do for the result of an async dispatch.
+   */
+  static class ResultParameter extends MethodParameter {
+
+    private final Class<?> valueType;
+    private final ResolvableType resultType;
+
+    ResultParameter(MethodParameter futureType, Object value) {
+      super(futureType);
+      this.resultType = ResolvableType.forMethodParameter(futureType).getGeneric();
+      this.valueType = value != null ? value.getClass() : resultType.toClass();
+    }
+
+    private ResultParameter(ResultParameter original) {
+      super(original);
+      this.resultType = original.resultType;
+      this.valueType = original.valueType;
+    }
+
+    @Override
+    public Class<?> getParameterType() {
+      return valueType;
+    }
+
+    @Override
+    public Type getGenericParameterType() {
+      return resultType.getType();
+    }
+
+    @Override
+    public ResultParameter clone() {
+      return new ResultParameter(this);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package edu.ucsb.cs156.example.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The executor that asynchronous controller handlers (see
+ * ApiController.async) run on. It has a fixed number of threads and a
+ * bounded queue, so a slow database backs work up here rather than on the
+ * servlet container's threads; once the queue is full new work is rejected
+ * and the request is answered with 503.
+ *
+ * Pool and queue sizes are published as executor.* meters tagged
+ * name=controller, along with executor.idle (time spent queued), executor
+ * (time spent running) and executor.rejected.
+ *
+ * The pool is opt-in, with app.controllerExecutor.enabled=true. By default
+ * handlers run inline on the servlet thread: under the load test a pool
+ * sized to the JDBC pool turned away more requests than it protected (see
+ * docs/virtual-threads.md). Their futures are then complete when the
+ * handler returns and are written on the request thread, with no async
+ * dispatch (see CompletedFutureConfig). Handlers also run inline when
+ * requests are handled on virtual threads (see VirtualThreadConfig):
+ * blocking there is cheap, and a pool of platform threads would only bring
+ * the limit back.
+ */
+@Slf4j
+@Configuration
+public class ControllerExecutorConfig {
+
+  public static final String EXECUTOR_NAME = "controller";
+
+  private static final String POOLED =
+      "${app.controllerExecutor.enabled:false} and !${" + VirtualThreadConfig.ENABLED + ":false}";
+
+  @Bean("controllerExecutor")
+  @ConditionalOnExpression(POOLED)
+  public ThreadPoolTaskExecutor controllerExecutor(MeterRegistry meterRegistry,
+      @Value("${app.controllerExecutor.threads:10}") int threads,
+      @Value("${app.controllerExecutor.queueCapacity:200}") int queueCapacity) {
+    Counter rejected = Counter.builder("executor.rejected")
+        .description("Tasks turned away because the queue was full")
+        .tag("name", EXECUTOR_NAME)
+        .register(meterRegistry);
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor() {
+      @Override
+      protected ExecutorService initializeExecutor(ThreadFactory threadFactory,
+          RejectedExecutionHandler rejectedExecutionHandler) {
+        // the pool only exists once Spring initializes the bean
+        ExecutorService pool = super.initializeExecutor(threadFactory, rejectedExecutionHandler);
+        new ExecutorServiceMetrics(pool, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+        return pool;
+      }
+    };
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix(EXECUTOR_NAME + "-");
+    executor.setTaskDecorator(requestContextDecorator(meterRegistry));
+    executor.setRejectedExecutionHandler((task, pool) -> {
+      rejected.increment();
+      throw new RejectedExecutionException(
+          "controller executor is saturated (%d queued)".formatted(pool.getQueue().size()));
+    });
+    // let requests that were already accepted finish on shutdown
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    executor.setAwaitTerminationSeconds(30);
+    log.info("controller executor: threads={} queueCapacity={}", threads, queueCapacity);
+    return executor;
+  }
+
+  @Bean("controllerExecutor")
+  @ConditionalOnExpression("!(" + POOLED + ")")
+  public TaskExecutor inlineControllerExecutor() {
+    log.info("controller executor disabled; handlers run on request threads");
+    return new SyncTaskExecutor();
+  }
+
+  /**
+   * Handlers read the signed-in user and the current request, both of which
+   * are thread-bound; carry them over from the submitting thread, and time
+   * how long the task waited and ran.
+   */
+  static TaskDecorator requestContextDecorator(MeterRegistry meterRegistry) {
+    Timer idle = Timer.builder("executor.idle")
+        .tag("name", EXECUTOR_NAME)
+        .register(meterRegistry);
+    Timer execution = Timer.builder("executor")
+        .tag("name", EXECUTOR_NAME)
+        .register(meterRegistry);
+
+    return task -> {
+      SecurityContext securityContext = SecurityContextHolder.getContext();
+      RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+      long queuedAt = System.nanoTime();
+      return () -> {
+        idle.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+        RequestAttributes previousRequestAttributes = RequestContextHolder.getRequestAttributes();
+        SecurityContextHolder.setContext(securityContext);
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        try {
+          execution.record(task);
+        } finally {
+          SecurityContextHolder.setContext(previousSecurityContext);
+          RequestContextHolder.setRequestAttributes(previousRequestAttributes);
+        }
+      };
+    };
+  }
+}
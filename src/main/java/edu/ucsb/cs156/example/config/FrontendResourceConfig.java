@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+/**
+ * Serves the React build, which the production profile copies into
+ * classpath:/public along with a .br and a .gz copy of each compressible
+ * file (see frontend/scripts/precompress.js). A client that accepts br or
+ * gzip gets the precompressed copy as it is, so nothing is compressed per
+ * request.
+ *
+ * The bundler puts a content hash in the name of every file under static/,
+ * so those are cached for a year and never revalidated. Everything else,
+ * index.html in particular, is revalidated on every use, so a deploy is
+ * picked up at once. Both are private: the first response a browser gets
+ * may set the XSRF-TOKEN cookie, which a shared cache must not hand on.
+ * See docs/compression.md.
+ */
+@Profile("!development")
+@Configuration
+public class FrontendResourceConfig implements WebMvcConfigurer {
+
+  private static final String IMMUTABLE_HEADER_VALUE =
+      CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().getHeaderValue() + ", immutable";
+
+  // CacheControl has no immutable() before Spring 6
+  static final CacheControl HASHED_ASSET_CACHING = new CacheControl() {
+    @Override
+    public String getHeaderValue() {
+      return IMMUTABLE_HEADER_VALUE;
+    }
+  };
+
+  @Override
+  public void addResourceHandlers(ResourceHandlerRegistry registry) {
+    registry.addResourceHandler("/static/**")
+        .addResourceLocations("classpath:/public/static/")
+        .setCacheControl(HASHED_ASSET_CACHING)
+        .resourceChain(true)
+        .addResolver(new EncodedResourceResolver());
+    registry.addResourceHandler("/**")
+        .addResourceLocations("classpath:/public/")
+        .setCacheControl(CacheControl.noCache().cachePrivate())
+        .resourceChain(true)
+        .addResolver(new EncodedResourceResolver());
+  }
+
+  // The resolver only adds Vary to the compressed copies; a cache that
+  // stored the uncompressed file must not hand it to a client that asked
+  // for br either.
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new HandlerInterceptor() {
+      @Override
+      public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof ResourceHttpRequestHandler) {
+          response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        return true;
+      }
+    });
+  }
+}
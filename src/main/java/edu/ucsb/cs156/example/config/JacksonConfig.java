@@ -0,0 +1,46 @@
+package edu.ucsb.cs156.example.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import java.lang.invoke.MethodHandles;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Boot installs every Module bean in the application's ObjectMapper, and
+ * through Jackson2ObjectMapperBuilder in the CBOR and Smile converters too
+ * (see BinaryFormatConfig).
+ *
+ * Blackbird replaces the reflective getter and setter calls of Jackson's
+ * bean serializers and deserializers with lambdas generated through
+ * LambdaMetafactory, which the JIT can inline. It is the successor to
+ * Afterburner, whose bytecode injection does not work well with the module
+ * system since Java 9. The output is the same. See docs/serialization.md.
+ */
+@Configuration
+public class JacksonConfig {
+
+  @Bean
+  public Module blackbirdModule() {
+    return new BlackbirdModule(JacksonConfig::lookupFor);
+  }
+
+  // LambdaMetafactory needs a lookup with full access to the bean class,
+  // and privateLookupIn only gives one inside the caller's own module. Under
+  // devtools our classes are loaded by the restart class loader and
+  // Blackbird's by the application one, so its default lookup fails there.
+  // Our own classes get a lookup from here instead; anyone else's (null)
+  // keep Jackson's reflective accessors.
+  static MethodHandles.Lookup lookupFor(Class<?> type) {
+    if (type.getModule() != JacksonConfig.class.getModule()) {
+      return null;
+    }
+    try {
+      return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+}
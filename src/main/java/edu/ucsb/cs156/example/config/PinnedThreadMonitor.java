@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watches the JFR jdk.VirtualThreadPinned event, raised when a virtual
+ * thread blocks while it cannot unmount from its carrier (typically inside
+ * a synchronized block or method). Every occurrence longer than the
+ * threshold is timed in jvm.threads.virtual.pinned; each distinct place it
+ * happens is logged once, with the stack that led there.
+ */
+@Slf4j
+public class PinnedThreadMonitor implements AutoCloseable {
+
+  public static final String EVENT = "jdk.VirtualThreadPinned";
+  public static final String TIMER = "jvm.threads.virtual.pinned";
+
+  private static final String APP_PACKAGE = "edu.ucsb.cs156.";
+  private static final int LOGGED_FRAMES = 12;
+
+  private final RecordingStream stream = new RecordingStream();
+
+  private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+
+  private final Timer pinned;
+
+  public PinnedThreadMonitor(MeterRegistry meterRegistry, Duration threshold) {
+    pinned = Timer.builder(TIMER)
+        .description("Time virtual threads spent blocked while pinned to their carrier")
+        .register(meterRegistry);
+    stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(EVENT, this::pinnedEvent);
+    stream.startAsync();
+  }
+
+  void pinnedEvent(RecordedEvent event) {
+    pinned.record(event.getDuration());
+    List<RecordedFrame> frames = frames(event.getStackTrace());
+    String site = site(frames);
+    if (reportedSites.add(site)) {
+      log.warn("virtual thread pinned for {} ms at {}:\n\t{}", event.getDuration().toMillis(), site,
+          frames.stream().limit(LOGGED_FRAMES).map(PinnedThreadMonitor::describe).collect(Collectors.joining("\n\t")));
+    }
+  }
+
+  // The first frame in our own code says the most about where to look; if
+  // the pin happened entirely in library code, fall back to the top frame.
+  static String site(List<RecordedFrame> frames) {
+    return frames.stream()
+        .filter(frame -> frame.getMethod().getType().getName().startsWith(APP_PACKAGE))
+        .findFirst()
+        .or(() -> frames.stream().findFirst())
+        .map(PinnedThreadMonitor::describe)
+        .orElse("unknown");
+  }
+
+  private static List<RecordedFrame> frames(RecordedStackTrace stackTrace) {
+    return stackTrace == null ? List.of() : stackTrace.getFrames();
+  }
+
+  private static String describe(RecordedFrame frame) {
+    return "%s.%s:%d".formatted(frame.getMethod().getType().getName(), frame.getMethod().getName(),
+        frame.getLineNumber());
+  }
+
+  @Override
+  public void close() {
+    stream.close();
+  }
+}
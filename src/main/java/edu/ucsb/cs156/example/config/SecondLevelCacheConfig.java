@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds the Caffeine-backed JCache manager behind Hibernate's second-level
+ * and query caches. Every region listed in app.secondLevelCache.regions is
+ * bounded by app.secondLevelCache.&lt;region&gt;.maximumSize and
+ * .expireAfterWriteSeconds, falling back to app.secondLevelCache.default.*.
+ * Hibernate is set to fail on any region not listed, so a newly cached
+ * entity cannot silently get an unbounded cache.
+ */
+@Slf4j
+@Configuration
+public class SecondLevelCacheConfig {
+
+  public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+  public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+  private static final String PREFIX = "app.secondLevelCache.";
+
+  @Bean(destroyMethod = "close")
+  public CacheManager secondLevelCacheManager(Environment environment,
+      @Value("${app.secondLevelCache.regions}") List<String> regions) {
+    // a private manager per application context, so test contexts do not share regions
+    CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+        .getCacheManager(URI.create("second-level-cache:" + UUID.randomUUID()), getClass().getClassLoader());
+
+    long defaultMaximumSize = environment.getProperty(PREFIX + "default.maximumSize", Long.class, 10_000L);
+    long defaultExpireSeconds = environment.getProperty(PREFIX + "default.expireAfterWriteSeconds", Long.class, 600L);
+    for (String region : regions) {
+      long maximumSize = environment.getProperty(PREFIX + region + ".maximumSize", Long.class, defaultMaximumSize);
+      long expireSeconds = environment.getProperty(PREFIX + region + ".expireAfterWriteSeconds", Long.class, defaultExpireSeconds);
+      cacheManager.createCache(region, regionConfiguration(maximumSize, expireSeconds));
+      log.info("second-level cache region {}: maximumSize={} expireAfterWriteSeconds={}", region, maximumSize, expireSeconds);
+    }
+
+    // Query results are only valid while these timestamps are, so they are
+    // never evicted; there is one small entry per table.
+    CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+    timestamps.setStoreByValue(false);
+    cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, timestamps);
+    return cacheManager;
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+    return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+  }
+
+  static CaffeineConfiguration<Object, Object> regionConfiguration(long maximumSize, long expireAfterWriteSeconds) {
+    CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+    // Hibernate stores its own immutable cache entries; copying them buys nothing
+    configuration.setStoreByValue(false);
+    configuration.setMaximumSize(OptionalLong.of(maximumSize));
+    configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(expireAfterWriteSeconds)));
+    return configuration;
+  }
+}
@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.models.CacheRegionStatistics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-region hit ratios for the Hibernate second-level and query caches at
+ * /actuator/secondlevelcache. Counts are only collected while
+ * app.secondLevelCache.statistics (and with it
+ * hibernate.generate_statistics) is on, which it is not by default.
+ */
+@Component
+@Endpoint(id = "secondlevelcache")
+public class SecondLevelCacheEndpoint {
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  CacheManager secondLevelCacheManager;
+
+  @ReadOperation
+  public Map<String, CacheRegionStatistics> secondLevelCache() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    Map<String, CacheRegionStatistics> result = new TreeMap<>();
+    for (String region : secondLevelCacheManager.getCacheNames()) {
+      org.hibernate.stat.CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+      if (regionStatistics == null) {
+        continue;
+      }
+      long hits = regionStatistics.getHitCount();
+      long misses = regionStatistics.getMissCount();
+      result.put(region, CacheRegionStatistics.builder()
+          .size(size(region))
+          .hitCount(hits)
+          .missCount(misses)
+          .putCount(regionStatistics.getPutCount())
+          .hitRatio(hits + misses == 0 ? 0.0 : (double) hits / (hits + misses))
+          .build());
+    }
+    return result;
+  }
+
+  private long size(String region) {
+    Cache<Object, Object> cache = secondLevelCacheManager.getCache(region);
+    return cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class).estimatedSize();
+  }
+}
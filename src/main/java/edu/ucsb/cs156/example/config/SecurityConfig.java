@@ -4,22 +4,19 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.core.GrantedAuthority;
@@ -33,8 +30,7 @@ import org.springframework.security.web.util.matcher.RequestMatcher;
 
 
 
-import edu.ucsb.cs156.example.entities.User;
-import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminLookupService;
 import lombok.extern.slf4j.Slf4j;
 
 @Configuration
@@ -43,15 +39,22 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
-  @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<String>();
+  private static final GrantedAuthority ROLE_ADMIN = new SimpleGrantedAuthority("ROLE_ADMIN");
+  private static final GrantedAuthority ROLE_MEMBER = new SimpleGrantedAuthority("ROLE_MEMBER");
 
   @Autowired
-  UserRepository userRepository;
+  AdminLookupService adminLookupService;
+
+  // Contributed by optional build profiles (e.g. the load-test login in
+  // src/loadtest); there are none in a normal build.
+  @Autowired(required = false)
+  List<AbstractHttpConfigurer<?, HttpSecurity>> profileConfigurers = List.of();
 
   @Override
   protected void configure(HttpSecurity http) throws Exception {
     http.authorizeRequests(authorize -> authorize
+        // every actuator endpoint, including ones exposed later, is admin only
+        .antMatchers("/actuator/**").hasRole("ADMIN")
         .anyRequest().permitAll())
         .exceptionHandling(handlingConfigurer -> handlingConfigurer
             .authenticationEntryPoint(new Http403ForbiddenEntryPoint()))
@@ -62,6 +65,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         .logout(logout -> logout
             .logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
             .logoutSuccessUrl("/"));
+    for (AbstractHttpConfigurer<?, HttpSecurity> configurer : profileConfigurers) {
+      http.apply(configurer);
+    }
   }
 
   @Override
@@ -69,41 +75,28 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     web.ignoring().antMatchers("/h2-console/**");
   }
 
-  private GrantedAuthoritiesMapper userAuthoritiesMapper() {
+  GrantedAuthoritiesMapper userAuthoritiesMapper() {
     return (authorities) -> {
-      Set<GrantedAuthority> mappedAuthorities = new HashSet<>();
-      log.info("********** authorities={}", authorities);
-
-      authorities.forEach(authority -> {
-        log.info("********** authority={}", authority);
-        mappedAuthorities.add(authority);
-        if (OAuth2UserAuthority.class.isInstance(authority)) {
-          OAuth2UserAuthority oauth2UserAuthority = (OAuth2UserAuthority) authority;
+      Set<GrantedAuthority> mappedAuthorities = new HashSet<>(authorities);
 
-          Map<String, Object> userAttributes = oauth2UserAuthority.getAttributes();
-          log.info("********** userAttributes={}", userAttributes);
-
-          String email = (String) userAttributes.get("email");
+      for (GrantedAuthority authority : authorities) {
+        if (authority instanceof OAuth2UserAuthority oauth2UserAuthority) {
+          String email = (String) oauth2UserAuthority.getAttributes().get("email");
           if (getAdmin(email)) {
-            mappedAuthorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+            mappedAuthorities.add(ROLE_ADMIN);
           }
 
           if (email.endsWith("@ucsb.edu")) {
-            mappedAuthorities.add(new SimpleGrantedAuthority("ROLE_MEMBER"));
+            mappedAuthorities.add(ROLE_MEMBER);
           }
         }
-
-      });
-      log.info("********** mappedAuthorities={}", mappedAuthorities);
+      }
+      log.debug("mappedAuthorities={}", mappedAuthorities);
       return mappedAuthorities;
     };
   }
 
   public boolean getAdmin(String email) {
-    if (adminEmails.contains(email)) {
-      return true;
-    }
-    Optional<User> u = userRepository.findByEmail(email);
-    return u.isPresent() && u.get().getAdmin();
+    return adminLookupService.isAdmin(email);
   }
-}
\ No newline at end of file
+}
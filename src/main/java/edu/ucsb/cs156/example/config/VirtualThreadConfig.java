@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * With app.virtualThreads.enabled=true, Tomcat handles every request on a
+ * virtual thread of its own instead of on its fixed pool of platform
+ * threads, so a request blocked on JDBC no longer holds a scarce thread.
+ * Handlers then run inline (see ControllerExecutorConfig) and the JDBC pool
+ * is what bounds concurrent database work.
+ *
+ * Virtual threads need Java 21; the build still targets java.version, so
+ * they are looked up reflectively and startup fails on an older JVM. See
+ * docs/virtual-threads.md.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = VirtualThreadConfig.ENABLED, havingValue = "true")
+public class VirtualThreadConfig {
+
+  public static final String ENABLED = "app.virtualThreads.enabled";
+
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService requestExecutor() {
+    log.info("handling requests on virtual threads (Java {})", Runtime.version());
+    return newVirtualThreadPerTaskExecutor("http-vt-");
+  }
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+      ExecutorService requestExecutor) {
+    return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+  }
+
+  @Bean(destroyMethod = "close")
+  public PinnedThreadMonitor pinnedThreadMonitor(MeterRegistry meterRegistry,
+      @Value("${app.virtualThreads.pinnedThreshold:20ms}") Duration threshold) {
+    return new PinnedThreadMonitor(meterRegistry, threshold);
+  }
+
+  /** Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory()) */
+  static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+    try {
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+      ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+      return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+          .invoke(null, factory);
+    } catch (ClassNotFoundException | NoSuchMethodException e) {
+      throw new IllegalStateException(
+          "%s=true needs Java 21 or later, but this is Java %s".formatted(ENABLED, Runtime.version()), e);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("could not create virtual threads", e);
+    }
+  }
+}
@@ -1,22 +1,68 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidCoordinatesException;
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+import edu.ucsb.cs156.example.errors.InvalidFieldsException;
+import edu.ucsb.cs156.example.errors.InvalidPatchException;
+import edu.ucsb.cs156.example.errors.InvalidSortException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @Slf4j
 public abstract class ApiController {
+  public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+  public static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+  // CBOR is MediaType.APPLICATION_CBOR_VALUE; see BinaryFormatConfig
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
   @Autowired
   private CurrentUserService currentUserService;
 
+  @Autowired
+  private TableVersionService tableVersionService;
+
+  @Autowired
+  @Qualifier("controllerExecutor")
+  private TaskExecutor controllerExecutor;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
   protected CurrentUser getCurrentUser() {
     return currentUserService.getCurrentUser();
   }
@@ -25,6 +71,156 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  // Runs the body of a handler on the controller executor (see
+  // ControllerExecutorConfig), releasing the servlet thread while it waits
+  // on the database. Throws RejectedExecutionException when saturated.
+  // With the executor off (the default) the body runs inline and the future
+  // is already complete, so it is written without an async dispatch (see
+  // CompletedFutureConfig).
+  protected <T> CompletableFuture<T> async(Supplier<T> work) {
+    return CompletableFuture.supplyAsync(work, controllerExecutor);
+  }
+
+  // Continuation tokens for keyset-paginated listings; clients should treat
+  // them as opaque and just hand them back in the cursor parameter.
+  protected String encodeCursor(long lastId) {
+    return encodeCursor(Long.toString(lastId));
+  }
+
+  protected long decodeCursor(String cursor) {
+    try {
+      return Long.parseLong(decodeCursorPosition(cursor));
+    } catch (NumberFormatException e) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+
+  // For listings sorted by more than the id, the position is whatever the
+  // handler needs to find its place again.
+  protected String encodeCursor(String position) {
+    return Base64.getUrlEncoder().withoutPadding()
+      .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+
+  protected String decodeCursorPosition(String cursor) {
+    try {
+      return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+
+  protected String nextPageLink(String path, String cursor) {
+    String uri = ServletUriComponentsBuilder.fromCurrentRequest()
+      .replacePath(path)
+      .replaceQueryParam("after")
+      .replaceQueryParam("cursor", cursor)
+      .build()
+      .toUriString();
+    return "<%s>; rel=\"next\"".formatted(uri);
+  }
+
+  // Listings carry an ETag derived from the table's write counter. A client
+  // that already holds the current version gets 304 without the listing
+  // being queried or serialized; browsers revalidate on every use. The
+  // check is answered on the servlet thread, the listing itself through
+  // async().
+  //
+  // The ETag is weak: it names the table version, not the bytes, which
+  // differ once Tomcat gzips the body (and Tomcat won't compress a response
+  // with a strong ETag). The same version is served as JSON, CBOR or Smile
+  // depending on Accept, so a cache has to keep those apart.
+  protected <T> CompletableFuture<ResponseEntity<T>> conditionalListing(Class<?> entityType,
+      Supplier<ResponseEntity<T>> listing) {
+    ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+    String etag = tableVersionService.etag(entityType);
+
+    // Written before the request can go async: Spring Security adds its own
+    // no-store Cache-Control when the servlet thread lets go, unless one is
+    // already there.
+    HttpServletResponse servletResponse = attributes.getResponse();
+    servletResponse.setHeader(HttpHeaders.ETAG, "W/" + etag);
+    servletResponse.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+
+    if (ifNoneMatch(attributes.getRequest(), etag)) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+    }
+    return async(listing);
+  }
+
+  private boolean ifNoneMatch(HttpServletRequest request, String etag) {
+    String header = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    if (header == null) {
+      return false;
+    }
+    for (String candidate : header.split(",")) {
+      String tag = candidate.trim();
+      // If-None-Match uses weak comparison
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // A single entity's ETag is its @Version. An update that sends If-Match
+  // must name the current version; otherwise someone else has changed the
+  // entity since the client read it, and the update fails with 412.
+  protected String versionEtag(long version) {
+    return "\"%d\"".formatted(version);
+  }
+
+  protected <T> ResponseEntity<T> versioned(T entity, long version) {
+    return ResponseEntity.ok().eTag(versionEtag(version)).body(entity);
+  }
+
+  protected void checkIfMatch(String ifMatch, Class<?> entityType, Object id, long version) {
+    if (ifMatch == null) {
+      return;
+    }
+    String etag = versionEtag(version);
+    for (String candidate : ifMatch.split(",")) {
+      String tag = candidate.trim();
+      // If-Match uses strong comparison, so weak tags never match
+      if (tag.equals("*") || tag.equals(etag)) {
+        return;
+      }
+    }
+    throw new PreconditionFailedException(entityType, id, ifMatch);
+  }
+
+  // JSON Merge Patch (RFC 7396): each member of the patch replaces that
+  // property of the entity and null clears it; properties the patch leaves
+  // out keep their values. Entities use @DynamicUpdate, so the UPDATE only
+  // names the columns that actually changed. Keys and the version can't be
+  // patched, and neither can properties the entity doesn't have.
+  protected <T> T mergePatch(T entity, JsonNode patch, String... keyProperties) {
+    if (!patch.isObject()) {
+      throw new InvalidPatchException("expected a JSON object but got %s".formatted(patch.getNodeType()));
+    }
+    for (String property : List.of(keyProperties)) {
+      if (patch.has(property)) {
+        throw new InvalidPatchException("%s cannot be changed".formatted(property));
+      }
+    }
+    if (patch.has("version")) {
+      throw new InvalidPatchException("version cannot be changed; send If-Match instead");
+    }
+    try {
+      @SuppressWarnings("unchecked")
+      Class<T> type = (Class<T>) entity.getClass();
+      return objectMapper.readerForUpdating(entity)
+        .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES)
+        .treeToValue(patch, type);
+    } catch (JsonProcessingException e) {
+      throw new InvalidPatchException(e.getOriginalMessage());
+    }
+  }
+
   @ExceptionHandler({ EntityNotFoundException.class })
   @ResponseStatus(HttpStatus.NOT_FOUND)
   public Object handleGenericException(Throwable e) {
@@ -33,4 +229,36 @@ public abstract class ApiController {
       "message", e.getMessage()
     );
   }
+
+  @ExceptionHandler({ RejectedExecutionException.class })
+  public ResponseEntity<Object> handleRejectedExecutionException(RejectedExecutionException e) {
+    log.warn("rejected request: {}", e.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+      .header(HttpHeaders.RETRY_AFTER, "1")
+      .body(Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", "Server is busy, try again shortly"
+      ));
+  }
+
+  // The versioned UPDATE also fails when another write lands between our
+  // read and our save, with or without If-Match.
+  @ExceptionHandler({ PreconditionFailedException.class, ObjectOptimisticLockingFailureException.class })
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public Object handlePreconditionFailedException(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
+
+  @ExceptionHandler({ InvalidCursorException.class, InvalidCoordinatesException.class, InvalidPatchException.class,
+    InvalidSortException.class, InvalidFieldsException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBadRequestException(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
 }
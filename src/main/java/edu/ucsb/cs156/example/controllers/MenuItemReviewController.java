@@ -1,8 +1,15 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchItemResult;
+import edu.ucsb.cs156.example.models.MenuItemReviewSearchHit;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
+import edu.ucsb.cs156.example.services.MenuItemReviewBatchService;
+import edu.ucsb.cs156.example.services.MenuItemReviewSearchService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,20 +17,41 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
 import javax.validation.Valid;
 
@@ -36,19 +64,119 @@ public class MenuItemReviewController extends ApiController {
     @Autowired
     MenuItemReviewRepository menuItemReviewRepository;
 
+    @Autowired
+    MenuItemReviewBatchService menuItemReviewBatchService;
+
+    @Autowired
+    MenuItemRatingService menuItemRatingService;
+
+    @Autowired
+    MenuItemReviewSearchService menuItemReviewSearch;
+
+    @Autowired
+    FieldProjectionService fieldProjection;
+
+
+    // When positive, /all returns at most this many reviews and points the
+    // client at /paged for the rest, instead of serializing the whole table.
+    @Value("${app.menuItemReview.allLimit:0}")
+    int allLimit;
+
+    @Value("${app.menuItemReview.pageMaxLimit:500}")
+    int pageMaxLimit;
 
     @Operation(summary = "List all reviews")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<MenuItemReview> allCommonss() {
-        Iterable<MenuItemReview> review = menuItemReviewRepository.findAll();
-        return review;
+    public CompletableFuture<ResponseEntity<Iterable<?>>> allCommonss(
+        @Parameter(name="fields", description="comma-separated properties to return, e.g. id,stars; whole rows when left out") @RequestParam(required = false) String fields) {
+        List<String> selected = fieldProjection.selectFields(MenuItemReview.class, fields);
+        return conditionalListing(MenuItemReview.class, () -> {
+            if (allLimit <= 0) {
+                if (!selected.isEmpty()) {
+                    return ResponseEntity.ok(fieldProjection.findAll(MenuItemReview.class, selected));
+                }
+                Iterable<MenuItemReview> review = menuItemReviewRepository.findAll();
+                return ResponseEntity.ok(review);
+            }
+            if (!selected.isEmpty()) {
+                return pageOfReviewFields(selected, 0L, allLimit);
+            }
+            return pageOfReviews(0L, allLimit);
+        });
+    }
+
+    @Operation(summary = "List reviews one page at a time, ordered by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/paged")
+    public CompletableFuture<ResponseEntity<Iterable<?>>> pagedReviews(
+        @Parameter(name="after", description="return reviews with id greater than this") @RequestParam(required = false) Long after,
+        @Parameter(name="cursor", description="continuation token from a previous page; overrides after") @RequestParam(required = false) String cursor,
+        @Parameter(name="limit") @RequestParam(defaultValue = "100") int limit,
+        @Parameter(name="fields", description="comma-separated properties to return, always with the id; whole rows when left out") @RequestParam(required = false) String fields) {
+
+        long afterId = cursor != null ? decodeCursor(cursor) : (after != null ? after : 0L);
+        int pageSize = Math.max(1, Math.min(limit, pageMaxLimit));
+        List<String> selected = fieldProjection.selectFields(MenuItemReview.class, fields);
+        if (!selected.isEmpty()) {
+            return async(() -> pageOfReviewFields(selected, afterId, pageSize));
+        }
+        return async(() -> pageOfReviews(afterId, pageSize));
+    }
+
+    private ResponseEntity<Iterable<?>> pageOfReviews(long afterId, int pageSize) {
+        List<MenuItemReview> page = menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(pageSize));
+        return pageResponse(page, pageSize, MenuItemReview::getId);
+    }
+
+    // The next page starts after the last row's id, so a paged projection
+    // always includes the id.
+    private ResponseEntity<Iterable<?>> pageOfReviewFields(List<String> fields, long afterId, int pageSize) {
+        List<String> withId = fields.contains("id") ? fields
+            : Stream.concat(Stream.of("id"), fields.stream()).toList();
+        List<Map<String, Object>> page = fieldProjection.findPage(MenuItemReview.class, withId, afterId, pageSize);
+        return pageResponse(page, pageSize, row -> ((Number) row.get("id")).longValue());
+    }
+
+    private <T> ResponseEntity<Iterable<?>> pageResponse(List<T> page, int pageSize, ToLongFunction<T> idOf) {
+        // A short page means we reached the end, so there is no next link.
+        if (page.size() < pageSize) {
+            return ResponseEntity.ok(page);
+        }
+        String nextCursor = encodeCursor(idOf.applyAsLong(page.get(page.size() - 1)));
+        return ResponseEntity.ok()
+            .header("X-Next-Cursor", nextCursor)
+            .header(HttpHeaders.LINK, nextPageLink("/api/menuitemreview/paged", nextCursor))
+            .body(page);
+    }
+
+    @Operation(summary = "Search review comments, best matches first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/search")
+    public CompletableFuture<Page<MenuItemReviewSearchHit>> searchReviews(
+        @Parameter(name="q", description="words to match; use \"quotes\" for a phrase and a trailing * for a prefix") @RequestParam String q,
+        @Parameter(name="itemId") @RequestParam(required = false) Long itemId,
+        @Parameter(name="stars") @RequestParam(required = false) Integer stars,
+        @Parameter(name="page") @RequestParam(defaultValue = "0") int page,
+        @Parameter(name="size") @RequestParam(defaultValue = "20") int size) {
+        int pageSize = Math.max(1, Math.min(size, pageMaxLimit));
+        return async(() -> menuItemReviewSearch.search(q, itemId, stars, PageRequest.of(Math.max(page, 0), pageSize)));
+    }
+
+    @Operation(summary = "Rebuild the search index from the reviews table")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/search/rebuild")
+    public CompletableFuture<Object> rebuildSearchIndex() {
+        return async(() -> {
+            menuItemReviewSearch.rebuild();
+            return genericMessage("Menu item review search index rebuilt");
+        });
     }
 
     @Operation(summary = "Create a new review")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
-    public MenuItemReview postItemReview(
+    public CompletableFuture<MenuItemReview> postItemReview(
         @Parameter(name="itemId") @RequestParam long itemId,
         @Parameter(name="reviewerEmail") @RequestParam String reviewerEmail,
         @Parameter(name="stars") @RequestParam int stars,
@@ -66,48 +194,130 @@ public class MenuItemReviewController extends ApiController {
             .comments(comments)
             .build();
 
-        return menuItemReviewRepository.save(review);
+        return async(() -> {
+            MenuItemReview savedReview = menuItemRatingService.addReview(review);
+            menuItemReviewSearch.reviewSaved(savedReview);
+            return savedReview;
+        });
+    }
+
+    @Operation(summary = "Create many reviews from a JSON array")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<List<BatchItemResult>> postItemReviewBatch(
+        @RequestBody List<MenuItemReview> reviews) {
+        log.info("postItemReviewBatch: {} reviews", reviews.size());
+        return async(() -> menuItemReviewBatchService.createAll(reviews.iterator()));
+    }
+
+    @Operation(summary = "Create many reviews from newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public CompletableFuture<List<BatchItemResult>> postItemReviewBatchNdjson(InputStream body) {
+        // read lazily so a large import is never held in memory all at once;
+        // the body is still open while the async task streams through it
+        return async(() -> {
+            try (Reader lines = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+                return menuItemReviewBatchService.createAllFromNdjson(lines);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     @Operation(summary = "Get a single review")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public MenuItemReview getById(
+    public CompletableFuture<ResponseEntity<MenuItemReview>> getById(
         @Parameter(name="id") @RequestParam long id) {
-        MenuItemReview review = menuItemReviewRepository.findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
-
-        return review;
+        return async(() -> {
+            MenuItemReview review = menuItemReviewRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+            return versioned(review, review.getVersion());
+        });
     }
 
     @Operation(summary = "Update a single menu item review")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public MenuItemReview updatMenuItemReview(
+    public CompletableFuture<ResponseEntity<MenuItemReview>> updatMenuItemReview(
         @Parameter(name="id") @RequestParam Long id,
+        @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @RequestBody @Valid MenuItemReview menuItemReview) {
-        MenuItemReview oldReview = menuItemReviewRepository.findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+        return update(id, ifMatch, oldReview -> {
+            oldReview.setItemId(menuItemReview.getItemId());
+            oldReview.setReviewerEmail(menuItemReview.getReviewerEmail());
+            oldReview.setStars(menuItemReview.getStars());
+            oldReview.setDateReviewed(menuItemReview.getDateReviewed());
+            oldReview.setComments(menuItemReview.getComments());
+        });
+    }
+
+    @Operation(summary = "Change some fields of a single menu item review (JSON Merge Patch)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping(value = "", consumes = { APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public CompletableFuture<ResponseEntity<MenuItemReview>> patchMenuItemReview(
+        @Parameter(name="id") @RequestParam Long id,
+        @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+        @RequestBody JsonNode patch) {
+        return update(id, ifMatch, oldReview -> mergePatch(oldReview, patch, "id"));
+    }
+
+    private CompletableFuture<ResponseEntity<MenuItemReview>> update(Long id, String ifMatch,
+        Consumer<MenuItemReview> changes) {
+        return async(() -> {
+            MenuItemReview oldReview = menuItemReviewRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+            checkIfMatch(ifMatch, MenuItemReview.class, id, oldReview.getVersion());
+            long oldItemId = oldReview.getItemId();
+            int oldStars = oldReview.getStars();
 
-        oldReview.setItemId(menuItemReview.getItemId());
-        oldReview.setReviewerEmail(menuItemReview.getReviewerEmail());
-        oldReview.setStars(menuItemReview.getStars());
-        oldReview.setDateReviewed(menuItemReview.getDateReviewed());
-        oldReview.setComments(menuItemReview.getComments());
+            changes.accept(oldReview);
 
-        menuItemReviewRepository.save(oldReview);
-        return oldReview;
+            MenuItemReview saved = menuItemRatingService.updateReview(oldItemId, oldStars, oldReview);
+            menuItemReviewSearch.reviewSaved(saved);
+            return versioned(saved, saved.getVersion());
+        });
     }
 
     @Operation(summary = "Delete a review")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
-    public Object deleteMenuItemReview(
+    public CompletableFuture<Object> deleteMenuItemReview(
         @Parameter(name="id") @RequestParam Long id) {
-        MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+        return async(() -> {
+            MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+
+            menuItemRatingService.removeReview(menuItemReview);
+            menuItemReviewSearch.reviewRemoved(id);
+            return genericMessage("MenuItemReview with id %s deleted".formatted(id));
+        });
+    }
+
+    @Operation(summary = "Get review count, average and star histogram for one menu item")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/stats")
+    public CompletableFuture<MenuItemRatingStats> ratingStats(
+        @Parameter(name="itemId") @RequestParam long itemId) {
+        return async(() -> menuItemRatingService.getStats(itemId));
+    }
+
+    @Operation(summary = "Get review stats for several menu items, in the order requested")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/stats/bulk")
+    public CompletableFuture<List<MenuItemRatingStats>> ratingStatsBulk(
+        @Parameter(name="itemIds", description="comma separated menu item ids") @RequestParam List<Long> itemIds) {
+        return async(() -> menuItemRatingService.getStats(itemIds));
+    }
 
-        menuItemReviewRepository.delete(menuItemReview);
-        return genericMessage("MenuItemReview with id %s deleted".formatted(id));
+    @Operation(summary = "Recompute all review stats from the reviews table")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/stats/rebuild")
+    public CompletableFuture<Object> rebuildRatingStats() {
+        return async(() -> {
+            menuItemRatingService.rebuild();
+            return genericMessage("Menu item rating stats rebuilt");
+        });
     }
 }
\ No newline at end of file
@@ -2,7 +2,12 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+import edu.ucsb.cs156.example.models.RecommendationRequestQuery;
+import edu.ucsb.cs156.example.models.RecommendationRequestQuery.SortKey;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,13 +16,19 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -25,6 +36,10 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Tag(name = "RecommendationRequest")
 @RequestMapping("/api/RecommendationRequest")
@@ -36,23 +51,101 @@ public class RecommendationRequestController extends ApiController {
     @Autowired
     RecommendationRequestRepository recommendationRequestRepository;
 
+    @Autowired
+    FieldProjectionService fieldProjection;
+
+    @Value("${app.recommendationRequest.pageMaxLimit:500}")
+    int pageMaxLimit;
+
     @Operation(summary= "List all recommendation requests")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<RecommendationRequest> allRecommendationRequests() {
-        Iterable<RecommendationRequest> requests = recommendationRequestRepository.findAll();
-        return requests;
+    public CompletableFuture<ResponseEntity<Iterable<?>>> allRecommendationRequests(
+            @Parameter(name="fields", description="comma-separated properties to return, e.g. id,name; whole rows when left out") @RequestParam(required = false) String fields) {
+        List<String> selected = fieldProjection.selectFields(RecommendationRequest.class, fields);
+        return conditionalListing(RecommendationRequest.class, () -> {
+            if (!selected.isEmpty()) {
+                return ResponseEntity.ok(fieldProjection.findAll(RecommendationRequest.class, selected));
+            }
+            Iterable<RecommendationRequest> requests = recommendationRequestRepository.findAll();
+            return ResponseEntity.ok(requests);
+        });
+    }
+
+    @Operation(summary= "List recommendation requests matching the given filters, one page at a time")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/paged")
+    public CompletableFuture<ResponseEntity<Iterable<RecommendationRequest>>> pagedRecommendationRequests(
+            @Parameter(name="done") @RequestParam(required = false) Boolean done,
+            @Parameter(name="professorEmail") @RequestParam(required = false) String professorEmail,
+            @Parameter(name="requesterEmail") @RequestParam(required = false) String requesterEmail,
+            @Parameter(name="neededFrom", description="inclusive, in iso format, e.g. YYYY-mm-ddTHH:MM:SS") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime neededFrom,
+            @Parameter(name="neededTo", description="inclusive, in iso format, e.g. YYYY-mm-ddTHH:MM:SS") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime neededTo,
+            @Parameter(name="sort", description="dateNeeded, dateRequested or id, prefixed with - for descending; requests without that date are left out") @RequestParam(defaultValue = "dateNeeded") String sort,
+            @Parameter(name="cursor", description="continuation token from a previous page") @RequestParam(required = false) String cursor,
+            @Parameter(name="limit") @RequestParam(defaultValue = "100") int limit) {
+
+        boolean descending = sort.startsWith("-");
+        SortKey sortBy = SortKey.fromProperty(descending ? sort.substring(1) : sort);
+        RecommendationRequestQuery.RecommendationRequestQueryBuilder query = RecommendationRequestQuery.builder()
+                .done(done)
+                .professorEmail(professorEmail)
+                .requesterEmail(requesterEmail)
+                .dateNeededFrom(neededFrom)
+                .dateNeededTo(neededTo)
+                .sortBy(sortBy)
+                .descending(descending)
+                .limit(Math.max(1, Math.min(limit, pageMaxLimit)));
+        if (cursor != null) {
+            afterCursor(query, sort, cursor);
+        }
+        RecommendationRequestQuery pageQuery = query.build();
+        return conditionalListing(RecommendationRequest.class, () -> pageOfRequests(pageQuery, sort));
+    }
+
+    // The cursor is "sort|sort key|id" of the last row of the previous page,
+    // and only continues the listing under the same sort.
+    private void afterCursor(RecommendationRequestQuery.RecommendationRequestQueryBuilder query, String sort,
+            String cursor) {
+        String[] position = decodeCursorPosition(cursor).split("\\|", -1);
+        if (position.length != 3 || !position[0].equals(sort)
+                || position[1].isEmpty() != (query.build().getSortBy() == SortKey.ID)) {
+            throw new InvalidCursorException(cursor);
+        }
+        try {
+            query.afterKey(position[1].isEmpty() ? null : LocalDateTime.parse(position[1]))
+                    .afterId(Long.parseLong(position[2]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    private ResponseEntity<Iterable<RecommendationRequest>> pageOfRequests(RecommendationRequestQuery query,
+            String sort) {
+        List<RecommendationRequest> page = recommendationRequestRepository.findPage(query);
+
+        // A short page means we reached the end, so there is no next link.
+        if (page.size() < query.getLimit()) {
+            return ResponseEntity.ok(page);
+        }
+        RecommendationRequest last = page.get(page.size() - 1);
+        LocalDateTime lastKey = query.getSortBy().keyOf(last);
+        String nextCursor = encodeCursor("%s|%s|%d".formatted(sort, lastKey == null ? "" : lastKey, last.getId()));
+        return ResponseEntity.ok()
+                .header("X-Next-Cursor", nextCursor)
+                .header(HttpHeaders.LINK, nextPageLink("/api/RecommendationRequest/paged", nextCursor))
+                .body(page);
     }
 
     @Operation(summary= "Get a single recommendation request")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public RecommendationRequest getById(
+    public ResponseEntity<RecommendationRequest> getById(
             @Parameter(name="id") @RequestParam Long id) {
         RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
-        return recommendationRequest;
+        return versioned(recommendationRequest, recommendationRequest.getVersion());
     }
 
     @Operation(summary= "Create a new recommendation request")
@@ -98,22 +191,39 @@ public class RecommendationRequestController extends ApiController {
     @Operation(summary= "Update a single recommendation request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public RecommendationRequest updateRecommendationRequest(
+    public ResponseEntity<RecommendationRequest> updateRecommendationRequest(
             @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody @Valid RecommendationRequest incoming) {
+        return update(id, ifMatch, recommendationRequest -> {
+            recommendationRequest.setRequesterEmail(incoming.getRequesterEmail());
+            recommendationRequest.setProfessorEmail(incoming.getProfessorEmail());
+            recommendationRequest.setExplanation(incoming.getExplanation());
+            recommendationRequest.setDateRequested(incoming.getDateRequested());
+            recommendationRequest.setDateNeeded(incoming.getDateNeeded());
+            recommendationRequest.setDone(incoming.getDone());
+        });
+    }
+
+    @Operation(summary= "Change some fields of a single recommendation request (JSON Merge Patch)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping(value = "", consumes = { APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<RecommendationRequest> patchRecommendationRequest(
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody JsonNode patch) {
+        return update(id, ifMatch, recommendationRequest -> mergePatch(recommendationRequest, patch, "id"));
+    }
 
+    private ResponseEntity<RecommendationRequest> update(Long id, String ifMatch, Consumer<RecommendationRequest> changes) {
         RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
+        checkIfMatch(ifMatch, RecommendationRequest.class, id, recommendationRequest.getVersion());
 
-        recommendationRequest.setRequesterEmail(incoming.getRequesterEmail());
-        recommendationRequest.setProfessorEmail(incoming.getProfessorEmail());
-        recommendationRequest.setExplanation(incoming.getExplanation());
-        recommendationRequest.setDateRequested(incoming.getDateRequested());
-        recommendationRequest.setDateNeeded(incoming.getDateNeeded());
-        recommendationRequest.setDone(incoming.getDone());
+        changes.accept(recommendationRequest);
 
-        recommendationRequestRepository.save(recommendationRequest);
+        RecommendationRequest saved = recommendationRequestRepository.save(recommendationRequest);
 
-        return recommendationRequest;
+        return versioned(saved, saved.getVersion());
     }
 }
\ No newline at end of file
@@ -3,24 +3,35 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 @Tag(name = "Restaurants")
 @RequestMapping("/api/restaurants")
 @RestController
@@ -29,23 +40,33 @@ public class RestaurantsController extends ApiController {
     @Autowired
     RestaurantRepository restaurantRepository;
 
+    @Autowired
+    FieldProjectionService fieldProjection;
+
     @Operation(summary = "List all restaurants")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Restaurant> allRestaurants() {
-        Iterable<Restaurant> restaurants = restaurantRepository.findAll();
-        return restaurants;
+    public CompletableFuture<ResponseEntity<Iterable<?>>> allRestaurants(
+            @Parameter(name="fields", description="comma-separated properties to return, e.g. id,name; whole rows when left out") @RequestParam(required = false) String fields) {
+        List<String> selected = fieldProjection.selectFields(Restaurant.class, fields);
+        return conditionalListing(Restaurant.class, () -> {
+            if (!selected.isEmpty()) {
+                return ResponseEntity.ok(fieldProjection.findAll(Restaurant.class, selected));
+            }
+            Iterable<Restaurant> restaurants = restaurantRepository.findAll();
+            return ResponseEntity.ok(restaurants);
+        });
     }
 
     @Operation(summary = "Get a single restaurant")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public Restaurant getById(
+    public ResponseEntity<Restaurant> getById(
             @Parameter(name = "id") @RequestParam Long id) {
         Restaurant restaurant = restaurantRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
-        return restaurant;
+        return versioned(restaurant, restaurant.getVersion());
     }
 
     @Operation(summary = "Create a new restaurant")
@@ -78,18 +99,35 @@ public class RestaurantsController extends ApiController {
     @Operation(summary = "Update a single restaurant")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public Restaurant updateRestaurant(
+    public ResponseEntity<Restaurant> updateRestaurant(
             @Parameter(name = "id") @RequestParam Long id,
+            @Parameter(name = "If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody @Valid Restaurant incoming) {
+        return update(id, ifMatch, restaurant -> {
+            restaurant.setName(incoming.getName());
+            restaurant.setDescription(incoming.getDescription());
+        });
+    }
+
+    @Operation(summary = "Change some fields of a single restaurant (JSON Merge Patch)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping(value = "", consumes = { APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<Restaurant> patchRestaurant(
+            @Parameter(name = "id") @RequestParam Long id,
+            @Parameter(name = "If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody JsonNode patch) {
+        return update(id, ifMatch, restaurant -> mergePatch(restaurant, patch, "id"));
+    }
 
+    private ResponseEntity<Restaurant> update(Long id, String ifMatch, Consumer<Restaurant> changes) {
         Restaurant restaurant = restaurantRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
+        checkIfMatch(ifMatch, Restaurant.class, id, restaurant.getVersion());
 
-        restaurant.setName(incoming.getName());
-        restaurant.setDescription(incoming.getDescription());
+        changes.accept(restaurant);
 
-        restaurantRepository.save(restaurant);
+        Restaurant saved = restaurantRepository.save(restaurant);
 
-        return restaurant;
+        return versioned(saved, saved.getVersion());
     }
 }
\ No newline at end of file
@@ -3,7 +3,9 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,13 +14,22 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -26,6 +37,9 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Tag(name = "UCSBDates")
 @RequestMapping("/api/ucsbdates")
@@ -36,23 +50,62 @@ public class UCSBDatesController extends ApiController {
     @Autowired
     UCSBDateRepository ucsbDateRepository;
 
+    @Autowired
+    FieldProjectionService fieldProjection;
+
+    @Value("${app.ucsbDates.pageMaxSize:500}")
+    int pageMaxSize;
+
     @Operation(summary= "List all ucsb dates")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDate> allUCSBDates() {
-        Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
-        return dates;
+    public CompletableFuture<ResponseEntity<Iterable<?>>> allUCSBDates(
+            @Parameter(name="fields", description="comma-separated properties to return, e.g. id,name; whole rows when left out") @RequestParam(required = false) String fields) {
+        List<String> selected = fieldProjection.selectFields(UCSBDate.class, fields);
+        return conditionalListing(UCSBDate.class, () -> {
+            if (!selected.isEmpty()) {
+                return ResponseEntity.ok(fieldProjection.findAll(UCSBDate.class, selected));
+            }
+            Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
+            return ResponseEntity.ok(dates);
+        });
+    }
+
+    @Operation(summary= "List ucsb dates between two date-times, earliest first, one page at a time")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/range")
+    public Page<UCSBDate> ucsbDatesInRange(
+            @Parameter(name="from", description="inclusive, in iso format, e.g. YYYY-mm-ddTHH:MM:SS") @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="inclusive, in iso format, e.g. YYYY-mm-ddTHH:MM:SS") @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="page") @RequestParam(defaultValue = "0") int page,
+            @Parameter(name="size") @RequestParam(defaultValue = "100") int size) {
+        return ucsbDateRepository.findAllByLocalDateTimeBetween(from, to, pageByDate(page, size));
+    }
+
+    @Operation(summary= "List ucsb dates in one quarter, earliest first, one page at a time")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/quarter")
+    public Page<UCSBDate> ucsbDatesInQuarter(
+            @Parameter(name="quarter", description="quarter in YYYYQ format, e.g. 20232") @RequestParam String quarter,
+            @Parameter(name="page") @RequestParam(defaultValue = "0") int page,
+            @Parameter(name="size") @RequestParam(defaultValue = "100") int size) {
+        return ucsbDateRepository.findAllByQuarterYYYYQ(quarter, pageByDate(page, size));
+    }
+
+    private PageRequest pageByDate(int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, pageMaxSize));
+        return PageRequest.of(Math.max(0, page), pageSize, Sort.by("localDateTime", "id"));
     }
 
     @Operation(summary= "Get a single date")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDate getById(
+    public ResponseEntity<UCSBDate> getById(
             @Parameter(name="id") @RequestParam Long id) {
         UCSBDate ucsbDate = ucsbDateRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
-        return ucsbDate;
+        return versioned(ucsbDate, ucsbDate.getVersion());
     }
 
     @Operation(summary= "Create a new date")
@@ -94,19 +147,36 @@ public class UCSBDatesController extends ApiController {
     @Operation(summary= "Update a single date")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public UCSBDate updateUCSBDate(
+    public ResponseEntity<UCSBDate> updateUCSBDate(
             @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody @Valid UCSBDate incoming) {
+        return update(id, ifMatch, ucsbDate -> {
+            ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
+            ucsbDate.setName(incoming.getName());
+            ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
+        });
+    }
+
+    @Operation(summary= "Change some fields of a single date (JSON Merge Patch)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping(value = "", consumes = { APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<UCSBDate> patchUCSBDate(
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody JsonNode patch) {
+        return update(id, ifMatch, ucsbDate -> mergePatch(ucsbDate, patch, "id"));
+    }
 
+    private ResponseEntity<UCSBDate> update(Long id, String ifMatch, Consumer<UCSBDate> changes) {
         UCSBDate ucsbDate = ucsbDateRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+        checkIfMatch(ifMatch, UCSBDate.class, id, ucsbDate.getVersion());
 
-        ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
-        ucsbDate.setName(incoming.getName());
-        ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
+        changes.accept(ucsbDate);
 
-        ucsbDateRepository.save(ucsbDate);
+        UCSBDate saved = ucsbDateRepository.save(ucsbDate);
 
-        return ucsbDate;
+        return versioned(saved, saved.getVersion());
     }
 }
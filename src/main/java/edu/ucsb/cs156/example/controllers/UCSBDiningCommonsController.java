@@ -2,26 +2,40 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.UCSBDiningCommonsCacheService;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
+import edu.ucsb.cs156.example.services.DiningCommonsLocator;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 @Tag(name = "UCSBDiningCommons")
 @RequestMapping("/api/ucsbdiningcommons")
 @RestController
@@ -31,23 +45,57 @@ public class UCSBDiningCommonsController extends ApiController {
     @Autowired
     UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+    @Autowired
+    UCSBDiningCommonsCacheService ucsbDiningCommonsCache;
+
+    @Autowired
+    FieldProjectionService fieldProjection;
+
+    @Autowired
+    DiningCommonsLocator diningCommonsLocator;
+
     @Operation(summary= "List all ucsb dining commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+    public CompletableFuture<ResponseEntity<byte[]>> allCommonss(
+            @Parameter(name="fields", description="comma-separated properties to return, e.g. id,name; whole rows when left out") @RequestParam(required = false) String fields) {
+        List<String> selected = fieldProjection.selectFields(UCSBDiningCommons.class, fields);
+        return conditionalListing(UCSBDiningCommons.class, () -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ucsbDiningCommonsCache.findAllAsJson(selected)));
+    }
+
+    // Same listing for clients that ask for CBOR or Smile, written from the
+    // cached rows; JSON clients get the cached bytes above.
+    @Operation(summary= "List all ucsb dining commons in a binary format")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", produces = { MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+    public CompletableFuture<ResponseEntity<Iterable<?>>> allCommonssBinary(
+            @Parameter(name="fields", description="comma-separated properties to return, e.g. id,name; whole rows when left out") @RequestParam(required = false) String fields) {
+        List<String> selected = fieldProjection.selectFields(UCSBDiningCommons.class, fields);
+        return conditionalListing(UCSBDiningCommons.class, () -> ResponseEntity.ok(ucsbDiningCommonsCache.findAll(selected)));
+    }
+
+    @Operation(summary= "List the dining commons nearest a location, closest first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/nearby")
+    public List<NearbyDiningCommons> nearbyCommons(
+            @Parameter(name="lat", description="latitude in degrees") @RequestParam double lat,
+            @Parameter(name="lon", description="longitude in degrees") @RequestParam double lon,
+            @Parameter(name="k", description="maximum number of commons to return") @RequestParam(defaultValue = "5") int k,
+            @Parameter(name="radiusMeters", description="only return commons within this distance") @RequestParam(required = false) Double radiusMeters) {
+        return diningCommonsLocator.nearest(lat, lon, k, radiusMeters);
     }
 
     @Operation(summary= "Get a single commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDiningCommons getById(
+    public ResponseEntity<UCSBDiningCommons> getById(
             @Parameter(name="code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
+        UCSBDiningCommons commons = ucsbDiningCommonsCache.findById(code)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
-        return commons;
+        return versioned(commons, commons.getVersion());
     }
 
     @Operation(summary= "Create a new commons")
@@ -74,6 +122,8 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLongitude(longitude);
 
         UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+        ucsbDiningCommonsCache.invalidate(code);
+        diningCommonsLocator.refresh();
 
         return savedCommons;
     }
@@ -87,29 +137,49 @@ public class UCSBDiningCommonsController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
         ucsbDiningCommonsRepository.delete(commons);
+        ucsbDiningCommonsCache.invalidate(code);
+        diningCommonsLocator.refresh();
         return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
     }
 
     @Operation(summary= "Update a single commons")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public UCSBDiningCommons updateCommons(
+    public ResponseEntity<UCSBDiningCommons> updateCommons(
             @Parameter(name="code") @RequestParam String code,
+            @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody @Valid UCSBDiningCommons incoming) {
+        return update(code, ifMatch, commons -> {
+            commons.setName(incoming.getName());
+            commons.setHasSackMeal(incoming.getHasSackMeal());
+            commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
+            commons.setHasDiningCam(incoming.getHasDiningCam());
+            commons.setLatitude(incoming.getLatitude());
+            commons.setLongitude(incoming.getLongitude());
+        });
+    }
 
+    @Operation(summary= "Change some fields of a single commons (JSON Merge Patch)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping(value = "", consumes = { APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<UCSBDiningCommons> patchCommons(
+            @Parameter(name="code") @RequestParam String code,
+            @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody JsonNode patch) {
+        return update(code, ifMatch, commons -> mergePatch(commons, patch, "code"));
+    }
+
+    private ResponseEntity<UCSBDiningCommons> update(String code, String ifMatch, Consumer<UCSBDiningCommons> changes) {
         UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
+        checkIfMatch(ifMatch, UCSBDiningCommons.class, code, commons.getVersion());
 
+        changes.accept(commons);
 
-        commons.setName(incoming.getName());  
-        commons.setHasSackMeal(incoming.getHasSackMeal());
-        commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
-        commons.setHasDiningCam(incoming.getHasDiningCam());
-        commons.setLatitude(incoming.getLatitude());
-        commons.setLongitude(incoming.getLongitude());
-
-        ucsbDiningCommonsRepository.save(commons);
+        UCSBDiningCommons saved = ucsbDiningCommonsRepository.save(commons);
+        ucsbDiningCommonsCache.invalidate(code);
+        diningCommonsLocator.refresh();
 
-        return commons;
+        return versioned(saved, saved.getVersion());
     }
 }
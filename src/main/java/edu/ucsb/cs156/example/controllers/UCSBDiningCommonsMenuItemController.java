@@ -3,23 +3,35 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.MenuItemSuggester;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 import javax.validation.Valid;
 
 @Tag(name = "UCSBDiningCommonsMenuItem")
@@ -31,23 +43,47 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     @Autowired
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+    @Autowired
+    FieldProjectionService fieldProjection;
+
+    @Autowired
+    MenuItemSuggester menuItemSuggester;
+
     @Operation(summary= "List all ucsb dining commons menu items")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItems() {
-        Iterable<UCSBDiningCommonsMenuItem> MenuItem = ucsbDiningCommonsMenuItemRepository.findAll();
-        return MenuItem;
+    public CompletableFuture<ResponseEntity<Iterable<?>>> allUCSBDiningCommonsMenuItems(
+            @Parameter(name="fields", description="comma-separated properties to return, e.g. id,name; whole rows when left out") @RequestParam(required = false) String fields) {
+        List<String> selected = fieldProjection.selectFields(UCSBDiningCommonsMenuItem.class, fields);
+        return conditionalListing(UCSBDiningCommonsMenuItem.class, () -> {
+            if (!selected.isEmpty()) {
+                return ResponseEntity.ok(fieldProjection.findAll(UCSBDiningCommonsMenuItem.class, selected));
+            }
+            Iterable<UCSBDiningCommonsMenuItem> MenuItem = ucsbDiningCommonsMenuItemRepository.findAll();
+            return ResponseEntity.ok(MenuItem);
+        });
+    }
+
+    @Operation(summary= "Suggest menu items whose name, or a word in it, starts with q")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/suggest")
+    public List<UCSBDiningCommonsMenuItem> suggestMenuItems(
+            @Parameter(name="q", description="what has been typed so far; case and accents are ignored") @RequestParam(defaultValue = "") String q,
+            @Parameter(name="commons", description="only items at this dining commons code") @RequestParam(required = false) String commons,
+            @Parameter(name="station", description="only items at this station") @RequestParam(required = false) String station,
+            @Parameter(name="limit") @RequestParam(defaultValue = "10") int limit) {
+        return menuItemSuggester.suggest(q, commons, station, limit);
     }
 
     @Operation(summary= "Get a single UCSB dining commons menu item")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDiningCommonsMenuItem getUCSBDiningCommonsMenuItem(
+    public ResponseEntity<UCSBDiningCommonsMenuItem> getUCSBDiningCommonsMenuItem(
             @Parameter(name="id") @RequestParam Long id) {
         UCSBDiningCommonsMenuItem MenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
 
-        return MenuItem;
+        return versioned(MenuItem, MenuItem.getVersion());
     }
 
     @Operation(summary= "Create a new UCSB dining commons menu item")
@@ -66,6 +102,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
         commonsMenuItem.setStation(station);
 
         UCSBDiningCommonsMenuItem savedCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.save(commonsMenuItem);
+        menuItemSuggester.itemSaved(savedCommonsMenuItem);
 
         return savedCommonsMenuItem;
     }
@@ -79,25 +116,44 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
 
         ucsbDiningCommonsMenuItemRepository.delete(commonsMenuItem);
+        menuItemSuggester.itemRemoved(id);
         return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
     }
 
     @Operation(summary= "Update a single commons menu item")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public UCSBDiningCommonsMenuItem updateCommonsMenuItem(
+    public ResponseEntity<UCSBDiningCommonsMenuItem> updateCommonsMenuItem(
             @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody @Valid UCSBDiningCommonsMenuItem incoming) {
+        return update(id, ifMatch, commonsMenuItem -> {
+            commonsMenuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
+            commonsMenuItem.setName(incoming.getName());
+            commonsMenuItem.setStation(incoming.getStation());
+        });
+    }
+
+    @Operation(summary= "Change some fields of a single commons menu item (JSON Merge Patch)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping(value = "", consumes = { APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<UCSBDiningCommonsMenuItem> patchCommonsMenuItem(
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody JsonNode patch) {
+        return update(id, ifMatch, commonsMenuItem -> mergePatch(commonsMenuItem, patch, "id"));
+    }
 
+    private ResponseEntity<UCSBDiningCommonsMenuItem> update(Long id, String ifMatch, Consumer<UCSBDiningCommonsMenuItem> changes) {
         UCSBDiningCommonsMenuItem commonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
+        checkIfMatch(ifMatch, UCSBDiningCommonsMenuItem.class, id, commonsMenuItem.getVersion());
 
-        commonsMenuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
-        commonsMenuItem.setName(incoming.getName());  
-        commonsMenuItem.setStation(incoming.getStation());
+        changes.accept(commonsMenuItem);
 
-        ucsbDiningCommonsMenuItemRepository.save(commonsMenuItem);
+        UCSBDiningCommonsMenuItem saved = ucsbDiningCommonsMenuItemRepository.save(commonsMenuItem);
+        menuItemSuggester.itemSaved(saved);
 
-        return commonsMenuItem;
+        return versioned(saved, saved.getVersion());
     }
 }
\ No newline at end of file
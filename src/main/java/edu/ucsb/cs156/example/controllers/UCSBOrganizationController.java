@@ -3,25 +3,37 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.UCSBOrganizationCacheService;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 @Tag(name = "UCSBOrganization")
 @RequestMapping("/api/ucsborganization")
 @RestController
@@ -31,23 +43,43 @@ public class UCSBOrganizationController extends ApiController {
     @Autowired
     UCSBOrganizationRepository ucsbOrganizationRepository;
 
+    @Autowired
+    UCSBOrganizationCacheService ucsbOrganizationCache;
+
+    @Autowired
+    FieldProjectionService fieldProjection;
+
     @Operation(summary= "List all ucsb organizations")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBOrganization> allOrganization() {
-        Iterable<UCSBOrganization> organization = ucsbOrganizationRepository.findAll();
-        return organization;
+    public CompletableFuture<ResponseEntity<byte[]>> allOrganization(
+            @Parameter(name="fields", description="comma-separated properties to return, e.g. id,name; whole rows when left out") @RequestParam(required = false) String fields) {
+        List<String> selected = fieldProjection.selectFields(UCSBOrganization.class, fields);
+        return conditionalListing(UCSBOrganization.class, () -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ucsbOrganizationCache.findAllAsJson(selected)));
+    }
+
+    // Same listing for clients that ask for CBOR or Smile, written from the
+    // cached rows; JSON clients get the cached bytes above.
+    @Operation(summary= "List all ucsb organizations in a binary format")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", produces = { MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+    public CompletableFuture<ResponseEntity<Iterable<?>>> allOrganizationBinary(
+            @Parameter(name="fields", description="comma-separated properties to return, e.g. id,name; whole rows when left out") @RequestParam(required = false) String fields) {
+        List<String> selected = fieldProjection.selectFields(UCSBOrganization.class, fields);
+        return conditionalListing(UCSBOrganization.class, () -> ResponseEntity.ok(ucsbOrganizationCache.findAll(selected)));
     }
 
     @Operation(summary= "Get a single organization")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBOrganization getById(
+    public ResponseEntity<UCSBOrganization> getById(
             @Parameter(name="orgCode") @RequestParam String orgCode) {
-        UCSBOrganization organization = ucsbOrganizationRepository.findById(orgCode)
+        UCSBOrganization organization = ucsbOrganizationCache.findById(orgCode)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
 
-        return organization;
+        return versioned(organization, organization.getVersion());
     }
 
     @Operation(summary= "Create a new organization")
@@ -69,6 +101,7 @@ public class UCSBOrganizationController extends ApiController {
        
 
         UCSBOrganization savedOrganization = ucsbOrganizationRepository.save(organization);
+        ucsbOrganizationCache.invalidate(orgCode);
 
         return savedOrganization;
     }
@@ -82,26 +115,44 @@ public class UCSBOrganizationController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
 
         ucsbOrganizationRepository.delete(organization);
+        ucsbOrganizationCache.invalidate(orgCode);
         return genericMessage("UCSBOrganization with id %s deleted".formatted(orgCode));
     }
 
     @Operation(summary= "Update a single organization")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public UCSBOrganization updateOrganization(
+    public ResponseEntity<UCSBOrganization> updateOrganization(
             @Parameter(name="orgCode") @RequestParam String orgCode,
+            @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody @Valid UCSBOrganization incoming) {
+        return update(orgCode, ifMatch, organization -> {
+            organization.setOrgTranslationShort(incoming.getOrgTranslationShort());
+            organization.setOrgTranslation(incoming.getOrgTranslation());
+            organization.setInactive(incoming.getInactive());
+        });
+    }
 
+    @Operation(summary= "Change some fields of a single organization (JSON Merge Patch)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping(value = "", consumes = { APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<UCSBOrganization> patchOrganization(
+            @Parameter(name="orgCode") @RequestParam String orgCode,
+            @Parameter(name="If-Match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody JsonNode patch) {
+        return update(orgCode, ifMatch, organization -> mergePatch(organization, patch, "orgCode"));
+    }
+
+    private ResponseEntity<UCSBOrganization> update(String orgCode, String ifMatch, Consumer<UCSBOrganization> changes) {
         UCSBOrganization organization = ucsbOrganizationRepository.findById(orgCode)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
+        checkIfMatch(ifMatch, UCSBOrganization.class, orgCode, organization.getVersion());
 
+        changes.accept(organization);
 
-        organization.setOrgTranslationShort(incoming.getOrgTranslationShort());
-        organization.setOrgTranslation(incoming.getOrgTranslation());
-        organization.setInactive(incoming.getInactive());
-
-        ucsbOrganizationRepository.save(organization);
+        UCSBOrganization saved = ucsbOrganizationRepository.save(organization);
+        ucsbOrganizationCache.invalidate(orgCode);
 
-        return organization;
+        return versioned(saved, saved.getVersion());
     }
 }
\ No newline at end of file
@@ -1,17 +1,19 @@
 package edu.ucsb.cs156.example.controllers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CacheStatistics;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UserCacheService;
+import edu.ucsb.cs156.example.services.UserExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
@@ -24,15 +26,32 @@ public class UsersController extends ApiController {
     UserRepository userRepository;
 
     @Autowired
-    ObjectMapper mapper;
+    UserExportService userExportService;
+
+    @Autowired
+    UserCacheService userCacheService;
 
     @Operation(summary= "Get a list of all users")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @GetMapping("")
-    public ResponseEntity<String> users()
-            throws JsonProcessingException {
-        Iterable<User> users = userRepository.findAll();
-        String body = mapper.writeValueAsString(users);
-        return ResponseEntity.ok().body(body);
+    public Iterable<User> users() {
+        return userRepository.findAll();
+    }
+
+    @Operation(summary= "Stream all users as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping(value = "/stream", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> usersStream() {
+        StreamingResponseBody body = userExportService::writeNdjson;
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+            .body(body);
+    }
+
+    @Operation(summary= "Get hit/miss statistics for the current user cache")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/cache")
+    public CacheStatistics userCacheStatistics() {
+        return userCacheService.getStatistics();
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.entities;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * Running totals of the reviews for one menu item, kept up to date as
+ * reviews are created, edited and deleted so averages never need a scan.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "MenuItemRatingStats")
+public class MenuItemRatingStats {
+  @Id
+  private long itemId;
+  private long reviewCount;
+  private long starsTotal;
+  private long oneStar;
+  private long twoStars;
+  private long threeStars;
+  private long fourStars;
+  private long fiveStars;
+
+  public double getAverageStars() {
+    return reviewCount == 0 ? 0.0 : (double) starsTotal / reviewCount;
+  }
+}
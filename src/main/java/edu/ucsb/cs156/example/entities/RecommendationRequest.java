@@ -2,10 +2,20 @@ package edu.ucsb.cs156.example.entities;
 
 import java.time.LocalDateTime;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Column;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,7 +27,17 @@ import lombok.Builder;
 @NoArgsConstructor
 @Builder
 @Entity(name = "RecommendationRequest")
-
+@EntityListeners(TableVersionListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recommendationrequest")
+@DynamicUpdate
+// Serve the /paged filters: open requests for one professor or requester,
+// or all open requests, in dateNeeded order.
+@Table(indexes = {
+    @Index(name = "recommendation_request_professor_done_needed_idx", columnList = "professorEmail, done, dateNeeded, id"),
+    @Index(name = "recommendation_request_requester_done_needed_idx", columnList = "requesterEmail, done, dateNeeded, id"),
+    @Index(name = "recommendation_request_done_needed_idx", columnList = "done, dateNeeded, id")
+})
 public class RecommendationRequest {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,4 +49,8 @@ public class RecommendationRequest {
     private LocalDateTime dateRequested;
     private LocalDateTime dateNeeded;
     private boolean done;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
 }
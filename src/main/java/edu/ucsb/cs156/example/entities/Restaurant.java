@@ -1,9 +1,17 @@
 package edu.ucsb.cs156.example.entities;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Column;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,6 +23,10 @@ import lombok.Builder;
 @NoArgsConstructor
 @Builder
 @Entity(name = "restaurant")
+@EntityListeners(TableVersionListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "restaurant")
+@DynamicUpdate
 public class Restaurant {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,4 +34,8 @@ public class Restaurant {
 
   private String name;
   private String description;
-}
\ No newline at end of file
+
+  @Version
+  @Column(nullable = false, columnDefinition = "bigint default 0")
+  private long version;
+}
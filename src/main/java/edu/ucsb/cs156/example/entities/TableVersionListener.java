@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.TableVersionService;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// Hibernate obtains this listener from the Spring context, so every write
+// to a listed table moves that table's ETag on.
+public class TableVersionListener {
+
+  @Autowired
+  TableVersionService tableVersionService;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void entityChanged(Object entity) {
+    tableVersionService.changed(Hibernate.getClass(entity));
+  }
+}
@@ -2,10 +2,20 @@ package edu.ucsb.cs156.example.entities;
 
 import java.time.LocalDateTime;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Column;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,6 +27,14 @@ import lombok.Builder;
 @NoArgsConstructor
 @Builder
 @Entity(name = "ucsbdates")
+@EntityListeners(TableVersionListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ucsbdates")
+@DynamicUpdate
+@Table(indexes = {
+  @Index(name = "ucsbdates_local_date_time_idx", columnList = "localDateTime"),
+  @Index(name = "ucsbdates_quarter_local_date_time_idx", columnList = "quarterYYYYQ, localDateTime")
+})
 public class UCSBDate {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,4 +43,8 @@ public class UCSBDate {
   private String quarterYYYYQ;
   private String name;  
   private LocalDateTime localDateTime;
-}
\ No newline at end of file
+
+  @Version
+  @Column(nullable = false, columnDefinition = "bigint default 0")
+  private long version;
+}
@@ -1,7 +1,15 @@
 package edu.ucsb.cs156.example.entities;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Id;
+import javax.persistence.Column;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,6 +21,10 @@ import lombok.Builder;
 @NoArgsConstructor
 @Builder
 @Entity(name = "ucsbdiningcommons")
+@EntityListeners(TableVersionListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ucsbdiningcommons")
+@DynamicUpdate
 public class UCSBDiningCommons {
   @Id
   private String code;
@@ -22,4 +34,8 @@ public class UCSBDiningCommons {
   private boolean hasDiningCam;
   private Double latitude;
   private Double longitude;
-}
\ No newline at end of file
+
+  @Version
+  @Column(nullable = false, columnDefinition = "bigint default 0")
+  private long version;
+}
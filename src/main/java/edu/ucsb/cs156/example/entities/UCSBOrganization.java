@@ -2,10 +2,18 @@ package edu.ucsb.cs156.example.entities;
 
 import java.time.LocalDateTime;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.Column;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,10 +25,18 @@ import lombok.Builder;
 @NoArgsConstructor
 @Builder
 @Entity(name = "ucsborgs")
+@EntityListeners(TableVersionListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ucsborgs")
+@DynamicUpdate
 public class UCSBOrganization {
   @Id
   private String orgCode;
   private String orgTranslationShort;
   private String orgTranslation;  
   private boolean inactive;
-}
\ No newline at end of file
+
+  @Version
+  @Column(nullable = false, columnDefinition = "bigint default 0")
+  private long version;
+}
@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.models.UserChangedEvent;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+// Hibernate obtains this listener from the Spring context, so it can publish
+// events that let the user and admin caches drop stale entries.
+public class UserEntityListener {
+
+  @Autowired
+  ApplicationEventPublisher publisher;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void userChanged(User user) {
+    publisher.publishEvent(UserChangedEvent.builder()
+        .email(user.getEmail())
+        .googleSub(user.getGoogleSub())
+        .build());
+  }
+}
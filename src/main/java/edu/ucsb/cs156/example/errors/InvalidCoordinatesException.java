@@ -0,0 +1,7 @@
+package edu.ucsb.cs156.example.errors;
+
+public class InvalidCoordinatesException extends RuntimeException {
+  public InvalidCoordinatesException(double latitude, double longitude) {
+    super("Invalid coordinates lat=%s lon=%s".formatted(latitude, longitude));
+  }
+}
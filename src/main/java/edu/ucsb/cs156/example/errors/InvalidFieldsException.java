@@ -0,0 +1,9 @@
+package edu.ucsb.cs156.example.errors;
+
+import java.util.Collection;
+
+public class InvalidFieldsException extends RuntimeException {
+  public InvalidFieldsException(String field, Collection<String> allowed) {
+    super("Invalid field %s; expected a comma-separated list of %s".formatted(field, allowed));
+  }
+}
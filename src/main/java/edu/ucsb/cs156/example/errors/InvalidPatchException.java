@@ -0,0 +1,7 @@
+package edu.ucsb.cs156.example.errors;
+
+public class InvalidPatchException extends RuntimeException {
+  public InvalidPatchException(String message) {
+    super("Invalid merge patch: %s".formatted(message));
+  }
+}
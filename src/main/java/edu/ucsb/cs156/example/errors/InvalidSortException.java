@@ -0,0 +1,9 @@
+package edu.ucsb.cs156.example.errors;
+
+import java.util.List;
+
+public class InvalidSortException extends RuntimeException {
+  public InvalidSortException(String sort, List<String> allowed) {
+    super("Invalid sort %s; expected one of %s, optionally prefixed with -".formatted(sort, allowed));
+  }
+}
@@ -0,0 +1,8 @@
+package edu.ucsb.cs156.example.errors;
+
+public class PreconditionFailedException extends RuntimeException {
+  public PreconditionFailedException(Class<?> entityType, Object id, String ifMatch) {
+    super("%s with id %s does not match If-Match %s"
+      .formatted(entityType.getSimpleName(), id.toString(), ifMatch));
+  }
+}
@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CacheStatistics {
+  private long size;
+  private long hitCount;
+  private long missCount;
+  private double hitRate;
+  private long evictionCount;
+
+  public static CacheStatistics of(Cache<?, ?> cache) {
+    CacheStats stats = cache.stats();
+    return CacheStatistics.builder()
+      .size(cache.estimatedSize())
+      .hitCount(stats.hitCount())
+      .missCount(stats.missCount())
+      .hitRate(stats.hitRate())
+      .evictionCount(stats.evictionCount())
+      .build();
+  }
+}
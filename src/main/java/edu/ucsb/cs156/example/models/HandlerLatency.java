@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class HandlerLatency {
+  private long count;
+  private double errors;
+  private double inFlight;
+  private double meanMs;
+  private double p50Ms;
+  private double p90Ms;
+  private double p99Ms;
+  private double maxMs;
+}
@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class MenuItemReviewSearchHit {
+  private MenuItemReview review;
+  private float score;
+}
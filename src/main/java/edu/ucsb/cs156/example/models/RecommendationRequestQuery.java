@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.errors.InvalidSortException;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * One page of a filtered, sorted listing of recommendation requests. Filters
+ * left null match everything. Pages are keyset-paginated: afterKey and
+ * afterId are the sort key and id of the last row of the previous page, and
+ * ties on the sort key are broken by id.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RecommendationRequestQuery {
+  private Boolean done;
+  private String professorEmail;
+  private String requesterEmail;
+  private LocalDateTime dateNeededFrom;
+  private LocalDateTime dateNeededTo;
+
+  @Builder.Default
+  private SortKey sortBy = SortKey.DATE_NEEDED;
+  private boolean descending;
+
+  private LocalDateTime afterKey;
+  private Long afterId;
+
+  private int limit;
+
+  public enum SortKey {
+    ID("id", request -> null),
+    DATE_NEEDED("dateNeeded", RecommendationRequest::getDateNeeded),
+    DATE_REQUESTED("dateRequested", RecommendationRequest::getDateRequested);
+
+    private final String property;
+    private final Function<RecommendationRequest, LocalDateTime> key;
+
+    SortKey(String property, Function<RecommendationRequest, LocalDateTime> key) {
+      this.property = property;
+      this.key = key;
+    }
+
+    public String getProperty() {
+      return property;
+    }
+
+    // null when sorting by id alone
+    public LocalDateTime keyOf(RecommendationRequest request) {
+      return key.apply(request);
+    }
+
+    public static SortKey fromProperty(String property) {
+      return Stream.of(values())
+          .filter(sortKey -> sortKey.property.equals(property))
+          .findFirst()
+          .orElseThrow(() -> new InvalidSortException(property,
+              Stream.of(values()).map(SortKey::getProperty).toList()));
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+
+@Repository
+public interface MenuItemRatingStatsRepository extends CrudRepository<MenuItemRatingStats, Long>,
+    MenuItemRatingStatsRepositoryCustom {
+  // Applied as one UPDATE so concurrent reviews of the same item can't lose increments.
+  @Modifying
+  @Query(ADJUST)
+  int adjust(@Param("itemId") long itemId, @Param("count") long count, @Param("stars") long stars,
+      @Param("one") long one, @Param("two") long two, @Param("three") long three,
+      @Param("four") long four, @Param("five") long five);
+
+  @Modifying
+  @Query("DELETE FROM MenuItemRatingStats s")
+  int deleteAllInBulk();
+}
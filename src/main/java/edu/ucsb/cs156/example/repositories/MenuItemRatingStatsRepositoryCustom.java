@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.repositories;
+
+public interface MenuItemRatingStatsRepositoryCustom {
+  String ADJUST = """
+      UPDATE MenuItemRatingStats s SET
+        s.reviewCount = s.reviewCount + :count,
+        s.starsTotal = s.starsTotal + :stars,
+        s.oneStar = s.oneStar + :one,
+        s.twoStars = s.twoStars + :two,
+        s.threeStars = s.threeStars + :three,
+        s.fourStars = s.fourStars + :four,
+        s.fiveStars = s.fiveStars + :five
+      WHERE s.itemId = :itemId
+      """;
+
+  void addOrCreate(long itemId, long count, long stars, long one, long two, long three, long four, long five);
+}
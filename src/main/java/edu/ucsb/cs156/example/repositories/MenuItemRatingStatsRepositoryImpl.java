@@ -0,0 +1,134 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Adds to an item's totals, creating its row if it has none, in a single
+ * statement. An UPDATE followed by an INSERT when nothing was updated would
+ * let two first reviews of the same item both try the INSERT; with one
+ * statement the database settles it. JPQL has no upsert, so the SQL is
+ * chosen by dialect, once at startup; on databases other than H2 and
+ * PostgreSQL it falls back to exactly that UPDATE and INSERT.
+ */
+@Slf4j
+public class MenuItemRatingStatsRepositoryImpl implements MenuItemRatingStatsRepositoryCustom {
+
+  private static final String POSTGRESQL_UPSERT = """
+      INSERT INTO menu_item_rating_stats AS s
+        (item_id, review_count, stars_total, one_star, two_stars, three_stars, four_stars, five_stars)
+      VALUES (:itemId, :count, :stars, :one, :two, :three, :four, :five)
+      ON CONFLICT (item_id) DO UPDATE SET
+        review_count = s.review_count + EXCLUDED.review_count,
+        stars_total = s.stars_total + EXCLUDED.stars_total,
+        one_star = s.one_star + EXCLUDED.one_star,
+        two_stars = s.two_stars + EXCLUDED.two_stars,
+        three_stars = s.three_stars + EXCLUDED.three_stars,
+        four_stars = s.four_stars + EXCLUDED.four_stars,
+        five_stars = s.five_stars + EXCLUDED.five_stars
+      """;
+
+  private static final String H2_MERGE = """
+      MERGE INTO menu_item_rating_stats s
+      USING (SELECT CAST(:itemId AS BIGINT) AS item_id) v ON s.item_id = v.item_id
+      WHEN MATCHED THEN UPDATE SET
+        review_count = s.review_count + :count,
+        stars_total = s.stars_total + :stars,
+        one_star = s.one_star + :one,
+        two_stars = s.two_stars + :two,
+        three_stars = s.three_stars + :three,
+        four_stars = s.four_stars + :four,
+        five_stars = s.five_stars + :five
+      WHEN NOT MATCHED THEN INSERT
+        (item_id, review_count, stars_total, one_star, two_stars, three_stars, four_stars, five_stars)
+      VALUES (:itemId, :count, :stars, :one, :two, :three, :four, :five)
+      """;
+
+  @Autowired
+  EntityManager entityManager;
+
+  // chosen once; null when the database has no upsert this class knows
+  private String upsert;
+
+  @PostConstruct
+  void chooseUpsert() {
+    Dialect dialect = entityManager.getEntityManagerFactory()
+        .unwrap(SessionFactoryImplementor.class)
+        .getJdbcServices()
+        .getDialect();
+    upsert = upsertFor(dialect);
+    if (upsert == null) {
+      log.warn("no rating stats upsert for {}; the first reviews of an item can race to create its row", dialect);
+    }
+  }
+
+  @Override
+  public void addOrCreate(long itemId, long count, long stars, long one, long two, long three, long four, long five) {
+    if (upsert == null) {
+      updateOrInsert(itemId, count, stars, one, two, three, four, five);
+      return;
+    }
+    entityManager.createNativeQuery(upsert)
+        // only this table changed; without this Hibernate would clear every
+        // second-level cache region after a native update
+        .unwrap(NativeQuery.class)
+        .addSynchronizedEntityClass(MenuItemRatingStats.class)
+        .setParameter("itemId", itemId)
+        .setParameter("count", count)
+        .setParameter("stars", stars)
+        .setParameter("one", one)
+        .setParameter("two", two)
+        .setParameter("three", three)
+        .setParameter("four", four)
+        .setParameter("five", five)
+        .executeUpdate();
+  }
+
+  // Portable, but not atomic: two first reviews of an item can both find
+  // nothing to update, and the second insert then fails on the key.
+  private void updateOrInsert(long itemId, long count, long stars, long one, long two, long three, long four, long five) {
+    int updated = entityManager.createQuery(ADJUST)
+        .setParameter("itemId", itemId)
+        .setParameter("count", count)
+        .setParameter("stars", stars)
+        .setParameter("one", one)
+        .setParameter("two", two)
+        .setParameter("three", three)
+        .setParameter("four", four)
+        .setParameter("five", five)
+        .executeUpdate();
+    if (updated == 0) {
+      entityManager.persist(MenuItemRatingStats.builder()
+          .itemId(itemId)
+          .reviewCount(count)
+          .starsTotal(stars)
+          .oneStar(one)
+          .twoStars(two)
+          .threeStars(three)
+          .fourStars(four)
+          .fiveStars(five)
+          .build());
+    }
+  }
+
+  static String upsertFor(Dialect dialect) {
+    if (dialect instanceof H2Dialect) {
+      return H2_MERGE;
+    }
+    if (dialect instanceof PostgreSQL81Dialect) {
+      return POSTGRESQL_UPSERT;
+    }
+    return null;
+  }
+}
@@ -2,11 +2,29 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 
 @Repository
 public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {
+  // Keyset pagination: "WHERE id > ? ORDER BY id LIMIT ?" is a bounded range
+  // scan on the primary key index, no matter how deep into the table we are.
+  List<MenuItemReview> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
 
-}
\ No newline at end of file
+  // One row per item: itemId, count, sum of stars, then counts of 1..5 stars.
+  @Query("""
+      SELECT r.itemId, COUNT(r), SUM(r.stars),
+        SUM(CASE WHEN r.stars = 1 THEN 1 ELSE 0 END),
+        SUM(CASE WHEN r.stars = 2 THEN 1 ELSE 0 END),
+        SUM(CASE WHEN r.stars = 3 THEN 1 ELSE 0 END),
+        SUM(CASE WHEN r.stars = 4 THEN 1 ELSE 0 END),
+        SUM(CASE WHEN r.stars = 5 THEN 1 ELSE 0 END)
+      FROM MenuItemReview r GROUP BY r.itemId
+      """)
+  List<Object[]> summarizeByItemId();
+}
@@ -0,0 +1,10 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.RecommendationRequestQuery;
+
+import java.util.List;
+
+public interface RecommendationRequestRepositoryCustom {
+  List<RecommendationRequest> findPage(RecommendationRequestQuery query);
+}
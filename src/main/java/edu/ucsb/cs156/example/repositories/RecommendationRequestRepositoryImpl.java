@@ -0,0 +1,91 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.RecommendationRequestQuery;
+import edu.ucsb.cs156.example.models.RecommendationRequestQuery.SortKey;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Builds the query for a RecommendationRequestQuery: only the filters that
+ * are set become part of the WHERE clause, so each combination can use the
+ * matching index on RecommendationRequest. No count query is run.
+ */
+public class RecommendationRequestRepositoryImpl implements RecommendationRequestRepositoryCustom {
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Override
+  public List<RecommendationRequest> findPage(RecommendationRequestQuery query) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<RecommendationRequest> criteria = cb.createQuery(RecommendationRequest.class);
+    Root<RecommendationRequest> request = criteria.from(RecommendationRequest.class);
+    Path<Long> id = request.get("id");
+    List<Predicate> where = new ArrayList<>();
+
+    if (query.getDone() != null) {
+      where.add(cb.equal(request.get("done"), query.getDone()));
+    }
+    if (query.getProfessorEmail() != null) {
+      where.add(cb.equal(request.get("professorEmail"), query.getProfessorEmail()));
+    }
+    if (query.getRequesterEmail() != null) {
+      where.add(cb.equal(request.get("requesterEmail"), query.getRequesterEmail()));
+    }
+    Path<LocalDateTime> dateNeeded = request.get("dateNeeded");
+    if (query.getDateNeededFrom() != null) {
+      where.add(cb.greaterThanOrEqualTo(dateNeeded, query.getDateNeededFrom()));
+    }
+    if (query.getDateNeededTo() != null) {
+      where.add(cb.lessThanOrEqualTo(dateNeeded, query.getDateNeededTo()));
+    }
+
+    boolean descending = query.getDescending();
+    if (query.getSortBy() == SortKey.ID) {
+      if (query.getAfterId() != null) {
+        where.add(descending ? cb.lessThan(id, query.getAfterId()) : cb.greaterThan(id, query.getAfterId()));
+      }
+      criteria.orderBy(descending ? cb.desc(id) : cb.asc(id));
+    } else {
+      Path<LocalDateTime> key = request.get(query.getSortBy().getProperty());
+      // a row without the sort key has no place in the keyset order
+      where.add(cb.isNotNull(key));
+      if (query.getAfterId() != null) {
+        where.add(after(cb, key, id, query.getAfterKey(), query.getAfterId(), descending));
+      }
+      criteria.orderBy(descending ? cb.desc(key) : cb.asc(key), descending ? cb.desc(id) : cb.asc(id));
+    }
+
+    criteria.where(where.toArray(Predicate[]::new));
+    return entityManager.createQuery(criteria)
+        .setMaxResults(query.getLimit())
+        .getResultList();
+  }
+
+  // (key, id) > (afterKey, afterId), or < when descending. The redundant
+  // key >= afterKey lets the database start its index scan at afterKey
+  // instead of filtering everything before it.
+  private Predicate after(CriteriaBuilder cb, Path<LocalDateTime> key, Path<Long> id,
+      LocalDateTime afterKey, long afterId, boolean descending) {
+    if (descending) {
+      return cb.and(
+          cb.lessThanOrEqualTo(key, afterKey),
+          cb.or(cb.lessThan(key, afterKey), cb.lessThan(id, afterId)));
+    }
+    return cb.and(
+        cb.greaterThanOrEqualTo(key, afterKey),
+        cb.or(cb.greaterThan(key, afterKey), cb.greaterThan(id, afterId)));
+  }
+}
@@ -2,11 +2,27 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 
 @Repository
 public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
+
+  // Both are served by the indexes declared on UCSBDate.
+  Page<UCSBDate> findAllByLocalDateTimeBetween(LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+  // Quarter listings are read far more often than dates change.
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  Page<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ, Pageable pageable);
 }
\ No newline at end of file
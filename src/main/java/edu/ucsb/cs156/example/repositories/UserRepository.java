@@ -1,12 +1,27 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.User;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
   Optional<User> findByEmail(String email);
+
+  // Must be consumed (and closed) inside a transaction; rows are pulled from
+  // the JDBC cursor in batches of the fetch size rather than all at once.
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HINT_READONLY, value = "true")
+  })
+  Stream<User> streamAllBy();
 }
@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CacheStatistics;
+import edu.ucsb.cs156.example.models.UserChangedEvent;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decides whether an email belongs to an admin: either it is listed in
+ * app.admin.emails, or the matching user row has admin set. The database
+ * answer is cached so that a burst of logins does not become a burst of
+ * queries; entries are dropped whenever the user row changes.
+ */
+@Slf4j
+@Service("adminLookup")
+public class AdminLookupService {
+
+  private final Set<String> adminEmails;
+  private final UserRepository userRepository;
+  private final Cache<String, Boolean> adminFlags;
+
+  public AdminLookupService(
+      @Value("${app.admin.emails}") List<String> adminEmails,
+      UserRepository userRepository,
+      @Value("${app.admin.cache.maximumSize:10000}") long maximumSize,
+      @Value("${app.admin.cache.expireAfterWriteSeconds:300}") long expireAfterWriteSeconds) {
+    this.adminEmails = Collections.unmodifiableSet(new HashSet<>(adminEmails));
+    this.userRepository = userRepository;
+    this.adminFlags = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+  }
+
+  public boolean isAdminEmail(String email) {
+    return adminEmails.contains(email);
+  }
+
+  public boolean isAdmin(String email) {
+    if (email == null) {
+      return false;
+    }
+    if (isAdminEmail(email)) {
+      return true;
+    }
+    return adminFlags.get(email,
+        e -> userRepository.findByEmail(e).map(User::getAdmin).orElse(false));
+  }
+
+  public void invalidate(String email) {
+    adminFlags.invalidate(email);
+  }
+
+  @EventListener
+  public void onUserChanged(UserChangedEvent event) {
+    log.debug("user changed, dropping cached admin flag for {}", event.getEmail());
+    invalidate(event.getEmail());
+  }
+
+  public CacheStatistics getStatistics() {
+    return CacheStatistics.of(adminFlags);
+  }
+}
@@ -5,13 +5,10 @@ import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -30,8 +27,11 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   @Autowired
   GrantedAuthoritiesService grantedAuthoritiesService;
 
-  @Value("${app.admin.emails}")
-  final private List<String> adminEmails = new ArrayList<String>();
+  @Autowired
+  UserCacheService userCacheService;
+
+  @Autowired
+  AdminLookupService adminLookupService;
 
   public CurrentUser getCurrentUser() {
     CurrentUser cu = CurrentUser.builder()
@@ -45,6 +45,11 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   
   public User getOAuth2AuthenticatedUser(SecurityContext securityContext, Authentication authentication) {
     OAuth2User oAuthUser = ((OAuth2AuthenticationToken) authentication).getPrincipal();
+    String googleSub = oAuthUser.getAttribute("sub");
+    return userCacheService.get(googleSub, sub -> loadOrCreateUser(oAuthUser));
+  }
+
+  private User loadOrCreateUser(OAuth2User oAuthUser) {
     String email = oAuthUser.getAttribute("email");
     String googleSub = oAuthUser.getAttribute("sub");
     String pictureUrl = oAuthUser.getAttribute("picture");
@@ -61,7 +66,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     Optional<User> ou = userRepository.findByEmail(email);
     if (ou.isPresent()) {
       User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
+      if (adminLookupService.isAdminEmail(email) && !u.getAdmin()) {
         u.setAdmin(true);
         userRepository.save(u);
       }
@@ -78,7 +83,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
         .emailVerified(emailVerified)
         .locale(locale)
         .hostedDomain(hostedDomain)
-        .admin(adminEmails.contains(email))
+        .admin(adminLookupService.isAdminEmail(email))
         .build();
     userRepository.save(u);
     return u;
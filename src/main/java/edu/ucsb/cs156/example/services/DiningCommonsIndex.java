@@ -0,0 +1,154 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable k-d tree over dining commons locations. Each location is stored
+ * as a point on the unit sphere, so straight-line (chord) distance orders
+ * results exactly like great-circle distance, with no special cases at the
+ * poles or the antimeridian.
+ *
+ * The tree is implicit: the median of every range [from, to) is its root,
+ * split on axis depth % 3, with the halves on either side as its subtrees.
+ */
+final class DiningCommonsIndex {
+
+  static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+  private final Entry[] entries;
+
+  private record Entry(UCSBDiningCommons commons, double[] point) {
+  }
+
+  private record Candidate(Entry entry, double distanceSquared) {
+  }
+
+  private DiningCommonsIndex(Entry[] entries) {
+    this.entries = entries;
+    build(0, entries.length, 0);
+  }
+
+  static DiningCommonsIndex of(Iterable<UCSBDiningCommons> all) {
+    List<Entry> located = new ArrayList<>();
+    for (UCSBDiningCommons c : all) {
+      if (c.getLatitude() != null && c.getLongitude() != null) {
+        located.add(new Entry(c, toPoint(c.getLatitude(), c.getLongitude())));
+      }
+    }
+    return new DiningCommonsIndex(located.toArray(new Entry[0]));
+  }
+
+  int size() {
+    return entries.length;
+  }
+
+  /**
+   * Up to k commons closest to (latitude, longitude), nearest first,
+   * limited to those within radiusMeters when it is not null.
+   */
+  List<NearbyDiningCommons> nearest(double latitude, double longitude, int k, Double radiusMeters) {
+    double bound = radiusMeters == null ? Double.POSITIVE_INFINITY : chordSquared(radiusMeters);
+    Search search = new Search(toPoint(latitude, longitude), Math.max(1, k), bound);
+    search.visit(0, entries.length, 0);
+
+    List<Candidate> found = new ArrayList<>(search.best);
+    found.sort(Comparator.comparingDouble(Candidate::distanceSquared));
+    List<NearbyDiningCommons> result = new ArrayList<>(found.size());
+    for (Candidate c : found) {
+      result.add(NearbyDiningCommons.builder()
+          .commons(c.entry().commons())
+          .distanceMeters(toMeters(c.distanceSquared()))
+          .build());
+    }
+    return result;
+  }
+
+  private void build(int from, int to, int depth) {
+    if (to - from <= 1) {
+      return;
+    }
+    int axis = depth % 3;
+    Arrays.sort(entries, from, to, Comparator.comparingDouble(e -> e.point()[axis]));
+    int median = (from + to) >>> 1;
+    build(from, median, depth + 1);
+    build(median + 1, to, depth + 1);
+  }
+
+  private final class Search {
+    final double[] target;
+    final int k;
+    final double bound;
+    final PriorityQueue<Candidate> best;
+
+    Search(double[] target, int k, double bound) {
+      this.target = target;
+      this.k = k;
+      this.bound = bound;
+      this.best = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distanceSquared).reversed());
+    }
+
+    double worst() {
+      return best.size() < k ? bound : Math.min(bound, best.peek().distanceSquared());
+    }
+
+    void visit(int from, int to, int depth) {
+      if (from >= to) {
+        return;
+      }
+      int median = (from + to) >>> 1;
+      Entry entry = entries[median];
+      double d = distanceSquared(entry.point(), target);
+      if (d <= worst()) {
+        best.offer(new Candidate(entry, d));
+        if (best.size() > k) {
+          best.poll();
+        }
+      }
+
+      double diff = target[depth % 3] - entry.point()[depth % 3];
+      if (diff < 0) {
+        visit(from, median, depth + 1);
+        if (diff * diff <= worst()) {
+          visit(median + 1, to, depth + 1);
+        }
+      } else {
+        visit(median + 1, to, depth + 1);
+        if (diff * diff <= worst()) {
+          visit(from, median, depth + 1);
+        }
+      }
+    }
+  }
+
+  private static double[] toPoint(double latitude, double longitude) {
+    double lat = Math.toRadians(latitude);
+    double lon = Math.toRadians(longitude);
+    double cosLat = Math.cos(lat);
+    return new double[] { cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat) };
+  }
+
+  private static double distanceSquared(double[] a, double[] b) {
+    double dx = a[0] - b[0];
+    double dy = a[1] - b[1];
+    double dz = a[2] - b[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  private static double chordSquared(double meters) {
+    double angle = Math.min(Math.max(meters, 0) / EARTH_RADIUS_METERS, Math.PI);
+    double chord = 2 * Math.sin(angle / 2);
+    return chord * chord;
+  }
+
+  private static double toMeters(double chordSquared) {
+    double halfChord = Math.min(Math.sqrt(chordSquared) / 2, 1.0);
+    return 2 * Math.asin(halfChord) * EARTH_RADIUS_METERS;
+  }
+}
@@ -0,0 +1,59 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.errors.InvalidCoordinatesException;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Answers nearest-commons queries from an in-memory k-d tree instead of
+ * scanning the table per request. The tree is rebuilt from the repository
+ * whenever UCSBDiningCommonsController writes a commons; readers always see
+ * a complete snapshot.
+ */
+@Slf4j
+@Service("diningCommonsLocator")
+public class DiningCommonsLocator {
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  private volatile DiningCommonsIndex index;
+
+  // Not synchronized: refresh() waits on JDBC, and a virtual thread that
+  // blocks while holding a monitor pins its carrier thread.
+  private final ReentrantLock writeLock = new ReentrantLock();
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void refresh() {
+    writeLock.lock();
+    try {
+      DiningCommonsIndex rebuilt = DiningCommonsIndex.of(ucsbDiningCommonsRepository.findAll());
+      index = rebuilt;
+      log.info("indexed {} dining commons locations", rebuilt.size());
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  public List<NearbyDiningCommons> nearest(double latitude, double longitude, int k, Double radiusMeters) {
+    if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+      throw new InvalidCoordinatesException(latitude, longitude);
+    }
+    DiningCommonsIndex current = index;
+    if (current == null) {
+      refresh();
+      current = index;
+    }
+    return current.nearest(latitude, longitude, k, radiusMeters);
+  }
+}
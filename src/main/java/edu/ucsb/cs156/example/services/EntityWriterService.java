@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * ObjectWriters for code that serializes entities itself rather than through
+ * a message converter. Each writer is built once per type, on first use, with
+ * its root serializer already resolved, so a write skips looking the type up
+ * in the mapper's serializer cache. Writers are immutable and thread-safe.
+ */
+@Service("entityWriters")
+public class EntityWriterService {
+
+  @Autowired
+  ObjectMapper mapper;
+
+  private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+  private final Map<Class<?>, ObjectWriter> listWriters = new ConcurrentHashMap<>();
+
+  /** A writer for single rows of the given type. */
+  public ObjectWriter writerFor(Class<?> entityType) {
+    return writers.computeIfAbsent(entityType, mapper::writerFor);
+  }
+
+  /** A writer for List&lt;entityType&gt;, the body of an /all listing. */
+  public ObjectWriter listWriterFor(Class<?> entityType) {
+    return listWriters.computeIfAbsent(entityType,
+        type -> mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, type)));
+  }
+
+  /** A writer for values whose type is only known at runtime, such as sparse fieldset rows. */
+  public ObjectWriter writer() {
+    return mapper.writer();
+  }
+}
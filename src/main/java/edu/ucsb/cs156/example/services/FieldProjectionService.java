@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import edu.ucsb.cs156.example.errors.InvalidFieldsException;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sparse fieldsets for listings: ?fields=id,name selects just those columns
+ * with a tuple query and returns each row as a map from field to value, so
+ * long text columns a table doesn't show are neither read nor serialized.
+ *
+ * Field names are the entity's JSON property names. Rows are not managed
+ * entities and don't go through the second-level cache.
+ */
+@Service("fieldProjection")
+public class FieldProjectionService {
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  ObjectMapper objectMapper;
+
+  // entity type -> JSON property name -> JPA attribute name
+  private final Map<Class<?>, Map<String, String>> attributesByType = new ConcurrentHashMap<>();
+
+  /**
+   * Parses the fields parameter, keeping the order it names them in and
+   * dropping repeats. Returns an empty list, meaning whole entities, when
+   * the parameter is absent or blank.
+   */
+  public List<String> selectFields(Class<?> entityType, String fields) {
+    if (fields == null || fields.isBlank()) {
+      return List.of();
+    }
+    Map<String, String> attributes = attributes(entityType);
+    Set<String> selected = new LinkedHashSet<>();
+    for (String field : fields.split(",")) {
+      String name = field.trim();
+      if (!attributes.containsKey(name)) {
+        throw new InvalidFieldsException(name, attributes.keySet());
+      }
+      selected.add(name);
+    }
+    return List.copyOf(selected);
+  }
+
+  public List<Map<String, Object>> findAll(Class<?> entityType, List<String> fields) {
+    CriteriaQuery<Tuple> criteria = entityManager.getCriteriaBuilder().createTupleQuery();
+    Root<?> root = criteria.from(entityType);
+    select(criteria, root, entityType, fields);
+    return rows(entityManager.createQuery(criteria), fields);
+  }
+
+  /** The first limit rows with an id greater than afterId, in id order. */
+  public List<Map<String, Object>> findPage(Class<?> entityType, List<String> fields, long afterId, int limit) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> criteria = cb.createTupleQuery();
+    Root<?> root = criteria.from(entityType);
+    select(criteria, root, entityType, fields);
+    Path<Long> id = root.get(idAttribute(entityType).getName());
+    criteria.where(cb.greaterThan(id, afterId));
+    criteria.orderBy(cb.asc(id));
+    return rows(entityManager.createQuery(criteria).setMaxResults(limit), fields);
+  }
+
+  private void select(CriteriaQuery<Tuple> criteria, Root<?> root, Class<?> entityType, List<String> fields) {
+    Map<String, String> attributes = attributes(entityType);
+    criteria.multiselect(fields.stream()
+        .<Selection<?>>map(field -> root.get(attributes.get(field)))
+        .toList());
+  }
+
+  private List<Map<String, Object>> rows(TypedQuery<Tuple> query, List<String> fields) {
+    return query.getResultList().stream()
+        .map(tuple -> {
+          Map<String, Object> row = new LinkedHashMap<>();
+          for (int i = 0; i < fields.size(); i++) {
+            row.put(fields.get(i), tuple.get(i));
+          }
+          return row;
+        })
+        .toList();
+  }
+
+  private SingularAttribute<?, ?> idAttribute(Class<?> entityType) {
+    EntityType<?> entity = entityManager.getMetamodel().entity(entityType);
+    return entity.getId(entity.getIdType().getJavaType());
+  }
+
+  // A field is a property Jackson writes that is also a persistent
+  // attribute. The two are matched ignoring case, because a field named Id
+  // is written as id.
+  private Map<String, String> attributes(Class<?> entityType) {
+    return attributesByType.computeIfAbsent(entityType, type -> {
+      EntityType<?> entity = entityManager.getMetamodel().entity(type);
+      BeanDescription bean = objectMapper.getSerializationConfig().introspect(objectMapper.constructType(type));
+      Map<String, String> attributes = new LinkedHashMap<>();
+      for (BeanPropertyDefinition property : bean.findProperties()) {
+        for (SingularAttribute<?, ?> attribute : entity.getSingularAttributes()) {
+          if (attribute.getName().equalsIgnoreCase(property.getName())) {
+            attributes.put(property.getName(), attribute.getName());
+          }
+        }
+      }
+      return Collections.unmodifiableMap(attributes);
+    });
+  }
+}
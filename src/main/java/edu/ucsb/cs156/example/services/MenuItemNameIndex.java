@@ -0,0 +1,253 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable prefix index over menu item names, partitioned by dining commons
+ * and then by station. Each partition holds two sorted arrays: whole names,
+ * and the tail of each name from every later word on ("grilled chicken" is
+ * also filed under "chicken"), so a prefix lookup is a binary search and a
+ * short scan. Matches at the start of a name come before matches on a later
+ * word.
+ *
+ * with() and without() return a new index that shares every partition the
+ * change does not touch.
+ */
+final class MenuItemNameIndex {
+
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern SPACES = Pattern.compile("\\s+");
+
+  private static final Comparator<Entry> ORDER =
+      Comparator.comparing(Entry::key).thenComparingLong(e -> e.item().getId());
+
+  private record Entry(String key, UCSBDiningCommonsMenuItem item) {
+  }
+
+  private record Partition(Entry[] names, Entry[] words) {
+  }
+
+  // commons -> station -> partition
+  private final Map<String, Map<String, Partition>> partitions;
+  private final Map<Long, UCSBDiningCommonsMenuItem> items;
+
+  private MenuItemNameIndex(Map<String, Map<String, Partition>> partitions, Map<Long, UCSBDiningCommonsMenuItem> items) {
+    this.partitions = partitions;
+    this.items = items;
+  }
+
+  static MenuItemNameIndex of(Iterable<UCSBDiningCommonsMenuItem> all) {
+    Map<Long, UCSBDiningCommonsMenuItem> items = new HashMap<>();
+    Map<String, Map<String, List<UCSBDiningCommonsMenuItem>>> grouped = new HashMap<>();
+    for (UCSBDiningCommonsMenuItem item : all) {
+      UCSBDiningCommonsMenuItem copy = copy(item);
+      items.put(copy.getId(), copy);
+      grouped.computeIfAbsent(commonsOf(copy), c -> new HashMap<>())
+          .computeIfAbsent(stationOf(copy), s -> new ArrayList<>())
+          .add(copy);
+    }
+    Map<String, Map<String, Partition>> partitions = new HashMap<>();
+    grouped.forEach((commons, stations) -> {
+      Map<String, Partition> built = new HashMap<>();
+      stations.forEach((station, members) -> built.put(station, partition(members)));
+      partitions.put(commons, built);
+    });
+    return new MenuItemNameIndex(partitions, items);
+  }
+
+  int size() {
+    return items.size();
+  }
+
+  MenuItemNameIndex with(UCSBDiningCommonsMenuItem item) {
+    UCSBDiningCommonsMenuItem copy = copy(item);
+    MenuItemNameIndex index = without(copy.getId());
+    Map<Long, UCSBDiningCommonsMenuItem> items = new HashMap<>(index.items);
+    items.put(copy.getId(), copy);
+    Map<String, Map<String, Partition>> partitions = new HashMap<>(index.partitions);
+    List<UCSBDiningCommonsMenuItem> members = index.members(commonsOf(copy), stationOf(copy));
+    members.add(copy);
+    replace(partitions, commonsOf(copy), stationOf(copy), partition(members));
+    return new MenuItemNameIndex(partitions, items);
+  }
+
+  MenuItemNameIndex without(long id) {
+    UCSBDiningCommonsMenuItem old = items.get(id);
+    if (old == null) {
+      return this;
+    }
+    Map<Long, UCSBDiningCommonsMenuItem> items = new HashMap<>(this.items);
+    items.remove(id);
+    Map<String, Map<String, Partition>> partitions = new HashMap<>(this.partitions);
+    List<UCSBDiningCommonsMenuItem> members = members(commonsOf(old), stationOf(old));
+    members.removeIf(item -> item.getId() == id);
+    replace(partitions, commonsOf(old), stationOf(old), members.isEmpty() ? null : partition(members));
+    return new MenuItemNameIndex(partitions, items);
+  }
+
+  /** Up to limit items whose name, or a word in it, starts with prefix; commons and station may be null for any. */
+  List<UCSBDiningCommonsMenuItem> suggest(String prefix, String commons, String station, int limit) {
+    String key = normalize(prefix);
+    List<Partition> selected = select(commons, station);
+    List<UCSBDiningCommonsMenuItem> result = new ArrayList<>(limit);
+    Set<Long> seen = new HashSet<>();
+
+    List<Entry> names = new ArrayList<>();
+    for (Partition partition : selected) {
+      collect(partition.names(), key, limit, seen, names);
+    }
+    take(names, limit, seen, result);
+
+    if (result.size() < limit) {
+      List<Entry> words = new ArrayList<>();
+      for (Partition partition : selected) {
+        collect(partition.words(), key, limit - result.size(), seen, words);
+      }
+      take(words, limit, seen, result);
+    }
+    return result;
+  }
+
+  private List<Partition> select(String commons, String station) {
+    Collection<Map<String, Partition>> byCommons = commons == null
+        ? partitions.values()
+        : partitions.containsKey(commons) ? List.of(partitions.get(commons)) : List.of();
+    List<Partition> selected = new ArrayList<>();
+    for (Map<String, Partition> stations : byCommons) {
+      if (station == null) {
+        selected.addAll(stations.values());
+      } else if (stations.containsKey(station)) {
+        selected.add(stations.get(station));
+      }
+    }
+    return selected;
+  }
+
+  // Appends up to limit entries starting with key whose items are not in seen.
+  private static void collect(Entry[] entries, String key, int limit, Set<Long> seen, List<Entry> out) {
+    Set<Long> taken = new HashSet<>();
+    for (int i = lowerBound(entries, key); i < entries.length && taken.size() < limit; i++) {
+      Entry entry = entries[i];
+      if (!entry.key().startsWith(key)) {
+        break;
+      }
+      long id = entry.item().getId();
+      if (!seen.contains(id) && taken.add(id)) {
+        out.add(entry);
+      }
+    }
+  }
+
+  private static void take(List<Entry> candidates, int limit, Set<Long> seen, List<UCSBDiningCommonsMenuItem> result) {
+    candidates.sort(ORDER);
+    for (Entry entry : candidates) {
+      if (result.size() == limit) {
+        return;
+      }
+      if (seen.add(entry.item().getId())) {
+        result.add(entry.item());
+      }
+    }
+  }
+
+  private static int lowerBound(Entry[] entries, String key) {
+    int low = 0;
+    int high = entries.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (entries[mid].key().compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private List<UCSBDiningCommonsMenuItem> members(String commons, String station) {
+    Partition partition = partitions.getOrDefault(commons, Map.of()).get(station);
+    List<UCSBDiningCommonsMenuItem> members = new ArrayList<>();
+    if (partition != null) {
+      for (Entry entry : partition.names()) {
+        members.add(entry.item());
+      }
+    }
+    return members;
+  }
+
+  private static void replace(Map<String, Map<String, Partition>> partitions, String commons, String station,
+      Partition partition) {
+    Map<String, Partition> stations = new HashMap<>(partitions.getOrDefault(commons, Map.of()));
+    if (partition == null) {
+      stations.remove(station);
+    } else {
+      stations.put(station, partition);
+    }
+    if (stations.isEmpty()) {
+      partitions.remove(commons);
+    } else {
+      partitions.put(commons, stations);
+    }
+  }
+
+  private static Partition partition(List<UCSBDiningCommonsMenuItem> members) {
+    List<Entry> names = new ArrayList<>(members.size());
+    List<Entry> words = new ArrayList<>();
+    for (UCSBDiningCommonsMenuItem item : members) {
+      String name = normalize(item.getName());
+      names.add(new Entry(name, item));
+      for (int i = 1; i < name.length(); i++) {
+        if (Character.isLetterOrDigit(name.charAt(i)) && !Character.isLetterOrDigit(name.charAt(i - 1))) {
+          words.add(new Entry(name.substring(i), item));
+        }
+      }
+    }
+    Entry[] sortedNames = names.toArray(new Entry[0]);
+    Entry[] sortedWords = words.toArray(new Entry[0]);
+    Arrays.sort(sortedNames, ORDER);
+    Arrays.sort(sortedWords, ORDER);
+    return new Partition(sortedNames, sortedWords);
+  }
+
+  // case- and accent-insensitive, with runs of whitespace collapsed
+  static String normalize(String s) {
+    if (s == null) {
+      return "";
+    }
+    String stripped = MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+    return SPACES.matcher(stripped.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+  }
+
+  private static String commonsOf(UCSBDiningCommonsMenuItem item) {
+    return item.getDiningCommonsCode() == null ? "" : item.getDiningCommonsCode();
+  }
+
+  private static String stationOf(UCSBDiningCommonsMenuItem item) {
+    return item.getStation() == null ? "" : item.getStation();
+  }
+
+  // the index must not see later changes to an entity it was handed; the
+  // version is kept so that a suggestion can be used for If-Match
+  private static UCSBDiningCommonsMenuItem copy(UCSBDiningCommonsMenuItem item) {
+    return UCSBDiningCommonsMenuItem.builder()
+        .Id(item.getId())
+        .diningCommonsCode(item.getDiningCommonsCode())
+        .name(item.getName())
+        .station(item.getStation())
+        .version(item.getVersion())
+        .build();
+  }
+}
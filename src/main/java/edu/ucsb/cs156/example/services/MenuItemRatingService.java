@@ -0,0 +1,170 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingStatsRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps per-item review totals in MenuItemRatingStats. Every review write
+ * becomes a single in-place update of the item's row, or an insert the
+ * first time an item is reviewed, in the same transaction as the write
+ * itself. If the totals are ever in doubt, rebuild() recomputes them from
+ * the reviews table.
+ */
+@Slf4j
+@Service("menuItemRating")
+public class MenuItemRatingService {
+
+  @Autowired
+  MenuItemRatingStatsRepository statsRepository;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  public MenuItemRatingStats getStats(long itemId) {
+    return statsRepository.findById(itemId)
+        .orElseGet(() -> MenuItemRatingStats.builder().itemId(itemId).build());
+  }
+
+  public List<MenuItemRatingStats> getStats(Collection<Long> itemIds) {
+    Map<Long, MenuItemRatingStats> found = new HashMap<>();
+    statsRepository.findAllById(itemIds).forEach(stats -> found.put(stats.getItemId(), stats));
+
+    List<MenuItemRatingStats> result = new ArrayList<>(itemIds.size());
+    for (Long itemId : itemIds) {
+      result.add(found.getOrDefault(itemId, MenuItemRatingStats.builder().itemId(itemId).build()));
+    }
+    return result;
+  }
+
+  /** Saves a new review and counts it, in one transaction. */
+  @Transactional
+  public MenuItemReview addReview(MenuItemReview review) {
+    MenuItemReview saved = reviewRepository.save(review);
+    reviewAdded(saved);
+    return saved;
+  }
+
+  /**
+   * Saves changes to a review that had oldItemId and oldStars when it was
+   * loaded, and moves its count, in one transaction.
+   */
+  @Transactional
+  public MenuItemReview updateReview(long oldItemId, int oldStars, MenuItemReview review) {
+    MenuItemReview saved = reviewRepository.save(review);
+    reviewChanged(oldItemId, oldStars, saved);
+    return saved;
+  }
+
+  /** Deletes a review and uncounts it, in one transaction. */
+  @Transactional
+  public void removeReview(MenuItemReview review) {
+    reviewRepository.delete(review);
+    reviewRemoved(review);
+  }
+
+  @Transactional
+  public void reviewAdded(MenuItemReview review) {
+    apply(review.getItemId(), delta(review.getStars(), 1));
+  }
+
+  @Transactional
+  public void reviewRemoved(MenuItemReview review) {
+    apply(review.getItemId(), delta(review.getStars(), -1));
+  }
+
+  @Transactional
+  public void reviewChanged(long oldItemId, int oldStars, MenuItemReview updated) {
+    if (oldItemId == updated.getItemId() && oldStars == updated.getStars()) {
+      return;
+    }
+    apply(oldItemId, delta(oldStars, -1));
+    apply(updated.getItemId(), delta(updated.getStars(), 1));
+  }
+
+  /** Folds a whole chunk of new reviews into one update per item. */
+  @Transactional
+  public void reviewsAdded(Collection<MenuItemReview> reviews) {
+    Map<Long, long[]> deltas = new LinkedHashMap<>();
+    for (MenuItemReview review : reviews) {
+      long[] d = delta(review.getStars(), 1);
+      deltas.merge(review.getItemId(), d, MenuItemRatingService::sum);
+    }
+    deltas.forEach(this::apply);
+  }
+
+  @Transactional
+  public void rebuild() {
+    List<MenuItemRatingStats> rebuilt = new ArrayList<>();
+    for (Object[] row : reviewRepository.summarizeByItemId()) {
+      rebuilt.add(MenuItemRatingStats.builder()
+          .itemId(((Number) row[0]).longValue())
+          .reviewCount(((Number) row[1]).longValue())
+          .starsTotal(((Number) row[2]).longValue())
+          .oneStar(((Number) row[3]).longValue())
+          .twoStars(((Number) row[4]).longValue())
+          .threeStars(((Number) row[5]).longValue())
+          .fourStars(((Number) row[6]).longValue())
+          .fiveStars(((Number) row[7]).longValue())
+          .build());
+    }
+    statsRepository.deleteAllInBulk();
+    statsRepository.saveAll(rebuilt);
+    log.info("rebuilt rating stats for {} menu items", rebuilt.size());
+  }
+
+  // Reviews written before this table existed are folded in once.
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildIfEmpty() {
+    if (statsRepository.count() == 0 && reviewRepository.count() > 0) {
+      rebuild();
+    }
+  }
+
+  private void apply(long itemId, long[] d) {
+    if (d[0] > 0) {
+      statsRepository.addOrCreate(itemId, d[0], d[1], d[2], d[3], d[4], d[5], d[6]);
+      return;
+    }
+    // A removal only ever adjusts an existing row: an item with no row has
+    // no counted reviews to take away, and a new row would start negative.
+    if (statsRepository.adjust(itemId, d[0], d[1], d[2], d[3], d[4], d[5], d[6]) == 0) {
+      log.warn("no rating stats for menu item {} to remove a review from; rebuild() recounts them", itemId);
+    }
+  }
+
+  // { count, stars, one, two, three, four, five }
+  private static long[] delta(int stars, int sign) {
+    long[] d = new long[7];
+    d[0] = sign;
+    d[1] = (long) stars * sign;
+    if (stars >= 1 && stars <= 5) {
+      d[1 + stars] = sign;
+    }
+    return d;
+  }
+
+  private static long[] sum(long[] a, long[] b) {
+    long[] d = new long[a.length];
+    for (int i = 0; i < a.length; i++) {
+      d[i] = a[i] + b[i];
+    }
+    return d;
+  }
+}
@@ -0,0 +1,228 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.BatchItemResult;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persists large numbers of reviews in chunks. Each chunk is its own
+ * transaction and is written with JDBC batch inserts (see
+ * hibernate.jdbc.batch_size). A chunk that fails is rolled back and tried
+ * again one review at a time, so every review that can't be saved is
+ * reported with its own error, and the rest of the chunk, and the chunks
+ * after it, are still saved.
+ */
+@Slf4j
+@Service("menuItemReviewBatch")
+public class MenuItemReviewBatchService {
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  MenuItemRatingService menuItemRatingService;
+
+  @Autowired
+  MenuItemReviewSearchService menuItemReviewSearch;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Value("${app.menuItemReview.batchChunkSize:1000}")
+  int chunkSize;
+
+  public List<BatchItemResult> createAll(Iterator<MenuItemReview> reviews) {
+    Batch batch = new Batch();
+    reviews.forEachRemaining(batch::add);
+    return batch.finish();
+  }
+
+  /**
+   * Like createAll, for newline-delimited JSON: one review per line, blank
+   * lines ignored. A line that isn't a valid review is reported as a failed
+   * item and the lines after it are still imported. Lines are read as they
+   * arrive, so a large import is never held in memory all at once.
+   */
+  public List<BatchItemResult> createAllFromNdjson(Reader body) throws IOException {
+    ObjectReader reader = mapper.readerFor(MenuItemReview.class)
+        .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+    BufferedReader lines = new BufferedReader(body);
+    Batch batch = new Batch();
+    for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+      if (line.isBlank()) {
+        continue;
+      }
+      try {
+        batch.add(reader.readValue(line));
+      } catch (JsonProcessingException e) {
+        batch.fail(e.getOriginalMessage());
+      }
+    }
+    return batch.finish();
+  }
+
+  private record Item(int index, MenuItemReview review) {
+  }
+
+  private class Batch {
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    private final List<BatchItemResult> results = new ArrayList<>();
+    private final List<Item> chunk = new ArrayList<>(chunkSize);
+    private int nextIndex = 0;
+
+    void add(MenuItemReview review) {
+      chunk.add(new Item(nextIndex++, review));
+      if (chunk.size() == chunkSize) {
+        persistChunk();
+      }
+    }
+
+    void fail(String message) {
+      results.add(failed(nextIndex++, message));
+    }
+
+    List<BatchItemResult> finish() {
+      if (!chunk.isEmpty()) {
+        persistChunk();
+      }
+      results.sort(Comparator.comparingInt(BatchItemResult::getIndex));
+      return results;
+    }
+
+    private void persistChunk() {
+      if (!persist(chunk) && chunk.size() > 1) {
+        log.warn("review batch items {}..{} failed; retrying them one at a time",
+            chunk.get(0).index(), chunk.get(chunk.size() - 1).index());
+        for (Item item : chunk) {
+          persist(List.of(item));
+        }
+      }
+      chunk.clear();
+    }
+
+    private boolean persist(List<Item> items) {
+      List<MenuItemReview> reviews = items.stream().map(Item::review).toList();
+      // ids always come from the sequence, and versions start over, never
+      // from the request (or from an attempt that was rolled back)
+      reviews.forEach(review -> {
+        review.setId(0L);
+        review.setVersion(0L);
+      });
+      try {
+        transactionTemplate.executeWithoutResult(status -> {
+          reviews.forEach(entityManager::persist);
+          menuItemRatingService.reviewsAdded(reviews);
+          entityManager.flush();
+          entityManager.clear();
+        });
+      } catch (RuntimeException e) {
+        if (items.size() == 1) {
+          log.warn("review batch item {} failed: {}", items.get(0).index(), e.getMessage());
+          results.add(failed(items.get(0).index(), e.getMessage()));
+        }
+        return false;
+      }
+      menuItemReviewSearch.reviewsSaved(reviews);
+      for (Item item : items) {
+        results.add(BatchItemResult.builder()
+            .index(item.index())
+            .created(true)
+            .id(item.review().getId())
+            .build());
+      }
+      return true;
+    }
+  }
+
+  private static BatchItemResult failed(int index, String message) {
+    return BatchItemResult.builder()
+        .index(index)
+        .created(false)
+        .message(message)
+        .build();
+  }
+
+  /**
+   * Reviews used to get IDENTITY ids, so on an existing database the new
+   * sequence may start below ids that are already taken. Move it past them.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void alignIdSequence() {
+    Dialect dialect = entityManager.getEntityManagerFactory()
+        .unwrap(SessionFactoryImplementor.class)
+        .getJdbcServices()
+        .getDialect();
+    String currentValueQuery = currentValueQuery(dialect);
+    if (currentValueQuery == null) {
+      log.info("not aligning {}: no current value query for {}", MenuItemReview.ID_SEQUENCE, dialect);
+      return;
+    }
+
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      long maxId = ((Number) entityManager
+          .createQuery("SELECT COALESCE(MAX(r.id), 0) FROM MenuItemReview r")
+          .getSingleResult()).longValue();
+      // the last value handed out, read without nextval so that starting up
+      // doesn't use up a block of ids
+      long currentValue = ((Number) entityManager
+          .createNativeQuery(currentValueQuery)
+          .getSingleResult()).longValue();
+      // the pooled optimizer hands out the block (value - allocationSize, value],
+      // so ids up to currentValue may already be taken and the next block starts above it
+      if (currentValue < maxId) {
+        long restartWith = maxId + MenuItemReview.ID_ALLOCATION_SIZE;
+        log.info("restarting {} at {} (was {})", MenuItemReview.ID_SEQUENCE, restartWith, currentValue);
+        entityManager
+            .createNativeQuery("ALTER SEQUENCE %s RESTART WITH %d".formatted(MenuItemReview.ID_SEQUENCE, restartWith))
+            .executeUpdate();
+      }
+    });
+  }
+
+  /**
+   * A query for the last value the sequence handed out (or, before it has
+   * handed any out, one increment below its start).
+   */
+  static String currentValueQuery(Dialect dialect) {
+    if (dialect instanceof H2Dialect) {
+      return "SELECT CURRENT_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = '%s'"
+          .formatted(MenuItemReview.ID_SEQUENCE.toUpperCase());
+    }
+    if (dialect instanceof PostgreSQL81Dialect) {
+      return "SELECT CASE WHEN is_called THEN last_value ELSE last_value - %d END FROM %s"
+          .formatted(MenuItemReview.ID_ALLOCATION_SIZE, MenuItemReview.ID_SEQUENCE);
+    }
+    return null;
+  }
+}
@@ -0,0 +1,219 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.MenuItemReviewSearchHit;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory Lucene index of review comments, rebuilt from the reviews table
+ * at startup and kept current by the review write paths. Queries use
+ * SimpleQueryParser syntax: terms are ANDed, "quoted phrases" and prefix*
+ * are supported, and results are ranked by BM25. Hits are loaded from the
+ * database, so a review deleted a moment ago never shows up.
+ */
+@Slf4j
+@Service("menuItemReviewSearch")
+public class MenuItemReviewSearchService {
+
+  private static final int REBUILD_CHUNK_SIZE = 1000;
+  // deepest result a page can reach; also bounds the collector's queue
+  static final int MAX_RESULT_WINDOW = 10000;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  private final Analyzer analyzer = new EnglishAnalyzer();
+  private final IndexWriter writer;
+  private final SearcherManager searcherManager;
+  // Searches use the last refreshed searcher, so the index they see only
+  // changes on maybeRefresh(). Single-review writes share this lock and
+  // rebuild() holds it alone, so nothing refreshes between its deleteAll()
+  // and the end of the reload, and searches meanwhile see the old index.
+  // A ReentrantReadWriteLock rather than synchronized, which would pin
+  // virtual threads (see docs/virtual-threads.md).
+  private final ReentrantReadWriteLock writeLock = new ReentrantReadWriteLock();
+
+  public MenuItemReviewSearchService() {
+    try {
+      writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+      searcherManager = new SearcherManager(writer, null);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public Page<MenuItemReviewSearchHit> search(String text, Long itemId, Integer stars, Pageable pageable) {
+    SimpleQueryParser parser = new SimpleQueryParser(analyzer, "comments");
+    parser.setDefaultOperator(BooleanClause.Occur.MUST);
+    BooleanQuery.Builder query = new BooleanQuery.Builder()
+        .add(parser.parse(text), BooleanClause.Occur.MUST);
+    if (itemId != null) {
+      query.add(LongPoint.newExactQuery("itemId", itemId), BooleanClause.Occur.FILTER);
+    }
+    if (stars != null) {
+      query.add(IntPoint.newExactQuery("stars", stars), BooleanClause.Occur.FILTER);
+    }
+
+    List<Long> ids = new ArrayList<>();
+    List<Float> scores = new ArrayList<>();
+    long total;
+    try {
+      IndexSearcher searcher = searcherManager.acquire();
+      try {
+        if (pageable.getOffset() >= MAX_RESULT_WINDOW) {
+          // past the deepest page that can be served: no hits, only the total
+          return new PageImpl<>(List.of(), pageable, searcher.count(query.build()));
+        }
+        TopDocs topDocs = topDocs(searcher, query.build(), pageable);
+        total = topDocs.totalHits.value;
+        ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+        for (int i = (int) pageable.getOffset(); i < scoreDocs.length; i++) {
+          ids.add(Long.parseLong(searcher.doc(scoreDocs[i].doc).get("id")));
+          scores.add(scoreDocs[i].score);
+        }
+      } finally {
+        searcherManager.release(searcher);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    Map<Long, MenuItemReview> reviews = new HashMap<>();
+    reviewRepository.findAllById(ids).forEach(review -> reviews.put(review.getId(), review));
+    List<MenuItemReviewSearchHit> hits = new ArrayList<>(ids.size());
+    for (int i = 0; i < ids.size(); i++) {
+      MenuItemReview review = reviews.get(ids.get(i));
+      if (review != null) {
+        hits.add(MenuItemReviewSearchHit.builder().review(review).score(scores.get(i)).build());
+      }
+    }
+    return new PageImpl<>(hits, pageable, total);
+  }
+
+  private static TopDocs topDocs(IndexSearcher searcher, Query query, Pageable pageable) throws IOException {
+    int numHits = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), MAX_RESULT_WINDOW);
+    // count every match so that the page total is exact
+    TopScoreDocCollector collector = TopScoreDocCollector.create(numHits, Integer.MAX_VALUE);
+    searcher.search(query, collector);
+    return collector.topDocs();
+  }
+
+  public void reviewSaved(MenuItemReview review) {
+    reviewsSaved(List.of(review));
+  }
+
+  public void reviewsSaved(Collection<MenuItemReview> reviews) {
+    writeLock.readLock().lock();
+    try {
+      for (MenuItemReview review : reviews) {
+        writer.updateDocument(idTerm(review.getId()), document(review));
+      }
+      searcherManager.maybeRefresh();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      writeLock.readLock().unlock();
+    }
+  }
+
+  public void reviewRemoved(long id) {
+    writeLock.readLock().lock();
+    try {
+      writer.deleteDocuments(idTerm(id));
+      searcherManager.maybeRefresh();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      writeLock.readLock().unlock();
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    long count = 0;
+    writeLock.writeLock().lock();
+    try {
+      writer.deleteAll();
+      long afterId = 0;
+      List<MenuItemReview> chunk;
+      do {
+        chunk = reviewRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(REBUILD_CHUNK_SIZE));
+        for (MenuItemReview review : chunk) {
+          writer.updateDocument(idTerm(review.getId()), document(review));
+          afterId = review.getId();
+        }
+        count += chunk.size();
+      } while (chunk.size() == REBUILD_CHUNK_SIZE);
+      searcherManager.maybeRefresh();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      writeLock.writeLock().unlock();
+    }
+    log.info("indexed {} menu item reviews for search", count);
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    searcherManager.close();
+    writer.close();
+  }
+
+  private static Term idTerm(long id) {
+    return new Term("id", Long.toString(id));
+  }
+
+  private static Document document(MenuItemReview review) {
+    Document document = new Document();
+    document.add(new StringField("id", Long.toString(review.getId()), Field.Store.YES));
+    document.add(new LongPoint("itemId", review.getItemId()));
+    document.add(new IntPoint("stars", review.getStars()));
+    if (review.getComments() != null) {
+      document.add(new TextField("comments", review.getComments(), Field.Store.NO));
+    }
+    return document;
+  }
+}
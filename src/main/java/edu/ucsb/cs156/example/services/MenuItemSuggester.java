@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Typeahead over menu item names, served from an in-memory MenuItemNameIndex.
+ * The index is loaded from the repository at startup, then kept current by
+ * applying each write from UCSBDiningCommonsMenuItemController without
+ * reloading the table; readers always see a complete snapshot.
+ */
+@Slf4j
+@Service("menuItemSuggester")
+public class MenuItemSuggester {
+
+  public static final int MAX_SUGGESTIONS = 50;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  private volatile MenuItemNameIndex index;
+
+  // Not synchronized: refresh() waits on JDBC, and a virtual thread that
+  // blocks while holding a monitor pins its carrier thread.
+  private final ReentrantLock writeLock = new ReentrantLock();
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void refresh() {
+    writeLock.lock();
+    try {
+      MenuItemNameIndex rebuilt = MenuItemNameIndex.of(ucsbDiningCommonsMenuItemRepository.findAll());
+      index = rebuilt;
+      log.info("indexed {} menu item names", rebuilt.size());
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  public void itemSaved(UCSBDiningCommonsMenuItem item) {
+    writeLock.lock();
+    try {
+      if (index != null) {
+        index = index.with(item);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  public void itemRemoved(long id) {
+    writeLock.lock();
+    try {
+      if (index != null) {
+        index = index.without(id);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  public List<UCSBDiningCommonsMenuItem> suggest(String prefix, String commons, String station, int limit) {
+    MenuItemNameIndex current = index;
+    if (current == null) {
+      refresh();
+      current = index;
+    }
+    return current.suggest(prefix, commons, station, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+  }
+}
@@ -0,0 +1,122 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.ucsb.cs156.example.models.CacheStatistics;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.data.repository.CrudRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-through cache in front of a small reference table keyed by a String
+ * code. Single rows are cached by code (misses included), and the rows for
+ * /all are loaded once and kept until the next write, along with their JSON
+ * body, which is serialized once and served as bytes; each sparse fieldset
+ * (see FieldProjectionService) /all is asked for is cached the same way.
+ * Other formats (see BinaryFormatConfig) are written from the cached rows.
+ *
+ * Controllers must call invalidate() after every write to the table. Every
+ * key includes a generation that invalidate() bumps, so a load that was
+ * already running when the table changed fills a key nobody asks for again,
+ * rather than the one readers use next.
+ */
+@Slf4j
+public abstract class ReferenceDataCache<T> {
+
+  private static final String ALL = "all";
+
+  private final Class<T> entityType;
+  private final CrudRepository<T, String> repository;
+  private final FieldProjectionService fieldProjection;
+  private final EntityWriterService entityWriters;
+  private final Cache<String, Optional<T>> byCode;
+  private final Cache<String, Iterable<?>> allRows;
+  private final Cache<String, byte[]> allJson;
+  private final AtomicLong generation = new AtomicLong();
+
+  protected ReferenceDataCache(Class<T> entityType, CrudRepository<T, String> repository,
+      FieldProjectionService fieldProjection, EntityWriterService entityWriters, long maximumSize, long expireAfterWriteSeconds) {
+    this.entityType = entityType;
+    this.repository = repository;
+    this.fieldProjection = fieldProjection;
+    this.entityWriters = entityWriters;
+    this.byCode = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+    this.allRows = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+        .build();
+    this.allJson = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+        .build();
+  }
+
+  public Optional<T> findById(String code) {
+    return byCode.get(generation.get() + ":" + code, key -> repository.findById(code));
+  }
+
+  public byte[] findAllAsJson() {
+    return findAllAsJson(List.of());
+  }
+
+  /** Only the given fields of each row, or whole rows when fields is empty. */
+  public Iterable<?> findAll(List<String> fields) {
+    return findAll(generation.get(), fields);
+  }
+
+  /** findAll(fields), serialized as JSON. */
+  public byte[] findAllAsJson(List<String> fields) {
+    long current = generation.get();
+    return allJson.get(key(current, fields), key -> {
+      ObjectWriter writer = fields.isEmpty() ? entityWriters.listWriterFor(entityType) : entityWriters.writer();
+      try {
+        return writer.writeValueAsBytes(findAll(current, fields));
+      } catch (JsonProcessingException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  private Iterable<?> findAll(long current, List<String> fields) {
+    return allRows.get(key(current, fields), key -> fields.isEmpty()
+        ? repository.findAll()
+        : fieldProjection.findAll(entityType, fields));
+  }
+
+  private static String key(long generation, List<String> fields) {
+    return generation + ":" + (fields.isEmpty() ? ALL : String.join(",", fields));
+  }
+
+  public void invalidate(String code) {
+    log.info("invalidating cached {} code={}", getClass().getSimpleName(), code);
+    invalidateAll();
+  }
+
+  // Bump first: from here on, loads use the new keys. Clearing afterwards
+  // only frees the old entries; one that a running load adds late is never
+  // read, and is evicted like any other.
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    byCode.invalidateAll();
+    allRows.invalidateAll();
+    allJson.invalidateAll();
+  }
+
+  public CacheStatistics getStatistics() {
+    return CacheStatistics.of(byCode);
+  }
+}
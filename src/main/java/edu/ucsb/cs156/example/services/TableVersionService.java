@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory version counter per entity type, bumped by
+ * TableVersionListener on every insert, update and delete. Listing
+ * endpoints turn the current version into an ETag, so an unchanged table
+ * can be answered with 304 without querying it.
+ *
+ * Counters start over on restart; the startup epoch in every ETag keeps
+ * tags from an earlier run from matching.
+ */
+@Service("tableVersions")
+public class TableVersionService {
+
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  public long current(Class<?> entityType) {
+    return counter(entityType).get();
+  }
+
+  // Bumped once now and once more when the surrounding transaction ends: a
+  // listing read between the two may still see the old rows, and the
+  // second bump makes sure the ETag it was served under is not reused.
+  public void changed(Class<?> entityType) {
+    AtomicLong counter = counter(entityType);
+    counter.incrementAndGet();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new BumpAfterCompletion(counter));
+    }
+  }
+
+  public String etag(Class<?> entityType) {
+    return "\"%s-%s-%d\"".formatted(entityType.getSimpleName(), epoch, current(entityType));
+  }
+
+  private AtomicLong counter(Class<?> entityType) {
+    return versions.computeIfAbsent(entityType, type -> new AtomicLong());
+  }
+
+  // a record, so that many writes to one table in a transaction register it once
+  private record BumpAfterCompletion(AtomicLong counter) implements TransactionSynchronization {
+    @Override
+    public void afterCompletion(int status) {
+      counter.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service("ucsbDiningCommonsCache")
+public class UCSBDiningCommonsCacheService extends ReferenceDataCache<UCSBDiningCommons> {
+
+  public UCSBDiningCommonsCacheService(UCSBDiningCommonsRepository repository, FieldProjectionService fieldProjection,
+      EntityWriterService entityWriters,
+      @Value("${app.referenceData.cache.maximumSize:1000}") long maximumSize,
+      @Value("${app.referenceData.cache.expireAfterWriteSeconds:600}") long expireAfterWriteSeconds) {
+    super(UCSBDiningCommons.class, repository, fieldProjection, entityWriters, maximumSize, expireAfterWriteSeconds);
+  }
+}
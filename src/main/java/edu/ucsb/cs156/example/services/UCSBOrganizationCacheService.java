@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service("ucsbOrganizationCache")
+public class UCSBOrganizationCacheService extends ReferenceDataCache<UCSBOrganization> {
+
+  public UCSBOrganizationCacheService(UCSBOrganizationRepository repository, FieldProjectionService fieldProjection,
+      EntityWriterService entityWriters,
+      @Value("${app.referenceData.cache.maximumSize:1000}") long maximumSize,
+      @Value("${app.referenceData.cache.expireAfterWriteSeconds:600}") long expireAfterWriteSeconds) {
+    super(UCSBOrganization.class, repository, fieldProjection, entityWriters, maximumSize, expireAfterWriteSeconds);
+  }
+}
@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.example.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CacheStatistics;
+import edu.ucsb.cs156.example.models.UserChangedEvent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded, time-limited cache of resolved users, keyed by Google sub, so
+ * that /api/currentUser does not go to the database on every page load.
+ */
+@Slf4j
+@Service("userCache")
+public class UserCacheService {
+
+  private final Cache<String, User> cache;
+
+  public UserCacheService(
+      @Value("${app.currentUser.cache.maximumSize:10000}") long maximumSize,
+      @Value("${app.currentUser.cache.expireAfterWriteSeconds:300}") long expireAfterWriteSeconds) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+  }
+
+  // Deliberately not cache.get(key, loader): the loader may save the user,
+  // which fires a UserChangedEvent that invalidates this same key, and
+  // Caffeine does not allow that from inside its own computation.
+  public User get(String googleSub, Function<String, User> loader) {
+    User user = cache.getIfPresent(googleSub);
+    if (user == null) {
+      user = loader.apply(googleSub);
+      cache.put(googleSub, user);
+    }
+    return user;
+  }
+
+  public void invalidate(String googleSub) {
+    log.info("invalidating cached user googleSub={}", googleSub);
+    cache.invalidate(googleSub);
+  }
+
+  @EventListener
+  public void onUserChanged(UserChangedEvent event) {
+    invalidate(event.getGoogleSub());
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public CacheStatistics getStatistics() {
+    return CacheStatistics.of(cache);
+  }
+}
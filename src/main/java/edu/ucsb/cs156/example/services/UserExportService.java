@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service("userExport")
+public class UserExportService {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityWriterService entityWriters;
+
+    /**
+     * Writes every user as newline-delimited JSON, one row at a time, so
+     * memory use stays flat no matter how many users there are.
+     */
+    @Transactional(readOnly = true)
+    public void writeNdjson(OutputStream out) throws IOException {
+        JsonGenerator generator = mapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        ObjectWriter writer = entityWriters.writerFor(User.class);
+
+        long count = 0;
+        try (Stream<User> users = userRepository.streamAllBy()) {
+            Iterator<User> it = users.iterator();
+            while (it.hasNext()) {
+                User user = it.next();
+                writer.writeValue(generator, user);
+                generator.writeRaw('\n');
+                // keep the persistence context from growing with the stream
+                entityManager.detach(user);
+                count++;
+            }
+        } finally {
+            generator.close();
+        }
+        log.info("writeNdjson wrote {} users", count);
+    }
+}
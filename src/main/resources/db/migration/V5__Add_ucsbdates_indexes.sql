@@ -0,0 +1,2 @@
+CREATE INDEX IF NOT EXISTS ucsbdates_local_date_time_idx ON ucsbdates (local_date_time);
+CREATE INDEX IF NOT EXISTS ucsbdates_quarter_local_date_time_idx ON ucsbdates (quarter_yyyyq, local_date_time);
@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS recommendation_request_professor_done_needed_idx ON recommendation_request (professor_email, done, date_needed, id);
+CREATE INDEX IF NOT EXISTS recommendation_request_requester_done_needed_idx ON recommendation_request (requester_email, done, date_needed, id);
+CREATE INDEX IF NOT EXISTS recommendation_request_done_needed_idx ON recommendation_request (done, date_needed, id);
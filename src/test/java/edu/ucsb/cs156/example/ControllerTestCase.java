@@ -1,21 +1,32 @@
 package edu.ucsb.cs156.example;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.Map;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
 @ActiveProfiles("test")
 @Import(TestConfig.class)
 public abstract class ControllerTestCase {
@@ -31,8 +42,33 @@ public abstract class ControllerTestCase {
   @Autowired
   public ObjectMapper mapper;
 
+  // selectFields answers an empty list, so listings return whole rows
+  // unless a test stubs it
+  @MockBean
+  public FieldProjectionService fieldProjection;
+
+  // Like mockMvc.perform, but for handlers that return a CompletableFuture
+  // it also performs the async dispatch that writes the response.
+  protected ResultActions performAndAwait(RequestBuilder request) throws Exception {
+    ResultActions actions = mockMvc.perform(request);
+    MvcResult result = actions.andReturn();
+    if (result.getRequest().isAsyncStarted()) {
+      return mockMvc.perform(asyncDispatch(result));
+    }
+    return actions;
+  }
+
   protected Map<String, Object> responseToJson(MvcResult result) throws UnsupportedEncodingException, JsonProcessingException {
     String responseString = result.getResponse().getContentAsString();
     return mapper.readValue(responseString, Map.class);
   }
+
+  // Decodes a CBOR or Smile response into the tree its JSON would parse to,
+  // for comparing with mapper.readTree(expectedJson).
+  protected JsonNode binaryResponseToTree(MvcResult result) throws IOException {
+    ObjectMapper decoder = MediaType.APPLICATION_CBOR_VALUE.equals(result.getResponse().getContentType())
+        ? new CBORMapper()
+        : new SmileMapper();
+    return decoder.readTree(result.getResponse().getContentAsByteArray());
+  }
 }
@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.models.HandlerLatency;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class HandlerLatencyEndpointTests {
+
+  @Test
+  void test_handlerLatency_summarizes_handler_meters() {
+    // arrange
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    Timer timer = Timer.builder(LoggingAspect.HANDLER_TIMER)
+        .tags("controller", "RestaurantsController", "method", "allRestaurants")
+        .publishPercentiles(0.5, 0.9, 0.99)
+        .register(registry);
+    timer.record(Duration.ofMillis(10));
+    timer.record(Duration.ofMillis(30));
+    Counter.builder(LoggingAspect.HANDLER_ERRORS)
+        .tags("controller", "RestaurantsController", "method", "allRestaurants")
+        .register(registry)
+        .increment();
+    AtomicInteger inFlight = new AtomicInteger(2);
+    Gauge.builder(LoggingAspect.HANDLER_IN_FLIGHT, inFlight, AtomicInteger::get)
+        .tags("controller", "RestaurantsController", "method", "allRestaurants")
+        .register(registry);
+
+    Timer.builder(LoggingAspect.HANDLER_TIMER)
+        .tags("controller", "UCSBDatesController", "method", "allUCSBDates")
+        .register(registry)
+        .record(Duration.ofMillis(5));
+
+    HandlerLatencyEndpoint endpoint = new HandlerLatencyEndpoint();
+    endpoint.meterRegistry = registry;
+
+    // act
+    Map<String, HandlerLatency> result = endpoint.handlerLatency();
+
+    // assert
+    HandlerLatency restaurants = result.get("RestaurantsController.allRestaurants");
+    assertEquals(2, restaurants.getCount());
+    assertEquals(1.0, restaurants.getErrors());
+    assertEquals(2.0, restaurants.getInFlight());
+    assertEquals(20.0, restaurants.getMeanMs(), 0.001);
+    assertTrue(restaurants.getP99Ms() >= restaurants.getP50Ms());
+    assertTrue(restaurants.getP90Ms() > 0);
+
+    HandlerLatency dates = result.get("UCSBDatesController.allUCSBDates");
+    assertEquals(1, dates.getCount());
+    assertEquals(0.0, dates.getErrors());
+    assertEquals(0.0, dates.getInFlight());
+    assertEquals(0.0, dates.getP50Ms());
+  }
+
+}
@@ -0,0 +1,116 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ControllerExecutorConfigTests {
+
+  ControllerExecutorConfig config = new ControllerExecutorConfig();
+
+  MeterRegistry registry = new SimpleMeterRegistry();
+
+  ThreadPoolTaskExecutor executor;
+
+  @AfterEach
+  void cleanup() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+    SecurityContextHolder.clearContext();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void test_full_queue_rejects_and_is_counted() throws Exception {
+    executor = config.controllerExecutor(registry, 1, 1);
+    executor.initialize();
+
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(() -> {
+      running.countDown();
+      await(release);
+    });
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+    executor.execute(() -> { });
+
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+    assertEquals(1.0, registry.get("executor.rejected").tag("name", "controller").counter().count());
+    assertEquals(1.0, registry.get("executor.queued").tag("name", "controller").gauge().value());
+    assertEquals(1.0, registry.get("executor.pool.max").tag("name", "controller").gauge().value());
+
+    release.countDown();
+    executor.shutdown();
+    assertTrue(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(2, registry.get("executor").tag("name", "controller").timer().count());
+    assertEquals(2, registry.get("executor.idle").tag("name", "controller").timer().count());
+  }
+
+  @Test
+  void test_tasks_see_the_submitting_user_and_request() throws Exception {
+    executor = config.controllerExecutor(registry, 1, 10);
+    executor.initialize();
+
+    Authentication user = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+    SecurityContextHolder.getContext().setAuthentication(user);
+    RequestAttributes request = new ServletRequestAttributes(new MockHttpServletRequest());
+    RequestContextHolder.setRequestAttributes(request);
+
+    CompletableFuture<Object[]> seen = CompletableFuture.supplyAsync(() -> new Object[] {
+        SecurityContextHolder.getContext().getAuthentication(), RequestContextHolder.getRequestAttributes() },
+        executor);
+    assertSame(user, seen.get(5, TimeUnit.SECONDS)[0]);
+    assertSame(request, seen.get(5, TimeUnit.SECONDS)[1]);
+
+    // nothing is left behind on the pooled thread for the next task
+    SecurityContextHolder.clearContext();
+    RequestContextHolder.resetRequestAttributes();
+    CompletableFuture<Object[]> next = CompletableFuture.supplyAsync(() -> new Object[] {
+        SecurityContextHolder.getContext().getAuthentication(), RequestContextHolder.getRequestAttributes() },
+        executor);
+    assertNull(next.get(5, TimeUnit.SECONDS)[0]);
+    assertNull(next.get(5, TimeUnit.SECONDS)[1]);
+  }
+
+  @Test
+  void test_disabled_executor_runs_on_the_calling_thread() {
+    TaskExecutor inline = config.inlineControllerExecutor();
+    Thread[] ranOn = new Thread[1];
+    inline.execute(() -> ranOn[0] = Thread.currentThread());
+
+    assertTrue(inline instanceof SyncTaskExecutor);
+    assertSame(Thread.currentThread(), ranOn[0]);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.controllers.FrontendController;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// serves the fixtures in src/test/resources/public
+@WebMvcTest(controllers = FrontendController.class)
+@Import({ TestConfig.class, FrontendResourceConfig.class })
+public class FrontendResourceConfigTests extends ControllerTestCase {
+
+  private static final String BUNDLE = "/static/js/main.4f2a9c1e.js";
+
+  @MockBean
+  UserRepository userRepository;
+
+  private byte[] fixture(String path) throws IOException {
+    try (InputStream in = new ClassPathResource("public" + path).getInputStream()) {
+      return in.readAllBytes();
+    }
+  }
+
+  @Test
+  public void hashed_assets_are_sent_as_brotli_when_accepted() throws Exception {
+    MvcResult response = mockMvc.perform(get(BUNDLE).header("Accept-Encoding", "gzip, deflate, br"))
+        .andExpect(status().isOk()).andReturn();
+
+    assertEquals("br", response.getResponse().getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", response.getResponse().getHeader("Vary"));
+    assertEquals("max-age=31536000, private, immutable", response.getResponse().getHeader("Cache-Control"));
+    assertEquals("application/javascript", response.getResponse().getContentType());
+    assertArrayEquals(fixture(BUNDLE + ".br"), response.getResponse().getContentAsByteArray());
+  }
+
+  @Test
+  public void hashed_assets_are_sent_as_gzip_when_brotli_is_not_accepted() throws Exception {
+    MvcResult response = mockMvc.perform(get(BUNDLE).header("Accept-Encoding", "gzip"))
+        .andExpect(status().isOk()).andReturn();
+
+    assertEquals("gzip", response.getResponse().getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", response.getResponse().getHeader("Vary"));
+    assertArrayEquals(fixture(BUNDLE + ".gz"), response.getResponse().getContentAsByteArray());
+  }
+
+  @Test
+  public void uncompressed_assets_still_vary_on_accept_encoding() throws Exception {
+    MvcResult response = mockMvc.perform(get(BUNDLE))
+        .andExpect(status().isOk()).andReturn();
+
+    assertNull(response.getResponse().getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", response.getResponse().getHeader("Vary"));
+    assertEquals("max-age=31536000, private, immutable", response.getResponse().getHeader("Cache-Control"));
+    assertArrayEquals(fixture(BUNDLE), response.getResponse().getContentAsByteArray());
+  }
+
+  @Test
+  public void index_html_is_revalidated_on_every_use() throws Exception {
+    MvcResult response = mockMvc.perform(get("/index.html").header("Accept-Encoding", "br"))
+        .andExpect(status().isOk()).andReturn();
+
+    assertEquals("br", response.getResponse().getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", response.getResponse().getHeader("Vary"));
+    assertEquals("no-cache, private", response.getResponse().getHeader("Cache-Control"));
+    assertArrayEquals(fixture("/index.html.br"), response.getResponse().getContentAsByteArray());
+  }
+
+  @Test
+  public void missing_assets_are_not_cached_for_a_year() throws Exception {
+    MvcResult response = mockMvc.perform(get("/static/js/main.00000000.js"))
+        .andExpect(status().isNotFound()).andReturn();
+
+    assertEquals("no-cache, no-store, max-age=0, must-revalidate", response.getResponse().getHeader("Cache-Control"));
+  }
+
+  @Test
+  public void controller_responses_are_left_alone() throws Exception {
+    MvcResult response = mockMvc.perform(get("/csrf"))
+        .andExpect(status().isNotFound()).andReturn();
+
+    assertNull(response.getResponse().getHeader("Vary"));
+  }
+}
@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+
+class JacksonConfigTests {
+
+  private static ObjectMapper mapper(Module... modules) {
+    return Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .modulesToInstall(modules)
+        .build();
+  }
+
+  @Test
+  void test_our_classes_get_a_full_privilege_lookup() {
+    MethodHandles.Lookup lookup = JacksonConfig.lookupFor(MenuItemReview.class);
+
+    assertEquals(MenuItemReview.class, lookup.lookupClass());
+    assertTrue(lookup.hasFullPrivilegeAccess());
+  }
+
+  @Test
+  void test_other_modules_keep_reflection() {
+    assertNull(JacksonConfig.lookupFor(String.class));
+  }
+
+  @Test
+  void test_blackbird_round_trips_entities_unchanged() throws Exception {
+    List<MenuItemReview> reviews = List.of(MenuItemReview.builder().id(1L).itemId(2L).reviewerEmail("a@ucsb.edu")
+        .stars(5).dateReviewed(LocalDateTime.of(2023, 1, 1, 12, 30)).comments("Crispy").build());
+    ObjectMapper blackbird = mapper(new JacksonConfig().blackbirdModule());
+
+    String json = blackbird.writeValueAsString(reviews);
+
+    assertEquals(mapper().writeValueAsString(reviews), json);
+    assertEquals(reviews, blackbird.readerForListOf(MenuItemReview.class).readValue(json));
+  }
+}
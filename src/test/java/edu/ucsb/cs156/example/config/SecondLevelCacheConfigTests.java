@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+
+import edu.ucsb.cs156.example.models.CacheRegionStatistics;
+
+class SecondLevelCacheConfigTests {
+
+  MockEnvironment environment = new MockEnvironment()
+      .withProperty("app.secondLevelCache.default.maximumSize", "100")
+      .withProperty("app.secondLevelCache.default.expireAfterWriteSeconds", "60")
+      .withProperty("app.secondLevelCache.restaurant.maximumSize", "7");
+
+  @Test
+  void test_regions_use_their_own_settings_or_the_defaults() {
+    SecondLevelCacheConfig config = new SecondLevelCacheConfig();
+    try (CacheManager cacheManager = config.secondLevelCacheManager(environment, List.of("restaurant", "ucsbdates"))) {
+      CaffeineConfiguration<?, ?> restaurant = cacheManager.getCache("restaurant")
+          .getConfiguration(CaffeineConfiguration.class);
+      assertEquals(OptionalLong.of(7), restaurant.getMaximumSize());
+      assertEquals(OptionalLong.of(TimeUnit.SECONDS.toNanos(60)), restaurant.getExpireAfterWrite());
+      assertEquals(false, restaurant.isStoreByValue());
+
+      CaffeineConfiguration<?, ?> dates = cacheManager.getCache("ucsbdates")
+          .getConfiguration(CaffeineConfiguration.class);
+      assertEquals(OptionalLong.of(100), dates.getMaximumSize());
+
+      CaffeineConfiguration<?, ?> timestamps = cacheManager.getCache(SecondLevelCacheConfig.UPDATE_TIMESTAMPS_REGION)
+          .getConfiguration(CaffeineConfiguration.class);
+      assertEquals(OptionalLong.empty(), timestamps.getMaximumSize());
+      assertEquals(OptionalLong.empty(), timestamps.getExpireAfterWrite());
+    }
+  }
+
+  @Test
+  void test_each_context_gets_its_own_cache_manager() {
+    SecondLevelCacheConfig config = new SecondLevelCacheConfig();
+    try (CacheManager first = config.secondLevelCacheManager(environment, List.of("restaurant"));
+        CacheManager second = config.secondLevelCacheManager(environment, List.of("restaurant"))) {
+      assertNotNull(first.getCache("restaurant"));
+      assertNotNull(second.getCache("restaurant"));
+    }
+  }
+
+  @Test
+  void test_endpoint_reports_hit_ratio_and_size_per_region() {
+    SecondLevelCacheConfig config = new SecondLevelCacheConfig();
+    try (CacheManager cacheManager = config.secondLevelCacheManager(environment, List.of("restaurant", "ucsbdates"))) {
+      cacheManager.getCache("restaurant").put(1L, "entry");
+
+      org.hibernate.stat.CacheRegionStatistics restaurant = mock(org.hibernate.stat.CacheRegionStatistics.class);
+      when(restaurant.getHitCount()).thenReturn(3L);
+      when(restaurant.getMissCount()).thenReturn(1L);
+      when(restaurant.getPutCount()).thenReturn(1L);
+      org.hibernate.stat.CacheRegionStatistics dates = mock(org.hibernate.stat.CacheRegionStatistics.class);
+      Statistics statistics = mock(Statistics.class);
+      when(statistics.getCacheRegionStatistics("restaurant")).thenReturn(restaurant);
+      when(statistics.getCacheRegionStatistics("ucsbdates")).thenReturn(dates);
+      SessionFactory sessionFactory = mock(SessionFactory.class);
+      when(sessionFactory.getStatistics()).thenReturn(statistics);
+      EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+      when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+
+      SecondLevelCacheEndpoint endpoint = new SecondLevelCacheEndpoint();
+      endpoint.entityManagerFactory = entityManagerFactory;
+      endpoint.secondLevelCacheManager = cacheManager;
+
+      Map<String, CacheRegionStatistics> result = endpoint.secondLevelCache();
+
+      assertEquals(List.of("restaurant", "ucsbdates"), List.copyOf(result.keySet()));
+      assertEquals(1, result.get("restaurant").getSize());
+      assertEquals(3, result.get("restaurant").getHitCount());
+      assertEquals(0.75, result.get("restaurant").getHitRatio(), 0.0001);
+      assertEquals(0.0, result.get("ucsbdates").getHitRatio());
+    }
+  }
+}
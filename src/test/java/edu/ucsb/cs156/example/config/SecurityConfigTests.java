@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.controllers.SystemInfoController;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.SystemInfoService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the actuator itself isn't part of this slice, so an admin gets 404 where
+// anyone else is stopped with 403
+@WebMvcTest(controllers = SystemInfoController.class)
+@Import(TestConfig.class)
+public class SecurityConfigTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  SystemInfoService systemInfoService;
+
+  @Test
+  public void logged_out_users_cannot_reach_the_actuator() throws Exception {
+    mockMvc.perform(get("/actuator")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void users_cannot_reach_the_actuator() throws Exception {
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/secondlevelcache")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admins_get_past_security_to_the_actuator() throws Exception {
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().isNotFound());
+  }
+}
@@ -0,0 +1,110 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VirtualThreadConfigTests {
+
+  static final boolean VIRTUAL_THREADS = Runtime.version().feature() >= 21;
+
+  ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+      .withUserConfiguration(ControllerExecutorConfig.class)
+      .withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+  @Test
+  void test_controller_executor_runs_inline_by_default() {
+    contextRunner.run(context -> assertThat(context.getBean("controllerExecutor"))
+        .isInstanceOf(SyncTaskExecutor.class));
+  }
+
+  @Test
+  void test_controller_executor_is_pooled_when_enabled() {
+    contextRunner.withPropertyValues("app.controllerExecutor.enabled=true")
+        .run(context -> assertThat(context.getBean("controllerExecutor"))
+            .isInstanceOf(ThreadPoolTaskExecutor.class));
+  }
+
+  @Test
+  void test_controller_executor_runs_inline_on_virtual_threads() {
+    contextRunner.withPropertyValues("app.controllerExecutor.enabled=true", "app.virtualThreads.enabled=true")
+        .run(context -> assertThat(context.getBean("controllerExecutor"))
+            .isInstanceOf(SyncTaskExecutor.class));
+  }
+
+  @Test
+  void test_controller_executor_runs_inline_when_disabled() {
+    contextRunner.withPropertyValues("app.controllerExecutor.enabled=false")
+        .run(context -> assertThat(context.getBean("controllerExecutor"))
+            .isInstanceOf(SyncTaskExecutor.class));
+  }
+
+  @Test
+  void test_older_java_is_refused() {
+    assumeTrue(!VIRTUAL_THREADS);
+    IllegalStateException e = assertThrows(IllegalStateException.class,
+        () -> VirtualThreadConfig.newVirtualThreadPerTaskExecutor("test-"));
+    assertTrue(e.getMessage().startsWith("app.virtualThreads.enabled=true needs Java 21 or later"));
+  }
+
+  @Test
+  void test_tasks_run_on_named_virtual_threads() throws Exception {
+    assumeTrue(VIRTUAL_THREADS);
+    ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor("test-");
+    try {
+      Future<String> name = executor.submit(() -> Thread.currentThread().getName()
+          + (Thread.currentThread().isDaemon() ? " daemon" : ""));
+      assertEquals("test-0 daemon", name.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void test_pinned_monitor_times_blocking_inside_synchronized() throws Exception {
+    assumeTrue(VIRTUAL_THREADS);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    Object monitor = new Object();
+    ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor("test-");
+    try (PinnedThreadMonitor pinnedThreadMonitor = new PinnedThreadMonitor(registry, Duration.ofMillis(1))) {
+      executor.submit(() -> {
+        synchronized (monitor) {
+          Thread.sleep(50);
+        }
+        return null;
+      }).get(5, TimeUnit.SECONDS);
+
+      // JFR hands events to the stream about once a second
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (registry.get(PinnedThreadMonitor.TIMER).timer().count() == 0 && System.nanoTime() < deadline) {
+        Thread.sleep(100);
+      }
+      assertEquals(1, registry.get(PinnedThreadMonitor.TIMER).timer().count());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void test_pinned_monitor_registers_its_timer_and_closes() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    try (PinnedThreadMonitor monitor = new PinnedThreadMonitor(registry, Duration.ofMillis(20))) {
+      assertEquals(0, registry.get(PinnedThreadMonitor.TIMER).timer().count());
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
+import edu.ucsb.cs156.example.services.MenuItemReviewBatchService;
+import edu.ucsb.cs156.example.services.MenuItemReviewSearchService;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebMvcTest(controllers = MenuItemReviewController.class)
+@Import(TestConfig.class)
+@TestPropertySource(properties = "app.menuItemReview.allLimit=1")
+public class MenuItemReviewControllerAllLimitTests extends ControllerTestCase {
+
+        @MockBean
+        MenuItemReviewRepository menuItemReviewRepository;
+
+        @MockBean
+        UserRepository userRepository;
+
+        @MockBean
+        MenuItemReviewBatchService menuItemReviewBatchService;
+
+        @MockBean
+        MenuItemRatingService menuItemRatingService;
+
+        @MockBean
+        MenuItemReviewSearchService menuItemReviewSearchService;
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void capped_all_returns_first_page_and_links_to_paged() throws Exception {
+            // arrange
+            MenuItemReview first = MenuItemReview.builder()
+                .id(1L)
+                .itemId(1L)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(1)
+                .dateReviewed(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
+                .comments("First")
+                .build();
+
+            List<MenuItemReview> page = Arrays.asList(first);
+            when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.ofSize(1))).thenReturn(page);
+
+            // act
+            MvcResult response = performAndAwait(get("/api/menuitemreview/all"))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemReviewRepository, never()).findAll();
+            verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.ofSize(1));
+            assertEquals(mapper.writeValueAsString(page), response.getResponse().getContentAsString());
+            assertEquals("<http://localhost/api/menuitemreview/paged?cursor=MQ>; rel=\"next\"",
+                response.getResponse().getHeader("Link"));
+            assertEquals("MQ", response.getResponse().getHeader("X-Next-Cursor"));
+            assertNotNull(response.getResponse().getHeader("ETag"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void capped_all_with_fields_adds_the_id_and_links_to_paged_with_them() throws Exception {
+            // arrange
+            List<Map<String, Object>> page = List.of(Map.of("id", 1L, "stars", 1));
+            when(fieldProjection.selectFields(MenuItemReview.class, "stars")).thenReturn(List.of("stars"));
+            when(fieldProjection.findPage(MenuItemReview.class, List.of("id", "stars"), 0L, 1)).thenReturn(page);
+
+            // act
+            MvcResult response = performAndAwait(get("/api/menuitemreview/all?fields=stars"))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemReviewRepository, never()).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.ofSize(1));
+            assertEquals(mapper.writeValueAsString(page), response.getResponse().getContentAsString());
+            assertEquals("MQ", response.getResponse().getHeader("X-Next-Cursor"));
+            assertEquals("<http://localhost/api/menuitemreview/paged?fields=stars&cursor=MQ>; rel=\"next\"",
+                response.getResponse().getHeader("Link"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void capped_all_with_fields_and_a_short_page_has_no_next_link() throws Exception {
+            // arrange
+            when(fieldProjection.selectFields(MenuItemReview.class, "stars,id")).thenReturn(List.of("stars", "id"));
+            when(fieldProjection.findPage(MenuItemReview.class, List.of("stars", "id"), 0L, 1)).thenReturn(List.of());
+
+            // act
+            MvcResult response = performAndAwait(get("/api/menuitemreview/all?fields=stars,id"))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            assertEquals("[]", response.getResponse().getContentAsString());
+            assertNull(response.getResponse().getHeader("Link"));
+        }
+}
@@ -0,0 +1,93 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
+import edu.ucsb.cs156.example.services.MenuItemReviewBatchService;
+import edu.ucsb.cs156.example.services.MenuItemReviewSearchService;
+
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@WebMvcTest(controllers = MenuItemReviewController.class)
+@Import(TestConfig.class)
+public class MenuItemReviewControllerRejectionTests extends ControllerTestCase {
+
+        @MockBean
+        MenuItemReviewRepository menuItemReviewRepository;
+
+        @MockBean
+        UserRepository userRepository;
+
+        @MockBean
+        MenuItemReviewBatchService menuItemReviewBatchService;
+
+        @MockBean
+        MenuItemRatingService menuItemRatingService;
+
+        @MockBean
+        MenuItemReviewSearchService menuItemReviewSearchService;
+
+        // stands in for an executor whose queue is full
+        @MockBean(name = "controllerExecutor")
+        TaskExecutor controllerExecutor;
+
+        @BeforeEach
+        public void saturate() {
+            doThrow(new TaskRejectedException("controller executor is saturated"))
+                .when(controllerExecutor).execute(any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void saturated_executor_answers_503_with_retry_after() throws Exception {
+            MvcResult response = performAndAwait(get("/api/menuitemreview?id=7"))
+                .andExpect(status().isServiceUnavailable()).andReturn();
+
+            verifyNoInteractions(menuItemReviewRepository);
+            assertEquals("1", response.getResponse().getHeader("Retry-After"));
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("TaskRejectedException", json.get("type"));
+            assertEquals("Server is busy, try again shortly", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void saturated_executor_rejects_listings_before_querying() throws Exception {
+            performAndAwait(get("/api/menuitemreview/all"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+
+            verify(menuItemReviewRepository, never()).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void not_modified_listing_does_not_need_the_executor() throws Exception {
+            String etag = performAndAwait(get("/api/menuitemreview/all"))
+                .andReturn().getResponse().getHeader("ETag");
+
+            performAndAwait(get("/api/menuitemreview/all").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        }
+}
@@ -3,16 +3,29 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.BinaryFormatConfig;
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.BatchItemResult;
+import edu.ucsb.cs156.example.models.MenuItemReviewSearchHit;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
+import edu.ucsb.cs156.example.services.MenuItemReviewBatchService;
+import edu.ucsb.cs156.example.services.MenuItemReviewSearchService;
 
+import java.io.Reader;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -26,13 +39,16 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = MenuItemReviewController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, BinaryFormatConfig.class })
 public class MenuItemReviewControllerTests extends ControllerTestCase { 
     
         @MockBean
@@ -41,35 +57,44 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        MenuItemReviewBatchService menuItemReviewBatchService;
+
+        @MockBean
+        MenuItemRatingService menuItemRatingService;
+
+        @MockBean
+        MenuItemReviewSearchService menuItemReviewSearch;
+
         @Test
         public void logged_out_users_cannot_get_index() throws Exception {
-            mockMvc.perform(get("/api/menuitemreview/all"))
+            performAndAwait(get("/api/menuitemreview/all"))
                 .andExpect(status().is(403)); // Forbidden
         }
 
         @Test
         public void logged_out_users_cannot_get_by_id() throws Exception {
-            mockMvc.perform(get("/api/menuitemreview?id=1"))
+            performAndAwait(get("/api/menuitemreview?id=1"))
                 .andExpect(status().is(403));
         }
 
         @Test
         public void logged_out_users_cannot_post() throws Exception {
-            mockMvc.perform(post("/api/menuitemreview/post"))
+            performAndAwait(post("/api/menuitemreview/post"))
                 .andExpect(status().is(403));
         }
 
         @WithMockUser(roles = {"USER"})
         @Test
         public void logged_in_users_cannot_post() throws Exception {
-            mockMvc.perform(post("/api/menuitemreview/post"))
+            performAndAwait(post("/api/menuitemreview/post"))
                 .andExpect(status().is(403));
         }
 
         @WithMockUser(roles = {"USER"})
         @Test
         public void logged_in_users_can_get_index() throws Exception {
-            mockMvc.perform(get("/api/menuitemreview/all"))
+            performAndAwait(get("/api/menuitemreview/all"))
                 .andExpect(status().is(200)); // Ok
         }
 
@@ -107,7 +132,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             when(menuItemReviewRepository.findAll()).thenReturn(allReviews);
 
             // act
-            MvcResult response = mockMvc.perform(get("/api/menuitemreview/all"))
+            MvcResult response = performAndAwait(get("/api/menuitemreview/all"))
                 .andExpect(status().is(200)).andReturn();
 
             // assert
@@ -117,6 +142,84 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_fields_returns_only_those_fields() throws Exception {
+
+                // arrange
+                List<Map<String, Object>> rows = List.of(Map.of("id", 1L, "stars", 5));
+                when(fieldProjection.selectFields(MenuItemReview.class, "id,stars")).thenReturn(List.of("id", "stars"));
+                when(fieldProjection.findAll(MenuItemReview.class, List.of("id", "stars"))).thenReturn(rows);
+
+                // act
+                MvcResult response = performAndAwait(get("/api/menuitemreview/all?fields=id,stars"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, never()).findAll();
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_as_cbor_has_the_same_shape_as_json() throws Exception {
+
+                // arrange
+                MenuItemReview review = MenuItemReview.builder()
+                                .id(7L)
+                                .itemId(1L)
+                                .reviewerEmail("a@ucsb.edu")
+                                .stars(4)
+                                .dateReviewed(LocalDateTime.of(2023, 1, 1, 12, 30, 0))
+                                .comments("Crispy")
+                                .build();
+                when(menuItemReviewRepository.findAll()).thenReturn(List.of(review));
+
+                // act
+                MvcResult response = performAndAwait(get("/api/menuitemreview/all").accept(MediaType.APPLICATION_CBOR))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(MediaType.APPLICATION_CBOR_VALUE, response.getResponse().getContentType());
+                assertEquals(mapper.readTree(mapper.writeValueAsString(List.of(review))), binaryResponseToTree(response));
+                assertEquals("2023-01-01T12:30:00", binaryResponseToTree(response).get(0).get("dateReviewed").asText());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_as_smile_has_the_same_shape_as_json() throws Exception {
+
+                // arrange
+                List<Map<String, Object>> rows = List.of(Map.of("id", 1L, "stars", 5));
+                when(fieldProjection.selectFields(MenuItemReview.class, "id,stars")).thenReturn(List.of("id", "stars"));
+                when(fieldProjection.findAll(MenuItemReview.class, List.of("id", "stars"))).thenReturn(rows);
+
+                // act
+                MvcResult response = performAndAwait(get("/api/menuitemreview/all?fields=id,stars")
+                                .accept(ApiController.APPLICATION_SMILE_VALUE))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(ApiController.APPLICATION_SMILE_VALUE, response.getResponse().getContentType());
+                assertEquals(mapper.readTree(mapper.writeValueAsString(rows)), binaryResponseToTree(response));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_without_accept_is_json() throws Exception {
+
+                // arrange
+                when(menuItemReviewRepository.findAll()).thenReturn(List.of());
+
+                // act
+                MvcResult response = performAndAwait(get("/api/menuitemreview/all").accept(MediaType.ALL))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getResponse().getContentType());
+                assertEquals("[]", response.getResponse().getContentAsString());
+        }
+
         @WithMockUser(roles = {"ADMIN", "USER"})
         @Test
         public void admin_user_can_post() throws Exception {
@@ -129,16 +232,17 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 .comments("First")
                 .build();
             
-            when(menuItemReviewRepository.save(eq(first))).thenReturn(first);
+            when(menuItemRatingService.addReview(eq(first))).thenReturn(first);
         
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAndAwait(
                 post("/api/menuitemreview/post?itemId=1&reviewerEmail=a@ucsb.edu&stars=1&dateReviewed=2023-01-01T00:00:00&comments=First")
                     .with(csrf()))
                 .andExpect(status().is(200)).andReturn();
 
             // assert
-            verify(menuItemReviewRepository, times(1)).save(first);
+            verify(menuItemRatingService, times(1)).addReview(first);
+            verify(menuItemReviewSearch, times(1)).reviewSaved(first);
             String expectedJson = mapper.writeValueAsString(first);
             String responseString = response.getResponse().getContentAsString();
             assertEquals(expectedJson, responseString);
@@ -159,7 +263,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             when(menuItemReviewRepository.findById(1L)).thenReturn(Optional.of(menuItemReview));
 
             // act
-            MvcResult response = mockMvc.perform(get("/api/menuitemreview?id=1"))
+            MvcResult response = performAndAwait(get("/api/menuitemreview?id=1"))
                 .andExpect(status().is(200)).andReturn();
 
             // assert
@@ -176,7 +280,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             when(menuItemReviewRepository.findById(1L)).thenReturn(Optional.empty());
 
             // act
-            MvcResult response = mockMvc.perform(get("/api/menuitemreview?id=1"))
+            MvcResult response = performAndAwait(get("/api/menuitemreview?id=1"))
                 .andExpect(status().is(404)).andReturn();
 
             // assert
@@ -186,6 +290,38 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             assertEquals("MenuItemReview with id 1 not found", json.get("message"));
         }
 
+        // the test executor runs handlers inline, as the default config does,
+        // so their futures are complete and written without an async dispatch
+        @WithMockUser(roles = {"USER"})
+        @Test
+        public void completed_handlers_are_answered_without_async_dispatch() throws Exception {
+            // arrange
+            MenuItemReview review = MenuItemReview.builder()
+                .id(1L)
+                .itemId(1L)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(1)
+                .dateReviewed(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
+                .comments("First")
+                .version(2L)
+                .build();
+            when(menuItemReviewRepository.findById(1L)).thenReturn(Optional.of(review));
+            when(menuItemReviewRepository.findById(2L)).thenReturn(Optional.empty());
+
+            // act
+            MvcResult found = mockMvc.perform(get("/api/menuitemreview?id=1"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().is(200))
+                .andExpect(header().string("ETag", "\"2\"")).andReturn();
+            MvcResult missing = mockMvc.perform(get("/api/menuitemreview?id=2"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().is(404)).andReturn();
+
+            // assert
+            assertEquals(mapper.writeValueAsString(review), found.getResponse().getContentAsString());
+            assertEquals("MenuItemReview with id 2 not found", responseToJson(missing).get("message"));
+        }
+
         @WithMockUser(roles = {"ADMIN", "USER"})
         @Test
         public void admin_can_edit_menuitemreview() throws Exception {
@@ -210,9 +346,10 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             String requestBody = mapper.writeValueAsString(second);
 
             when(menuItemReviewRepository.findById(eq(1L))).thenReturn(Optional.of(first));
+            when(menuItemRatingService.updateReview(eq(1L), eq(1), eq(second))).thenReturn(second);
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAndAwait(
                 put("/api/menuitemreview?id=1")
                     .contentType(MediaType.APPLICATION_JSON)
                     .characterEncoding("utf-8")
@@ -222,11 +359,44 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
             // assert
             verify(menuItemReviewRepository, times(1)).findById(1L);
-            verify(menuItemReviewRepository, times(1)).save(second);
+            verify(menuItemRatingService, times(1)).updateReview(1L, 1, second);
+            verify(menuItemReviewSearch, times(1)).reviewSaved(second);
             String responseString = response.getResponse().getContentAsString();
             assertEquals(requestBody, responseString);
         }
 
+        @WithMockUser(roles = {"ADMIN", "USER"})
+        @Test
+        public void admin_cannot_edit_menuitemreview_with_a_stale_if_match() throws Exception {
+            // arrange
+            MenuItemReview current = MenuItemReview.builder()
+                .id(1L)
+                .itemId(1L)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(1)
+                .dateReviewed(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
+                .comments("First")
+                .version(5L)
+                .build();
+
+            when(menuItemReviewRepository.findById(eq(1L))).thenReturn(Optional.of(current));
+
+            // act
+            MvcResult response = performAndAwait(
+                put("/api/menuitemreview?id=1")
+                    .header("If-Match", "\"4\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(current))
+                    .with(csrf()))
+                .andExpect(status().isPreconditionFailed()).andReturn();
+
+            // assert
+            verify(menuItemRatingService, never()).updateReview(anyLong(), anyInt(), any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("MenuItemReview with id 1 does not match If-Match \"4\"", json.get("message"));
+        }
+
         @WithMockUser(roles = {"ADMIN", "USER"})
         @Test
         public void admin_cannot_edit_menuitemreview_when_not_found() throws Exception {
@@ -243,7 +413,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             when(menuItemReviewRepository.findById(eq(1L))).thenReturn(Optional.empty());
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAndAwait(
                 put("/api/menuitemreview?id=1")
                     .contentType(MediaType.APPLICATION_JSON)
                     .characterEncoding("utf-8")
@@ -272,14 +442,15 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             when(menuItemReviewRepository.findById(eq(1L))).thenReturn(Optional.of(menuItemReview));
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAndAwait(
                 delete("/api/menuitemreview?id=1")
                     .with(csrf()))
                 .andExpect(status().is(200)).andReturn();
 
             // assert
             verify(menuItemReviewRepository, times(1)).findById(1L);
-            verify(menuItemReviewRepository, times(1)).delete(any());
+            verify(menuItemRatingService, times(1)).removeReview(menuItemReview);
+            verify(menuItemReviewSearch, times(1)).reviewRemoved(1L);
 
             Map<String, Object> json = responseToJson(response);
             assertEquals("MenuItemReview with id 1 deleted", json.get("message"));
@@ -292,7 +463,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             when(menuItemReviewRepository.findById(eq(1L))).thenReturn(Optional.empty());
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAndAwait(
                 delete("/api/menuitemreview?id=1")
                     .with(csrf()))
                 .andExpect(status().is(404)).andReturn();
@@ -302,4 +473,432 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             Map<String, Object> json = responseToJson(response);
             assertEquals("MenuItemReview with id 1 not found", json.get("message"));
         }
-}
\ No newline at end of file
+
+        @Test
+        public void logged_out_users_cannot_get_paged() throws Exception {
+            performAndAwait(get("/api/menuitemreview/paged"))
+                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_full_page_with_next_link() throws Exception {
+            // arrange
+            MenuItemReview first = MenuItemReview.builder()
+                .id(11L)
+                .itemId(1L)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(1)
+                .dateReviewed(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
+                .comments("First")
+                .build();
+
+            MenuItemReview second = MenuItemReview.builder()
+                .id(12L)
+                .itemId(2L)
+                .reviewerEmail("b@ucsb.edu")
+                .stars(2)
+                .dateReviewed(LocalDateTime.of(2023, 1, 2, 0, 0, 0))
+                .comments("Second")
+                .build();
+
+            List<MenuItemReview> page = Arrays.asList(first, second);
+            when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(10L), eq(PageRequest.ofSize(2)))).thenReturn(page);
+
+            // act
+            MvcResult response = performAndAwait(get("/api/menuitemreview/paged?after=10&limit=2"))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(10L, PageRequest.ofSize(2));
+            String expectedJson = mapper.writeValueAsString(page);
+            assertEquals(expectedJson, response.getResponse().getContentAsString());
+            assertEquals("MTI", response.getResponse().getHeader("X-Next-Cursor"));
+            assertEquals("<http://localhost/api/menuitemreview/paged?limit=2&cursor=MTI>; rel=\"next\"",
+                response.getResponse().getHeader("Link"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_link() throws Exception {
+            // arrange
+            MenuItemReview last = MenuItemReview.builder()
+                .id(13L)
+                .itemId(3L)
+                .reviewerEmail("c@ucsb.edu")
+                .stars(3)
+                .dateReviewed(LocalDateTime.of(2023, 1, 3, 0, 0, 0))
+                .comments("Third")
+                .build();
+
+            List<MenuItemReview> page = Arrays.asList(last);
+            when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(12L), eq(PageRequest.ofSize(2)))).thenReturn(page);
+
+            // act
+            MvcResult response = performAndAwait(get("/api/menuitemreview/paged?cursor=MTI&limit=2"))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(12L, PageRequest.ofSize(2));
+            assertEquals(mapper.writeValueAsString(page), response.getResponse().getContentAsString());
+            assertEquals(null, response.getResponse().getHeader("X-Next-Cursor"));
+            assertEquals(null, response.getResponse().getHeader("Link"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void paged_with_fields_keeps_them_in_the_next_link() throws Exception {
+            // arrange
+            List<Map<String, Object>> page = List.of(Map.of("id", 11L, "stars", 1), Map.of("id", 12L, "stars", 2));
+            when(fieldProjection.selectFields(MenuItemReview.class, "stars")).thenReturn(List.of("stars"));
+            when(fieldProjection.findPage(MenuItemReview.class, List.of("id", "stars"), 10L, 2)).thenReturn(page);
+
+            // act
+            MvcResult response = performAndAwait(get("/api/menuitemreview/paged?after=10&limit=2&fields=stars"))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemReviewRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
+            assertEquals(mapper.writeValueAsString(page), response.getResponse().getContentAsString());
+            assertEquals("<http://localhost/api/menuitemreview/paged?limit=2&fields=stars&cursor=MTI>; rel=\"next\"",
+                response.getResponse().getHeader("Link"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void paged_defaults_to_start_of_table_and_clamps_limit() throws Exception {
+            // arrange
+            when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(new ArrayList<>());
+
+            // act
+            performAndAwait(get("/api/menuitemreview/paged?limit=100000"))
+                .andExpect(status().is(200));
+            performAndAwait(get("/api/menuitemreview/paged?limit=0"))
+                .andExpect(status().is(200));
+
+            // assert
+            verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.ofSize(500));
+            verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.ofSize(1));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void paged_rejects_malformed_cursor() throws Exception {
+            // act
+            MvcResult response = performAndAwait(get("/api/menuitemreview/paged?cursor=not-a-cursor"))
+                .andExpect(status().is(400)).andReturn();
+
+            // assert
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("InvalidCursorException", json.get("type"));
+            assertEquals("Invalid page cursor not-a-cursor", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_users_cannot_post_batch() throws Exception {
+            performAndAwait(post("/api/menuitemreview/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[]")
+                    .with(csrf()))
+                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_post_json_batch() throws Exception {
+            // arrange
+            MenuItemReview first = MenuItemReview.builder()
+                .itemId(1L)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(1)
+                .dateReviewed(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
+                .comments("First")
+                .build();
+
+            MenuItemReview second = MenuItemReview.builder()
+                .itemId(2L)
+                .reviewerEmail("b@ucsb.edu")
+                .stars(2)
+                .dateReviewed(LocalDateTime.of(2023, 1, 2, 0, 0, 0))
+                .comments("Second")
+                .build();
+
+            List<BatchItemResult> results = Arrays.asList(
+                BatchItemResult.builder().index(0).created(true).id(51L).build(),
+                BatchItemResult.builder().index(1).created(true).id(52L).build());
+            List<MenuItemReview> received = new ArrayList<>();
+            when(menuItemReviewBatchService.createAll(any())).thenAnswer(invocation -> {
+                Iterator<MenuItemReview> reviews = invocation.getArgument(0);
+                reviews.forEachRemaining(received::add);
+                return results;
+            });
+
+            // act
+            MvcResult response = performAndAwait(
+                post("/api/menuitemreview/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(Arrays.asList(first, second)))
+                    .with(csrf()))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemReviewBatchService, times(1)).createAll(any());
+            assertEquals(Arrays.asList(first, second), received);
+            assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_post_ndjson_batch() throws Exception {
+            // arrange
+            MenuItemReview first = MenuItemReview.builder()
+                .itemId(1L)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(1)
+                .dateReviewed(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
+                .comments("First")
+                .build();
+
+            MenuItemReview second = MenuItemReview.builder()
+                .itemId(2L)
+                .reviewerEmail("b@ucsb.edu")
+                .stars(2)
+                .dateReviewed(LocalDateTime.of(2023, 1, 2, 0, 0, 0))
+                .comments("Second")
+                .build();
+
+            List<BatchItemResult> results = Arrays.asList(
+                BatchItemResult.builder().index(0).created(true).id(51L).build(),
+                BatchItemResult.builder().index(1).created(false).message("boom").build());
+            StringWriter received = new StringWriter();
+            when(menuItemReviewBatchService.createAllFromNdjson(any())).thenAnswer(invocation -> {
+                Reader lines = invocation.getArgument(0);
+                lines.transferTo(received);
+                return results;
+            });
+
+            String body = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+
+            // act
+            MvcResult response = performAndAwait(
+                post("/api/menuitemreview/batch")
+                    .contentType("application/x-ndjson")
+                    .characterEncoding("utf-8")
+                    .content(body)
+                    .with(csrf()))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemReviewBatchService, times(1)).createAllFromNdjson(any());
+            assertEquals(body, received.toString());
+            assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_stats() throws Exception {
+            performAndAwait(get("/api/menuitemreview/stats?itemId=1"))
+                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_stats_for_item() throws Exception {
+            // arrange
+            MenuItemRatingStats stats = MenuItemRatingStats.builder()
+                .itemId(7L)
+                .reviewCount(4)
+                .starsTotal(14)
+                .threeStars(2)
+                .fourStars(1)
+                .fiveStars(1)
+                .build();
+            when(menuItemRatingService.getStats(7L)).thenReturn(stats);
+
+            // act
+            MvcResult response = performAndAwait(get("/api/menuitemreview/stats?itemId=7"))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemRatingService, times(1)).getStats(7L);
+            Map<String, Object> json = responseToJson(response);
+            assertEquals(4, json.get("reviewCount"));
+            assertEquals(3.5, json.get("averageStars"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_stats_in_bulk() throws Exception {
+            // arrange
+            List<MenuItemRatingStats> stats = Arrays.asList(
+                MenuItemRatingStats.builder().itemId(2L).reviewCount(1).starsTotal(5).fiveStars(1).build(),
+                MenuItemRatingStats.builder().itemId(1L).build());
+            when(menuItemRatingService.getStats(Arrays.asList(2L, 1L))).thenReturn(stats);
+
+            // act
+            MvcResult response = performAndAwait(get("/api/menuitemreview/stats/bulk?itemIds=2,1"))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemRatingService, times(1)).getStats(Arrays.asList(2L, 1L));
+            assertEquals(mapper.writeValueAsString(stats), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_users_cannot_rebuild_stats() throws Exception {
+            performAndAwait(post("/api/menuitemreview/stats/rebuild").with(csrf()))
+                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_rebuild_stats() throws Exception {
+            // act
+            MvcResult response = performAndAwait(post("/api/menuitemreview/stats/rebuild").with(csrf()))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemRatingService, times(1)).rebuild();
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("Menu item rating stats rebuilt", json.get("message"));
+        }
+
+        // Tests for search
+
+        @Test
+        public void logged_out_users_cannot_search() throws Exception {
+            performAndAwait(get("/api/menuitemreview/search?q=cold"))
+                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_search_with_filters() throws Exception {
+            // arrange
+            MenuItemReview review = MenuItemReview.builder()
+                .id(5L)
+                .itemId(7L)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(2)
+                .dateReviewed(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
+                .comments("The soup was cold")
+                .build();
+            PageImpl<MenuItemReviewSearchHit> page = new PageImpl<>(
+                List.of(MenuItemReviewSearchHit.builder().review(review).score(1.5f).build()),
+                PageRequest.of(1, 10), 11);
+            when(menuItemReviewSearch.search("\"cold soup\"", 7L, 2, PageRequest.of(1, 10))).thenReturn(page);
+
+            // act
+            MvcResult response = performAndAwait(get("/api/menuitemreview/search")
+                    .param("q", "\"cold soup\"")
+                    .param("itemId", "7")
+                    .param("stars", "2")
+                    .param("page", "1")
+                    .param("size", "10"))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            assertEquals(mapper.writeValueAsString(page), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void search_defaults_to_first_page_and_clamps_size() throws Exception {
+            // arrange
+            PageImpl<MenuItemReviewSearchHit> empty = new PageImpl<>(List.of(), PageRequest.of(0, 500), 0);
+            when(menuItemReviewSearch.search(any(), any(), any(), any())).thenReturn(empty);
+
+            // act
+            performAndAwait(get("/api/menuitemreview/search?q=cold"))
+                .andExpect(status().is(200));
+            performAndAwait(get("/api/menuitemreview/search?q=cold&page=-1&size=100000"))
+                .andExpect(status().is(200));
+
+            // assert
+            verify(menuItemReviewSearch, times(1)).search("cold", null, null, PageRequest.of(0, 20));
+            verify(menuItemReviewSearch, times(1)).search("cold", null, null, PageRequest.of(0, 500));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void search_page_past_the_result_window_is_empty() throws Exception {
+            // arrange
+            MenuItemReviewSearchService index = new MenuItemReviewSearchService();
+            index.reviewSaved(MenuItemReview.builder().id(1L).itemId(7L).stars(2).comments("cold soup").build());
+            when(menuItemReviewSearch.search(any(), any(), any(), any())).thenAnswer(invocation -> index.search(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+
+            // act
+            MvcResult response = performAndAwait(get("/api/menuitemreview/search?q=cold&page=5000000&size=500"))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemReviewSearch, times(1)).search("cold", null, null, PageRequest.of(5000000, 500));
+            Map<String, Object> json = responseToJson(response);
+            assertEquals(List.of(), json.get("content"));
+            assertEquals(1, json.get("totalElements"));
+            index.close();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_users_cannot_rebuild_search_index() throws Exception {
+            performAndAwait(post("/api/menuitemreview/search/rebuild").with(csrf()))
+                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_rebuild_search_index() throws Exception {
+            // act
+            MvcResult response = performAndAwait(post("/api/menuitemreview/search/rebuild").with(csrf()))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemReviewSearch, times(1)).rebuild();
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("Menu item review search index rebuilt", json.get("message"));
+        }
+
+        @WithMockUser(roles = {"ADMIN", "USER"})
+        @Test
+        public void admin_can_patch_the_stars_of_a_menuitemreview() throws Exception {
+
+            // arrange
+            MenuItemReview original = MenuItemReview.builder()
+                .id(1L)
+                .itemId(7L)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(2)
+                .dateReviewed(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
+                .comments("First")
+                .build();
+
+            MenuItemReview patched = MenuItemReview.builder()
+                .id(1L)
+                .itemId(7L)
+                .reviewerEmail("a@ucsb.edu")
+                .stars(4)
+                .dateReviewed(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
+                .comments("First")
+                .build();
+
+            when(menuItemReviewRepository.findById(eq(1L))).thenReturn(Optional.of(original));
+            when(menuItemRatingService.updateReview(eq(7L), eq(2), eq(patched))).thenReturn(patched);
+
+            // act
+            MvcResult response = performAndAwait(
+                patch("/api/menuitemreview?id=1")
+                    .contentType("application/merge-patch+json")
+                    .content("{\"stars\":4}")
+                    .with(csrf()))
+                .andExpect(status().is(200)).andReturn();
+
+            // assert
+            verify(menuItemRatingService, times(1)).updateReview(7L, 2, patched);
+            verify(menuItemReviewSearch, times(1)).reviewSaved(patched);
+            assertEquals(mapper.writeValueAsString(patched), response.getResponse().getContentAsString());
+        }
+}
@@ -4,12 +4,17 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.RecommendationRequestQuery;
+import edu.ucsb.cs156.example.models.RecommendationRequestQuery.SortKey;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -21,6 +26,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
 import java.util.Optional;
@@ -28,6 +34,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -46,14 +53,14 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
 
     @Test
     public void logged_out_users_cannot_get_all() throws Exception {
-            mockMvc.perform(get("/api/RecommendationRequest/all"))
+            performAndAwait(get("/api/RecommendationRequest/all"))
                             .andExpect(status().is(403)); // logged out users can't get all
     }
 
     @WithMockUser(roles = { "USER" })
     @Test
     public void logged_in_users_can_get_all() throws Exception {
-            mockMvc.perform(get("/api/RecommendationRequest/all"))
+            performAndAwait(get("/api/RecommendationRequest/all"))
                             .andExpect(status().is(200)); // logged
     }
 
@@ -167,7 +174,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
         when(recommendationRequestRepository.findAll()).thenReturn(expectedRequests);
 
         // act
-        MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/all"))
+        MvcResult response = performAndAwait(get("/api/RecommendationRequest/all"))
                 .andExpect(status().isOk()).andReturn();
 
         // assert
@@ -178,6 +185,24 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
         assertEquals(expectedJson, responseString);
     }
 
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_all_with_fields_returns_only_those_fields() throws Exception {
+
+        // arrange
+        List<Map<String, Object>> rows = List.of(Map.of("id", 1L, "done", false));
+        when(fieldProjection.selectFields(RecommendationRequest.class, "id,done")).thenReturn(List.of("id", "done"));
+        when(fieldProjection.findAll(RecommendationRequest.class, List.of("id", "done"))).thenReturn(rows);
+
+        // act
+        MvcResult response = performAndAwait(get("/api/RecommendationRequest/all?fields=id,done"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(recommendationRequestRepository, never()).findAll();
+        assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    }
+
     @WithMockUser(roles = { "ADMIN", "USER" })
     @Test
     public void an_admin_user_can_post_a_new_recommendation_request() throws Exception {
@@ -295,6 +320,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
         String requestBody = mapper.writeValueAsString(recommendationRequestEdited);
 
         when(recommendationRequestRepository.findById(eq(67L))).thenReturn(Optional.of(recommendationRequestOrig));
+        when(recommendationRequestRepository.save(eq(recommendationRequestEdited))).thenReturn(recommendationRequestEdited);
 
         // act
         MvcResult response = mockMvc.perform(
@@ -347,4 +373,245 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
         Map<String, Object> json = responseToJson(response);
         assertEquals("RecommendationRequest with id 67 not found", json.get("message"));
     }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void regular_users_cannot_patch() throws Exception {
+        mockMvc.perform(
+                patch("/api/RecommendationRequest?id=67")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"done\":true}")
+                        .with(csrf()))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_mark_a_recommendation_request_done_with_a_merge_patch() throws Exception {
+        // arrange
+
+        LocalDateTime dateRequested = LocalDateTime.parse("2022-01-03T00:00:00");
+        LocalDateTime dateNeeded = LocalDateTime.parse("2022-01-10T00:00:00");
+
+        RecommendationRequest recommendationRequestOrig = RecommendationRequest.builder()
+                .id(67L)
+                .requesterEmail("@student1")
+                .professorEmail("@professor1")
+                .explanation("explanation1")
+                .dateRequested(dateRequested)
+                .dateNeeded(dateNeeded)
+                .done(false)
+                .version(2L)
+                .build();
+
+        RecommendationRequest recommendationRequestPatched = RecommendationRequest.builder()
+                .id(67L)
+                .requesterEmail("@student1")
+                .professorEmail("@professor1")
+                .explanation(null)
+                .dateRequested(dateRequested)
+                .dateNeeded(dateNeeded)
+                .done(true)
+                .version(2L)
+                .build();
+
+        when(recommendationRequestRepository.findById(eq(67L))).thenReturn(Optional.of(recommendationRequestOrig));
+        when(recommendationRequestRepository.save(eq(recommendationRequestPatched))).thenReturn(recommendationRequestPatched);
+
+        // act
+        MvcResult response = mockMvc.perform(
+                patch("/api/RecommendationRequest?id=67")
+                        .header("If-Match", "\"2\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"done\":true,\"explanation\":null}")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\"")).andReturn();
+
+        // assert
+        verify(recommendationRequestRepository, times(1)).save(recommendationRequestPatched);
+        String responseString = response.getResponse().getContentAsString();
+        assertEquals(mapper.writeValueAsString(recommendationRequestPatched), responseString);
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_cannot_send_an_invalid_merge_patch() throws Exception {
+        // arrange
+
+        RecommendationRequest recommendationRequestOrig = RecommendationRequest.builder()
+                .id(67L)
+                .requesterEmail("@student1")
+                .done(false)
+                .build();
+
+        when(recommendationRequestRepository.findById(eq(67L))).thenReturn(Optional.of(recommendationRequestOrig));
+
+        Map<String, String> patches = Map.of(
+                "[]", "Invalid merge patch: expected a JSON object but got ARRAY",
+                "{\"id\":5}", "Invalid merge patch: id cannot be changed",
+                "{\"version\":5}", "Invalid merge patch: version cannot be changed; send If-Match instead",
+                "{\"done\":null}", "Invalid merge patch: Cannot map `null` into type `boolean` (set DeserializationConfig.DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES to 'false' to allow)",
+                "{\"doen\":true}", "Invalid merge patch: Unrecognized field \"doen\" (class edu.ucsb.cs156.example.entities.RecommendationRequest), not marked as ignorable");
+
+        for (Map.Entry<String, String> patch : patches.entrySet()) {
+            // act
+            MvcResult response = mockMvc.perform(
+                    patch("/api/RecommendationRequest?id=67")
+                            .contentType("application/merge-patch+json")
+                            .content(patch.getKey())
+                            .with(csrf()))
+                    .andExpect(status().isBadRequest()).andReturn();
+
+            // assert
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("InvalidPatchException", json.get("type"));
+            assertEquals(patch.getValue(), json.get("message"));
+        }
+        verify(recommendationRequestRepository, never()).save(any());
+    }
+
+    @Test
+    public void logged_out_users_cannot_get_paged() throws Exception {
+        performAndAwait(get("/api/RecommendationRequest/paged"))
+                .andExpect(status().is(403));
+    }
+
+    private RecommendationRequest requestNeededOn(long id, String dateNeeded) {
+        return RecommendationRequest.builder()
+                .id(id)
+                .requesterEmail("@student")
+                .professorEmail("@professor")
+                .explanation("explanation")
+                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .dateNeeded(LocalDateTime.parse(dateNeeded))
+                .done(false)
+                .build();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void paged_passes_the_filters_and_links_to_the_next_page() throws Exception {
+        // arrange
+        List<RecommendationRequest> page = List.of(
+                requestNeededOn(4L, "2022-02-01T00:00:00"),
+                requestNeededOn(2L, "2022-02-03T12:30:00"));
+        when(recommendationRequestRepository.findPage(any())).thenReturn(page);
+
+        // act
+        MvcResult response = performAndAwait(get(
+                "/api/RecommendationRequest/paged?professorEmail=@professor&done=false"
+                        + "&neededFrom=2022-02-01T00:00:00&neededTo=2022-03-01T00:00:00&limit=2"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        ArgumentCaptor<RecommendationRequestQuery> query = ArgumentCaptor.forClass(RecommendationRequestQuery.class);
+        verify(recommendationRequestRepository).findPage(query.capture());
+        assertEquals(RecommendationRequestQuery.builder()
+                .professorEmail("@professor")
+                .done(false)
+                .dateNeededFrom(LocalDateTime.parse("2022-02-01T00:00:00"))
+                .dateNeededTo(LocalDateTime.parse("2022-03-01T00:00:00"))
+                .sortBy(SortKey.DATE_NEEDED)
+                .limit(2)
+                .build(), query.getValue());
+
+        String cursor = response.getResponse().getHeader("X-Next-Cursor");
+        assertEquals("dateNeeded|2022-02-03T12:30|2",
+                new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        assertEquals("<http://localhost/api/RecommendationRequest/paged?professorEmail=@professor&done=false"
+                + "&neededFrom=2022-02-01T00:00:00&neededTo=2022-03-01T00:00:00&limit=2&cursor=" + cursor + ">; rel=\"next\"",
+                response.getResponse().getHeader("Link"));
+        assertEquals(mapper.writeValueAsString(page), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void paged_continues_after_the_cursor_and_stops_on_a_short_page() throws Exception {
+        // arrange
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("-dateNeeded|2022-02-03T12:30|2".getBytes(StandardCharsets.UTF_8));
+        when(recommendationRequestRepository.findPage(any()))
+                .thenReturn(List.of(requestNeededOn(9L, "2022-01-05T00:00:00")));
+
+        // act
+        MvcResult response = performAndAwait(get("/api/RecommendationRequest/paged?sort=-dateNeeded&limit=5000&cursor=" + cursor))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        ArgumentCaptor<RecommendationRequestQuery> query = ArgumentCaptor.forClass(RecommendationRequestQuery.class);
+        verify(recommendationRequestRepository).findPage(query.capture());
+        assertEquals(RecommendationRequestQuery.builder()
+                .sortBy(SortKey.DATE_NEEDED)
+                .descending(true)
+                .afterKey(LocalDateTime.parse("2022-02-03T12:30:00"))
+                .afterId(2L)
+                .limit(500)
+                .build(), query.getValue());
+        assertEquals(null, response.getResponse().getHeader("X-Next-Cursor"));
+        assertEquals(null, response.getResponse().getHeader("Link"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void paged_by_id_has_no_sort_key_in_the_cursor() throws Exception {
+        // arrange
+        when(recommendationRequestRepository.findPage(any()))
+                .thenReturn(List.of(requestNeededOn(7L, "2022-01-05T00:00:00")));
+
+        // act
+        MvcResult response = performAndAwait(get("/api/RecommendationRequest/paged?sort=id&limit=0"))
+                .andExpect(status().isOk()).andReturn();
+        String cursor = response.getResponse().getHeader("X-Next-Cursor");
+        performAndAwait(get("/api/RecommendationRequest/paged?sort=id&limit=0&cursor=" + cursor))
+                .andExpect(status().isOk());
+
+        // assert
+        assertEquals("id||7", new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        ArgumentCaptor<RecommendationRequestQuery> query = ArgumentCaptor.forClass(RecommendationRequestQuery.class);
+        verify(recommendationRequestRepository, times(2)).findPage(query.capture());
+        assertEquals(RecommendationRequestQuery.builder()
+                .sortBy(SortKey.ID)
+                .afterId(7L)
+                .limit(1)
+                .build(), query.getValue());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void paged_rejects_an_unknown_sort() throws Exception {
+        MvcResult response = performAndAwait(get("/api/RecommendationRequest/paged?sort=-explanation"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("InvalidSortException", json.get("type"));
+        assertEquals("Invalid sort explanation; expected one of [id, dateNeeded, dateRequested], optionally prefixed with -",
+                json.get("message"));
+        verify(recommendationRequestRepository, never()).findPage(any());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void paged_rejects_cursors_it_did_not_hand_out_for_this_sort() throws Exception {
+        for (String position : List.of(
+                "dateRequested|2022-02-03T12:30|2",
+                "dateNeeded||2",
+                "dateNeeded|2022-02-03T12:30",
+                "dateNeeded|yesterday|2",
+                "dateNeeded|2022-02-03T12:30|two")) {
+            String cursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+
+            MvcResult response = performAndAwait(get("/api/RecommendationRequest/paged?cursor=" + cursor))
+                    .andExpect(status().isBadRequest()).andReturn();
+
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("Invalid page cursor " + cursor, json.get("message"));
+        }
+        performAndAwait(get("/api/RecommendationRequest/paged?sort=id&cursor=aWR8MjAyMnw3"))
+                .andExpect(status().isBadRequest());
+        performAndAwait(get("/api/RecommendationRequest/paged?cursor=!!!"))
+                .andExpect(status().isBadRequest());
+        verify(recommendationRequestRepository, never()).findPage(any());
+    }
 }
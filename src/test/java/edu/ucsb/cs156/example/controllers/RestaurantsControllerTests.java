@@ -4,16 +4,21 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.errors.InvalidFieldsException;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
@@ -26,6 +31,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,18 +46,21 @@ public class RestaurantsControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        TableVersionService tableVersionService;
+
         // Authorization tests for /api/phones/admin/all
 
         @Test
         public void logged_out_users_cannot_get_all() throws Exception {
-                mockMvc.perform(get("/api/restaurants/all"))
+                performAndAwait(get("/api/restaurants/all"))
                                 .andExpect(status().is(403)); // logged out users can't get all
         }
 
         @WithMockUser(roles = { "USER" })
         @Test
         public void logged_in_users_can_get_all() throws Exception {
-                mockMvc.perform(get("/api/restaurants/all"))
+                performAndAwait(get("/api/restaurants/all"))
                                 .andExpect(status().is(200)); // logged
         }
 
@@ -146,7 +155,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 when(restaurantRepository.findAll()).thenReturn(expectedRestaurants);
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/restaurants/all"))
+                MvcResult response = performAndAwait(get("/api/restaurants/all"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -157,6 +166,93 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_fields_returns_only_those_fields() throws Exception {
+
+                // arrange
+                List<Map<String, Object>> rows = List.of(Map.of("id", 1L, "name", "Taco Bell"));
+                when(fieldProjection.selectFields(Restaurant.class, "id,name")).thenReturn(List.of("id", "name"));
+                when(fieldProjection.findAll(Restaurant.class, List.of("id", "name"))).thenReturn(rows);
+
+                // act
+                MvcResult response = performAndAwait(get("/api/restaurants/all?fields=id,name"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(restaurantRepository, never()).findAll();
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_unknown_fields_is_a_bad_request() throws Exception {
+
+                // arrange
+                when(fieldProjection.selectFields(Restaurant.class, "id,rating"))
+                                .thenThrow(new InvalidFieldsException("rating", List.of("id", "name")));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/all?fields=id,rating"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(restaurantRepository, never()).findAll();
+                assertEquals(Map.of(
+                                "type", "InvalidFieldsException",
+                                "message", "Invalid field rating; expected a comma-separated list of [id, name]"),
+                                responseToJson(response));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_sends_etag_and_no_cache() throws Exception {
+                MvcResult response = performAndAwait(get("/api/restaurants/all"))
+                                .andExpect(status().isOk()).andReturn();
+
+                assertEquals("W/" + tableVersionService.etag(Restaurant.class), response.getResponse().getHeader("ETag"));
+                assertEquals(List.of("no-cache, private"), response.getResponse().getHeaders("Cache-Control"));
+                assertEquals("Accept", response.getResponse().getHeader("Vary"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_current_etag_is_not_modified_and_skips_the_database() throws Exception {
+                String etag = tableVersionService.etag(Restaurant.class);
+
+                MvcResult response = performAndAwait(get("/api/restaurants/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified()).andReturn();
+
+                verify(restaurantRepository, never()).findAll();
+                assertEquals("W/" + etag, response.getResponse().getHeader("ETag"));
+                assertEquals("", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_matches_weak_listed_and_wildcard_etags() throws Exception {
+                String etag = tableVersionService.etag(Restaurant.class);
+
+                performAndAwait(get("/api/restaurants/all").header("If-None-Match", "\"other\", W/" + etag))
+                                .andExpect(status().isNotModified());
+                performAndAwait(get("/api/restaurants/all").header("If-None-Match", "*"))
+                                .andExpect(status().isNotModified());
+                verify(restaurantRepository, never()).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_after_a_write_returns_the_new_listing() throws Exception {
+                String staleEtag = tableVersionService.etag(Restaurant.class);
+                tableVersionService.changed(Restaurant.class);
+
+                MvcResult response = performAndAwait(get("/api/restaurants/all").header("If-None-Match", staleEtag))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(restaurantRepository, times(1)).findAll();
+                assertEquals("W/" + tableVersionService.etag(Restaurant.class), response.getResponse().getHeader("ETag"));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_restaurant() throws Exception {
@@ -246,6 +342,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 String requestBody = mapper.writeValueAsString(restaurantEdited);
 
                 when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.of(restaurantOrig));
+                when(restaurantRepository.save(eq(restaurantEdited))).thenReturn(restaurantEdited);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -294,4 +391,130 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 assertEquals("Restaurant with id 67 not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_id_sends_the_version_as_etag() throws Exception {
+                Restaurant restaurant = Restaurant.builder().id(7L)
+                                .name("Taco Bell")
+                                .description("Mexican")
+                                .version(3L)
+                                .build();
+                when(restaurantRepository.findById(eq(7L))).thenReturn(Optional.of(restaurant));
+
+                mockMvc.perform(get("/api/restaurants?id=7"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", "\"3\""));
+
+                mockMvc.perform(get("/api/restaurants?id=7").header("If-None-Match", "\"3\""))
+                                .andExpect(status().isNotModified());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_edit_a_restaurant_with_a_matching_if_match() throws Exception {
+                Restaurant restaurantOrig = Restaurant.builder().id(67L)
+                                .name("Chipotle")
+                                .description("Mexican")
+                                .version(3L)
+                                .build();
+                Restaurant restaurantSaved = Restaurant.builder().id(67L)
+                                .name("Taco Bell")
+                                .description("American")
+                                .version(4L)
+                                .build();
+
+                when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.of(restaurantOrig));
+                when(restaurantRepository.save(any(Restaurant.class))).thenReturn(restaurantSaved);
+
+                for (String ifMatch : List.of("\"3\"", "*", "\"2\", \"3\"")) {
+                        restaurantOrig.setVersion(3L);
+                        mockMvc.perform(
+                                        put("/api/restaurants?id=67")
+                                                        .header("If-Match", ifMatch)
+                                                        .contentType(MediaType.APPLICATION_JSON)
+                                                        .content(mapper.writeValueAsString(restaurantSaved))
+                                                        .with(csrf()))
+                                        .andExpect(status().isOk())
+                                        .andExpect(header().string("ETag", "\"4\""));
+                }
+
+                verify(restaurantRepository, times(3)).save(any(Restaurant.class));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_edit_a_restaurant_with_a_stale_if_match() throws Exception {
+                Restaurant restaurantOrig = Restaurant.builder().id(67L)
+                                .name("Chipotle")
+                                .description("Mexican")
+                                .version(4L)
+                                .build();
+                when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.of(restaurantOrig));
+
+                // If-Match uses strong comparison, so a weak tag never matches
+                for (String ifMatch : List.of("\"3\"", "W/\"4\"")) {
+                        MvcResult response = mockMvc.perform(
+                                        put("/api/restaurants?id=67")
+                                                        .header("If-Match", ifMatch)
+                                                        .contentType(MediaType.APPLICATION_JSON)
+                                                        .content(mapper.writeValueAsString(restaurantOrig))
+                                                        .with(csrf()))
+                                        .andExpect(status().isPreconditionFailed()).andReturn();
+
+                        Map<String, Object> json = responseToJson(response);
+                        assertEquals("PreconditionFailedException", json.get("type"));
+                        assertEquals("Restaurant with id 67 does not match If-Match " + ifMatch, json.get("message"));
+                }
+
+                verify(restaurantRepository, never()).save(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void concurrent_edit_of_a_restaurant_is_a_precondition_failure() throws Exception {
+                Restaurant restaurantOrig = Restaurant.builder().id(67L)
+                                .name("Chipotle")
+                                .description("Mexican")
+                                .build();
+                when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.of(restaurantOrig));
+                when(restaurantRepository.save(any(Restaurant.class)))
+                                .thenThrow(new ObjectOptimisticLockingFailureException(Restaurant.class, 67L));
+
+                MvcResult response = mockMvc.perform(
+                                put("/api/restaurants?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content(mapper.writeValueAsString(restaurantOrig))
+                                                .with(csrf()))
+                                .andExpect(status().isPreconditionFailed()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("ObjectOptimisticLockingFailureException", json.get("type"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_patch_a_restaurant() throws Exception {
+                Restaurant restaurantOrig = Restaurant.builder().id(67L)
+                                .name("Chipotle")
+                                .description("Mexican")
+                                .build();
+                Restaurant restaurantPatched = Restaurant.builder().id(67L)
+                                .name("Chipotle")
+                                .description("Tex-Mex")
+                                .build();
+
+                when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.of(restaurantOrig));
+                when(restaurantRepository.save(eq(restaurantPatched))).thenReturn(restaurantPatched);
+
+                MvcResult response = mockMvc.perform(
+                                patch("/api/restaurants?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content("{\"description\":\"Tex-Mex\"}")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(restaurantRepository, times(1)).save(restaurantPatched);
+                assertEquals(mapper.writeValueAsString(restaurantPatched), response.getResponse().getContentAsString());
+        }
 }
@@ -8,11 +8,15 @@ import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -28,6 +32,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -46,14 +51,14 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
         @Test
         public void logged_out_users_cannot_get_all() throws Exception {
-                mockMvc.perform(get("/api/ucsbdates/all"))
+                performAndAwait(get("/api/ucsbdates/all"))
                                 .andExpect(status().is(403)); // logged out users can't get all
         }
 
         @WithMockUser(roles = { "USER" })
         @Test
         public void logged_in_users_can_get_all() throws Exception {
-                mockMvc.perform(get("/api/ucsbdates/all"))
+                performAndAwait(get("/api/ucsbdates/all"))
                                 .andExpect(status().is(200)); // logged
         }
 
@@ -155,7 +160,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 when(ucsbDateRepository.findAll()).thenReturn(expectedDates);
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all"))
+                MvcResult response = performAndAwait(get("/api/ucsbdates/all"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -166,6 +171,116 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_fields_returns_only_those_fields() throws Exception {
+
+                // arrange
+                List<Map<String, Object>> rows = List.of(Map.of("id", 1L, "name", "firstDayOfClasses"));
+                when(fieldProjection.selectFields(UCSBDate.class, "id,name")).thenReturn(List.of("id", "name"));
+                when(fieldProjection.findAll(UCSBDate.class, List.of("id", "name"))).thenReturn(rows);
+
+                // act
+                MvcResult response = performAndAwait(get("/api/ucsbdates/all?fields=id,name"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, never()).findAll();
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_range() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-06-30T00:00:00"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_ucsbdates_in_range_sorted_and_paged() throws Exception {
+
+                // arrange
+                LocalDateTime from = LocalDateTime.parse("2022-01-01T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2022-06-30T00:00:00");
+
+                UCSBDate ucsbDate1 = UCSBDate.builder()
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                PageRequest expectedPage = PageRequest.of(2, 25, Sort.by("localDateTime", "id"));
+                when(ucsbDateRepository.findAllByLocalDateTimeBetween(eq(from), eq(to), eq(expectedPage)))
+                                .thenReturn(new PageImpl<>(List.of(ucsbDate1), expectedPage, 51));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-06-30T00:00:00&page=2&size=25"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findAllByLocalDateTimeBetween(eq(from), eq(to), eq(expectedPage));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(51, json.get("totalElements"));
+                assertEquals(1, ((List<?>) json.get("content")).size());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void range_page_size_is_clamped() throws Exception {
+
+                // arrange
+                PageRequest expectedPage = PageRequest.of(0, 500, Sort.by("localDateTime", "id"));
+                when(ucsbDateRepository.findAllByLocalDateTimeBetween(any(), any(), eq(expectedPage)))
+                                .thenReturn(new PageImpl<>(List.of(), expectedPage, 0));
+
+                // act
+                mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-06-30T00:00:00&page=-1&size=100000"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findAllByLocalDateTimeBetween(any(), any(), eq(expectedPage));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void range_requires_from_and_to() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_quarter() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/quarter?quarter=20222"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_ucsbdates_in_quarter() throws Exception {
+
+                // arrange
+                UCSBDate ucsbDate1 = UCSBDate.builder()
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                PageRequest expectedPage = PageRequest.of(0, 100, Sort.by("localDateTime", "id"));
+                when(ucsbDateRepository.findAllByQuarterYYYYQ(eq("20222"), eq(expectedPage)))
+                                .thenReturn(new PageImpl<>(List.of(ucsbDate1), expectedPage, 1));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarter?quarter=20222"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findAllByQuarterYYYYQ(eq("20222"), eq(expectedPage));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("totalElements"));
+                String expectedContent = mapper.writeValueAsString(List.of(ucsbDate1));
+                assertEquals(expectedContent, mapper.writeValueAsString(json.get("content")));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_ucsbdate() throws Exception {
@@ -266,6 +381,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 String requestBody = mapper.writeValueAsString(ucsbDateEdited);
 
                 when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDateOrig));
+                when(ucsbDateRepository.save(eq(ucsbDateEdited))).thenReturn(ucsbDateEdited);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -315,4 +431,42 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDate with id 67 not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_patch_an_existing_ucsbdate() throws Exception {
+                // arrange
+
+                LocalDateTime ldt = LocalDateTime.parse("2022-01-03T00:00:00");
+
+                UCSBDate ucsbDateOrig = UCSBDate.builder()
+                                .id(67L)
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(ldt)
+                                .build();
+
+                UCSBDate ucsbDatePatched = UCSBDate.builder()
+                                .id(67L)
+                                .name("lastDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(ldt)
+                                .build();
+
+                when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDateOrig));
+                when(ucsbDateRepository.save(eq(ucsbDatePatched))).thenReturn(ucsbDatePatched);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/ucsbdates?id=67")
+                                                .contentType("application/merge-patch+json")
+                                                .content("{\"name\":\"lastDayOfClasses\"}")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).save(ucsbDatePatched);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(mapper.writeValueAsString(ucsbDatePatched), responseString);
+        }
 }
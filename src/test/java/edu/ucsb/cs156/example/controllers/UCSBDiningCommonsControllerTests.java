@@ -3,12 +3,21 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.BinaryFormatConfig;
+import edu.ucsb.cs156.example.services.UCSBDiningCommonsCacheService;
+import edu.ucsb.cs156.example.services.EntityWriterService;
+import org.springframework.beans.factory.annotation.Autowired;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.errors.InvalidCoordinatesException;
+import edu.ucsb.cs156.example.services.DiningCommonsLocator;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -26,12 +35,13 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDiningCommonsController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, UCSBDiningCommonsCacheService.class, EntityWriterService.class, BinaryFormatConfig.class})
 public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -40,18 +50,30 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        UCSBDiningCommonsCacheService ucsbDiningCommonsCache;
+
+        // the cache outlives each test's fresh repository mocks
+        @BeforeEach
+        public void clearCache() {
+                ucsbDiningCommonsCache.invalidateAll();
+        }
+
+        @MockBean
+        DiningCommonsLocator diningCommonsLocator;
+
         // Authorization tests for /api/ucsbdiningcommons/admin/all
 
         @Test
         public void logged_out_users_cannot_get_all() throws Exception {
-                mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                performAndAwait(get("/api/ucsbdiningcommons/all"))
                                 .andExpect(status().is(403)); // logged out users can't get all
         }
 
         @WithMockUser(roles = { "USER" })
         @Test
         public void logged_in_users_can_get_all() throws Exception {
-                mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                performAndAwait(get("/api/ucsbdiningcommons/all"))
                                 .andExpect(status().is(200)); // logged
         }
 
@@ -61,6 +83,71 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().is(403)); // logged out users can't get by id
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void repeated_reads_are_served_from_the_cache() throws Exception {
+
+                // arrange
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder()
+                                .code("carrillo")
+                                .name("Carrillo")
+                                .hasSackMeal(false)
+                                .hasTakeOutMeal(false)
+                                .hasDiningCam(true)
+                                .latitude(34.409953)
+                                .longitude(-119.85277)
+                                .build();
+
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(Arrays.asList(carrillo));
+                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrillo));
+
+                // act
+                MvcResult first = performAndAwait(get("/api/ucsbdiningcommons/all")).andExpect(status().isOk()).andReturn();
+                MvcResult second = performAndAwait(get("/api/ucsbdiningcommons/all")).andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/ucsbdiningcommons?code=carrillo")).andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsbdiningcommons?code=carrillo")).andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).findAll();
+                verify(ucsbDiningCommonsRepository, times(1)).findById(eq("carrillo"));
+                assertEquals(MediaType.APPLICATION_JSON_VALUE, first.getResponse().getContentType());
+                assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void writes_invalidate_the_cache() throws Exception {
+
+                // arrange
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder()
+                                .code("carrillo")
+                                .name("Carrillo")
+                                .hasSackMeal(false)
+                                .hasTakeOutMeal(false)
+                                .hasDiningCam(true)
+                                .latitude(34.409953)
+                                .longitude(-119.85277)
+                                .build();
+
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(Arrays.asList(carrillo));
+                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrillo));
+                performAndAwait(get("/api/ucsbdiningcommons/all")).andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsbdiningcommons?code=carrillo")).andExpect(status().isOk());
+
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(new ArrayList<>());
+                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrillo), Optional.empty());
+
+                // act
+                mockMvc.perform(delete("/api/ucsbdiningcommons?code=carrillo").with(csrf()))
+                                .andExpect(status().isOk());
+                MvcResult all = performAndAwait(get("/api/ucsbdiningcommons/all")).andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/ucsbdiningcommons?code=carrillo")).andExpect(status().isNotFound());
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(2)).findAll();
+                assertEquals("[]", all.getResponse().getContentAsString());
+        }
+
         // Authorization tests for /api/ucsbdiningcommons/post
         // (Perhaps should also have these for put and delete)
 
@@ -77,6 +164,63 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().is(403)); // only admins can post
         }
 
+        @Test
+        public void logged_out_users_cannot_get_nearby() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearby?lat=34.41&lon=-119.85"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_nearby_commons() throws Exception {
+
+                // arrange
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder()
+                                .code("carrillo")
+                                .name("Carrillo")
+                                .latitude(34.409953)
+                                .longitude(-119.85277)
+                                .build();
+
+                List<NearbyDiningCommons> expected = List.of(
+                                NearbyDiningCommons.builder().commons(carrillo).distanceMeters(12.5).build());
+                when(diningCommonsLocator.nearest(eq(34.41), eq(-119.85), eq(3), eq(500.0))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearby?lat=34.41&lon=-119.85&k=3&radiusMeters=500"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(diningCommonsLocator, times(1)).nearest(eq(34.41), eq(-119.85), eq(3), eq(500.0));
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void nearby_defaults_to_five_without_radius() throws Exception {
+                when(diningCommonsLocator.nearest(eq(34.41), eq(-119.85), eq(5), eq(null))).thenReturn(List.of());
+
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearby?lat=34.41&lon=-119.85"))
+                                .andExpect(status().isOk());
+
+                verify(diningCommonsLocator, times(1)).nearest(eq(34.41), eq(-119.85), eq(5), eq(null));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void nearby_with_invalid_coordinates_is_a_bad_request() throws Exception {
+                when(diningCommonsLocator.nearest(eq(91.0), eq(0.0), eq(5), eq(null)))
+                                .thenThrow(new InvalidCoordinatesException(91.0, 0.0));
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearby?lat=91&lon=0"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("InvalidCoordinatesException", json.get("type"));
+                assertEquals("Invalid coordinates lat=91.0 lon=0.0", json.get("message"));
+        }
+
         // Tests with mocks for database actions
 
         @WithMockUser(roles = { "USER" })
@@ -161,7 +305,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 when(ucsbDiningCommonsRepository.findAll()).thenReturn(expectedCommons);
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                MvcResult response = performAndAwait(get("/api/ucsbdiningcommons/all"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -172,6 +316,49 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_fields_is_cached_per_fieldset() throws Exception {
+
+                // arrange
+                List<Map<String, Object>> rows = List.of(Map.of("code", "ortega", "name", "Ortega"));
+                when(fieldProjection.selectFields(UCSBDiningCommons.class, "code,name")).thenReturn(List.of("code", "name"));
+                when(fieldProjection.findAll(UCSBDiningCommons.class, List.of("code", "name"))).thenReturn(rows);
+
+                // act
+                performAndAwait(get("/api/ucsbdiningcommons/all?fields=code,name")).andExpect(status().isOk());
+                MvcResult response = performAndAwait(get("/api/ucsbdiningcommons/all?fields=code,name"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(fieldProjection, times(1)).findAll(UCSBDiningCommons.class, List.of("code", "name"));
+                verify(ucsbDiningCommonsRepository, never()).findAll();
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_fields_as_smile_is_cached() throws Exception {
+
+                // arrange
+                List<Map<String, Object>> rows = List.of(Map.of("code", "ortega", "name", "Ortega"));
+                when(fieldProjection.selectFields(UCSBDiningCommons.class, "code,name")).thenReturn(List.of("code", "name"));
+                when(fieldProjection.findAll(UCSBDiningCommons.class, List.of("code", "name"))).thenReturn(rows);
+
+                // act
+                performAndAwait(get("/api/ucsbdiningcommons/all?fields=code,name").accept(ApiController.APPLICATION_SMILE_VALUE))
+                                .andExpect(status().isOk());
+                MvcResult response = performAndAwait(get("/api/ucsbdiningcommons/all?fields=code,name")
+                                .accept(ApiController.APPLICATION_SMILE_VALUE))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(fieldProjection, times(1)).findAll(UCSBDiningCommons.class, List.of("code", "name"));
+                verify(ucsbDiningCommonsRepository, never()).findAll();
+                assertEquals(ApiController.APPLICATION_SMILE_VALUE, response.getResponse().getContentType());
+                assertEquals(mapper.readTree(mapper.writeValueAsString(rows)), binaryResponseToTree(response));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_commons() throws Exception {
@@ -197,6 +384,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(ucsbDiningCommonsRepository, times(1)).save(ortega);
+                verify(diningCommonsLocator, times(1)).refresh();
                 String expectedJson = mapper.writeValueAsString(ortega);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -228,6 +416,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 // assert
                 verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
                 verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+                verify(diningCommonsLocator, times(1)).refresh();
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
@@ -281,6 +470,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 String requestBody = mapper.writeValueAsString(carrilloEdited);
 
                 when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrilloOrig));
+                when(ucsbDiningCommonsRepository.save(eq(carrilloEdited))).thenReturn(carrilloEdited);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -294,6 +484,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 // assert
                 verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
                 verify(ucsbDiningCommonsRepository, times(1)).save(carrilloEdited); // should be saved with updated info
+                verify(diningCommonsLocator, times(1)).refresh();
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -332,4 +523,67 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_patch_an_existing_commons() throws Exception {
+                // arrange
+
+                UCSBDiningCommons carrilloOrig = UCSBDiningCommons.builder()
+                                .name("Carrillo")
+                                .code("carrillo")
+                                .hasSackMeal(false)
+                                .hasTakeOutMeal(false)
+                                .hasDiningCam(true)
+                                .latitude(34.409953)
+                                .longitude(-119.85277)
+                                .build();
+
+                UCSBDiningCommons carrilloPatched = UCSBDiningCommons.builder()
+                                .name("Carrillo")
+                                .code("carrillo")
+                                .hasSackMeal(true)
+                                .hasTakeOutMeal(false)
+                                .hasDiningCam(true)
+                                .latitude(34.409953)
+                                .longitude(-119.85277)
+                                .build();
+
+                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrilloOrig));
+                when(ucsbDiningCommonsRepository.save(eq(carrilloPatched))).thenReturn(carrilloPatched);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/ucsbdiningcommons?code=carrillo")
+                                                .contentType("application/merge-patch+json")
+                                                .content("{\"hasSackMeal\":true}")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).save(carrilloPatched);
+                verify(diningCommonsLocator, times(1)).refresh();
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(mapper.writeValueAsString(carrilloPatched), responseString);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_patch_the_code_of_a_commons() throws Exception {
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder()
+                                .name("Carrillo")
+                                .code("carrillo")
+                                .build();
+                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrillo));
+
+                MvcResult response = mockMvc.perform(
+                                patch("/api/ucsbdiningcommons?code=carrillo")
+                                                .contentType("application/merge-patch+json")
+                                                .content("{\"code\":\"ortega\"}")
+                                                .with(csrf()))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("Invalid merge patch: code cannot be changed", json.get("message"));
+        }
 }
@@ -5,9 +5,11 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.MenuItemSuggester;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -26,6 +28,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,18 +43,21 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        MenuItemSuggester menuItemSuggester;
+
         // Authorization tests for /api/ucsbdiningcommons/admin/all
 
         @Test
         public void logged_out_users_cannot_get_all() throws Exception {
-                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all"))
+                performAndAwait(get("/api/ucsbdiningcommonsmenuitem/all"))
                                 .andExpect(status().is(403)); // logged out users can't get all
         }
 
         @WithMockUser(roles = { "USER" })
         @Test
         public void logged_in_users_can_get_all() throws Exception {
-                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all"))
+                performAndAwait(get("/api/ucsbdiningcommonsmenuitem/all"))
                                 .andExpect(status().is(200)); // logged
         }
 
@@ -175,7 +181,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(expectedCommonsMenuItems);
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all"))
+                MvcResult response = performAndAwait(get("/api/ucsbdiningcommonsmenuitem/all"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -186,6 +192,24 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_fields_returns_only_those_fields() throws Exception {
+
+                // arrange
+                List<Map<String, Object>> rows = List.of(Map.of("id", 1L, "name", "Tofu"));
+                when(fieldProjection.selectFields(UCSBDiningCommonsMenuItem.class, "id,name")).thenReturn(List.of("id", "name"));
+                when(fieldProjection.findAll(UCSBDiningCommonsMenuItem.class, List.of("id", "name"))).thenReturn(rows);
+
+                // act
+                MvcResult response = performAndAwait(get("/api/ucsbdiningcommonsmenuitem/all?fields=id,name"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, never()).findAll();
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_commonsmenuitem() throws Exception {
@@ -207,6 +231,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
                 // assert
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(commonsMenuItem1);
+                verify(menuItemSuggester, times(1)).itemSaved(commonsMenuItem1);
                 String expectedJson = mapper.writeValueAsString(commonsMenuItem1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -234,6 +259,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 // assert
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(eq(1L));
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).delete(any());
+                verify(menuItemSuggester, times(1)).itemRemoved(1L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommonsMenuItem with id 1 deleted", json.get("message"));
@@ -279,6 +305,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 String requestBody = mapper.writeValueAsString(commonsMenuItem1Edited);
 
                 when(ucsbDiningCommonsMenuItemRepository.findById(eq(1L))).thenReturn(Optional.of(commonsMenuItem1));
+                when(ucsbDiningCommonsMenuItemRepository.save(eq(commonsMenuItem1Edited))).thenReturn(commonsMenuItem1Edited);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -292,6 +319,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 // assert
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(eq(1L));
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(commonsMenuItem1Edited); // should be saved with updated info
+                verify(menuItemSuggester, times(1)).itemSaved(commonsMenuItem1Edited);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -326,4 +354,87 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 assertEquals("UCSBDiningCommonsMenuItem with id 1 not found", json.get("message"));
 
         }
+
+        // Tests for suggest
+
+        @Test
+        public void logged_out_users_cannot_get_suggestions() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/suggest?q=chi"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_suggestions_for_a_commons_and_station() throws Exception {
+                // arrange
+                UCSBDiningCommonsMenuItem pasta = UCSBDiningCommonsMenuItem.builder()
+                                .Id(3L)
+                                .diningCommonsCode("ortega")
+                                .name("Baked Pesto Pasta with Chicken")
+                                .station("Entree Specials")
+                                .build();
+                when(menuItemSuggester.suggest("chi", "ortega", "Entree Specials", 5)).thenReturn(List.of(pasta));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/suggest")
+                                .param("q", "chi")
+                                .param("commons", "ortega")
+                                .param("station", "Entree Specials")
+                                .param("limit", "5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(mapper.writeValueAsString(List.of(pasta)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void suggestions_default_to_everything_and_ten_results() throws Exception {
+                // arrange
+                when(menuItemSuggester.suggest("", null, null, 10)).thenReturn(List.of());
+
+                // act
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/suggest"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(menuItemSuggester, times(1)).suggest("", null, null, 10);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_patch_an_existing_commonsmenuitem() throws Exception {
+                // arrange
+
+                UCSBDiningCommonsMenuItem commonsMenuItem1 = UCSBDiningCommonsMenuItem.builder()
+                                .Id(1L)
+                                .diningCommonsCode("ortega")
+                                .name("Baked Pesto Pasta with Chicken")
+                                .station("Entree Specials")
+                                .build();
+
+                UCSBDiningCommonsMenuItem commonsMenuItem1Patched = UCSBDiningCommonsMenuItem.builder()
+                                .Id(1L)
+                                .diningCommonsCode("ortega")
+                                .name("Baked Pesto Pasta with Chicken")
+                                .station("Grill")
+                                .build();
+
+                when(ucsbDiningCommonsMenuItemRepository.findById(eq(1L))).thenReturn(Optional.of(commonsMenuItem1));
+                when(ucsbDiningCommonsMenuItemRepository.save(eq(commonsMenuItem1Patched))).thenReturn(commonsMenuItem1Patched);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/ucsbdiningcommonsmenuitem?id=1")
+                                                .contentType("application/merge-patch+json")
+                                                .content("{\"station\":\"Grill\"}")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(commonsMenuItem1Patched);
+                verify(menuItemSuggester, times(1)).itemSaved(commonsMenuItem1Patched);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(mapper.writeValueAsString(commonsMenuItem1Patched), responseString);
+        }
 }
@@ -3,12 +3,18 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.BinaryFormatConfig;
+import edu.ucsb.cs156.example.services.UCSBOrganizationCacheService;
+import edu.ucsb.cs156.example.services.EntityWriterService;
+import org.springframework.beans.factory.annotation.Autowired;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -26,12 +32,13 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBOrganizationController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, UCSBOrganizationCacheService.class, EntityWriterService.class, BinaryFormatConfig.class})
 public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -40,18 +47,27 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        UCSBOrganizationCacheService ucsbOrganizationCache;
+
+        // the cache outlives each test's fresh repository mocks
+        @BeforeEach
+        public void clearCache() {
+                ucsbOrganizationCache.invalidateAll();
+        }
+
         // Authorization tests for /api/ucsborganization/admin/all
 
         @Test
         public void logged_out_users_cannot_get_all() throws Exception {
-                mockMvc.perform(get("/api/ucsborganization/all"))
+                performAndAwait(get("/api/ucsborganization/all"))
                                 .andExpect(status().is(403)); // logged out users can't get all
         }
 
         @WithMockUser(roles = { "USER" })
         @Test
         public void logged_in_users_can_get_all() throws Exception {
-                mockMvc.perform(get("/api/ucsborganization/all"))
+                performAndAwait(get("/api/ucsborganization/all"))
                                 .andExpect(status().is(200)); // logged
         }
 
@@ -61,6 +77,81 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                                 .andExpect(status().is(403)); // logged out users can't get by id
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void repeated_reads_are_served_from_the_cache() throws Exception {
+
+                // arrange
+                UCSBOrganization zpr = UCSBOrganization.builder()
+                                .orgCode("ZPR")
+                                .orgTranslationShort("ZETA PHI RHO")
+                                .orgTranslation("ZETA PHI RHO")
+                                .inactive(false)
+                                .build();
+
+                when(ucsbOrganizationRepository.findAll()).thenReturn(Arrays.asList(zpr));
+                when(ucsbOrganizationRepository.findById(eq("ZPR"))).thenReturn(Optional.of(zpr));
+
+                // act
+                MvcResult first = performAndAwait(get("/api/ucsborganization/all")).andExpect(status().isOk()).andReturn();
+                MvcResult second = performAndAwait(get("/api/ucsborganization/all")).andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/ucsborganization?orgCode=ZPR")).andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsborganization?orgCode=ZPR")).andExpect(status().isOk());
+
+                // assert
+                verify(ucsbOrganizationRepository, times(1)).findAll();
+                verify(ucsbOrganizationRepository, times(1)).findById(eq("ZPR"));
+                assertEquals(MediaType.APPLICATION_JSON_VALUE, first.getResponse().getContentType());
+                assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void writes_invalidate_the_cache() throws Exception {
+
+                // arrange
+                UCSBOrganization zpr = UCSBOrganization.builder()
+                                .orgCode("ZPR")
+                                .orgTranslationShort("ZETA PHI RHO")
+                                .orgTranslation("ZETA PHI RHO")
+                                .inactive(false)
+                                .build();
+
+                when(ucsbOrganizationRepository.findAll()).thenReturn(new ArrayList<>());
+                when(ucsbOrganizationRepository.findById(eq("ZPR"))).thenReturn(Optional.empty());
+                performAndAwait(get("/api/ucsborganization/all")).andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsborganization?orgCode=ZPR")).andExpect(status().isNotFound());
+
+                when(ucsbOrganizationRepository.save(eq(zpr))).thenReturn(zpr);
+                when(ucsbOrganizationRepository.findAll()).thenReturn(Arrays.asList(zpr));
+                when(ucsbOrganizationRepository.findById(eq("ZPR"))).thenReturn(Optional.of(zpr));
+
+                // act
+                mockMvc.perform(
+                                post("/api/ucsborganization/post?orgCode=ZPR&orgTranslationShort=ZETA PHI RHO&orgTranslation=ZETA PHI RHO&inactive=false")
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+                MvcResult all = performAndAwait(get("/api/ucsborganization/all")).andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/ucsborganization?orgCode=ZPR")).andExpect(status().isOk());
+
+                // assert
+                verify(ucsbOrganizationRepository, times(2)).findAll();
+                assertEquals(mapper.writeValueAsString(Arrays.asList(zpr)), all.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_current_etag_is_not_modified() throws Exception {
+                MvcResult first = performAndAwait(get("/api/ucsborganization/all"))
+                                .andExpect(status().isOk()).andReturn();
+                String etag = first.getResponse().getHeader("ETag");
+
+                performAndAwait(get("/api/ucsborganization/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+
+                verify(ucsbOrganizationRepository, times(1)).findAll();
+        }
+
         // Authorization tests for /api/ucsborganization/post
         // (Perhaps should also have these for put and delete)
 
@@ -152,7 +243,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                 when(ucsbOrganizationRepository.findAll()).thenReturn(expectedOrganizations);
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/ucsborganization/all"))
+                MvcResult response = performAndAwait(get("/api/ucsborganization/all"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -163,6 +254,57 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_fields_is_cached_per_fieldset() throws Exception {
+
+                // arrange
+                List<Map<String, Object>> rows = List.of(Map.of("orgCode", "ZPR", "orgTranslationShort", "ZETA PHI RHO"));
+                when(fieldProjection.selectFields(UCSBOrganization.class, "orgCode,orgTranslationShort")).thenReturn(List.of("orgCode", "orgTranslationShort"));
+                when(fieldProjection.findAll(UCSBOrganization.class, List.of("orgCode", "orgTranslationShort"))).thenReturn(rows);
+
+                // act
+                performAndAwait(get("/api/ucsborganization/all?fields=orgCode,orgTranslationShort")).andExpect(status().isOk());
+                MvcResult response = performAndAwait(get("/api/ucsborganization/all?fields=orgCode,orgTranslationShort"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(fieldProjection, times(1)).findAll(UCSBOrganization.class, List.of("orgCode", "orgTranslationShort"));
+                verify(ucsbOrganizationRepository, never()).findAll();
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void get_all_as_cbor_shares_the_cached_rows_until_a_write() throws Exception {
+
+                // arrange
+                UCSBOrganization zpr = UCSBOrganization.builder()
+                                .orgCode("ZPR")
+                                .orgTranslationShort("ZETA PHI RHO")
+                                .orgTranslation("ZETA PHI RHO")
+                                .inactive(false)
+                                .build();
+                when(ucsbOrganizationRepository.findAll()).thenReturn(Arrays.asList(zpr));
+                when(ucsbOrganizationRepository.save(eq(zpr))).thenReturn(zpr);
+
+                // act
+                MvcResult json = performAndAwait(get("/api/ucsborganization/all")).andExpect(status().isOk()).andReturn();
+                MvcResult cbor = performAndAwait(get("/api/ucsborganization/all").accept(MediaType.APPLICATION_CBOR))
+                                .andExpect(status().isOk()).andReturn();
+                verify(ucsbOrganizationRepository, times(1)).findAll();
+
+                mockMvc.perform(post("/api/ucsborganization/post?orgCode=ZPR&orgTranslationShort=ZETA PHI RHO&orgTranslation=ZETA PHI RHO&inactive=false")
+                                .with(csrf())).andExpect(status().isOk());
+                performAndAwait(get("/api/ucsborganization/all").accept(MediaType.APPLICATION_CBOR)).andExpect(status().isOk());
+
+                // assert
+                verify(ucsbOrganizationRepository, times(2)).findAll();
+                assertEquals(MediaType.APPLICATION_CBOR_VALUE, cbor.getResponse().getContentType());
+                assertEquals("Accept", cbor.getResponse().getHeader("Vary"));
+                assertEquals(mapper.readTree(json.getResponse().getContentAsString()), binaryResponseToTree(cbor));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_organization() throws Exception {
@@ -260,6 +402,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                 String requestBody = mapper.writeValueAsString(t22);
 
                 when(ucsbOrganizationRepository.findById(eq("1"))).thenReturn(Optional.of(t11));
+                when(ucsbOrganizationRepository.save(eq(t22))).thenReturn(t22);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -308,4 +451,40 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                 assertEquals("UCSBOrganization with id 123123 not found", json.get("message"));
 
         }
-}
\ No newline at end of file
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_mark_an_organization_inactive_with_a_merge_patch() throws Exception {
+                // arrange
+
+                UCSBOrganization orig = UCSBOrganization.builder()
+                                .orgCode("ZPR")
+                                .orgTranslationShort("ZETA PHI RHO")
+                                .orgTranslation("ZETA PHI RHO")
+                                .inactive(false)
+                                .build();
+
+                UCSBOrganization patched = UCSBOrganization.builder()
+                                .orgCode("ZPR")
+                                .orgTranslationShort("ZETA PHI RHO")
+                                .orgTranslation("ZETA PHI RHO")
+                                .inactive(true)
+                                .build();
+
+                when(ucsbOrganizationRepository.findById(eq("ZPR"))).thenReturn(Optional.of(orig));
+                when(ucsbOrganizationRepository.save(eq(patched))).thenReturn(patched);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/ucsborganization?orgCode=ZPR")
+                                                .contentType("application/merge-patch+json")
+                                                .content("{\"inactive\":true}")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbOrganizationRepository, times(1)).save(patched);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(mapper.writeValueAsString(patched), responseString);
+        }
+}
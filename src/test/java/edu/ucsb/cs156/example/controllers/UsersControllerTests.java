@@ -1,18 +1,23 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.BinaryFormatConfig;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.EntityWriterService;
+import edu.ucsb.cs156.example.services.UserExportService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -21,14 +26,21 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
 
 @WebMvcTest(controllers = UsersController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, UserExportService.class, EntityWriterService.class, BinaryFormatConfig.class })
 public class UsersControllerTests extends ControllerTestCase {
 
   @MockBean
   UserRepository userRepository;
 
+  @MockBean
+  EntityManager entityManager;
+
   @Test
   public void users__logged_out() throws Exception {
     mockMvc.perform(get("/api/admin/users"))
@@ -70,4 +82,87 @@ public class UsersControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
 
   }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__admin_logged_in__as_cbor() throws Exception {
+
+          // arrange
+
+          User u1 = User.builder().id(1L).email("a@ucsb.edu").build();
+          User u2 = User.builder().id(2L).email("b@ucsb.edu").admin(true).build();
+
+          when(userRepository.findAll()).thenReturn(Arrays.asList(u1, u2));
+          String expectedJson = mapper.writeValueAsString(Arrays.asList(u1, u2));
+
+          // act
+
+          MvcResult response = mockMvc.perform(get("/api/admin/users").accept(MediaType.APPLICATION_CBOR))
+                          .andExpect(status().isOk()).andReturn();
+
+          // assert
+
+          assertEquals(MediaType.APPLICATION_CBOR_VALUE, response.getResponse().getContentType());
+          assertEquals(mapper.readTree(expectedJson), binaryResponseToTree(response));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void users_stream__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/users/stream"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users_stream__admin_logged_in() throws Exception {
+
+    // arrange
+
+    User u1 = User.builder().id(1L).email("a@ucsb.edu").build();
+    User u2 = User.builder().id(2L).email("b@ucsb.edu").build();
+
+    when(userRepository.streamAllBy()).thenReturn(Stream.of(u1, u2));
+    String expectedBody = mapper.writeValueAsString(u1) + "\n" + mapper.writeValueAsString(u2) + "\n";
+
+    // act
+
+    MvcResult started = mockMvc.perform(get("/api/admin/users/stream"))
+        .andExpect(request().asyncStarted()).andReturn();
+    MvcResult response = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andReturn();
+
+    // assert
+
+    verify(userRepository, times(1)).streamAllBy();
+    verify(userRepository, never()).findAll();
+    verify(entityManager, times(1)).detach(u1);
+    verify(entityManager, times(1)).detach(u2);
+    assertEquals(expectedBody, response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void user_cache__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/users/cache"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void user_cache__admin_logged_in() throws Exception {
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users/cache"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(0, json.get("hitCount"));
+    assertEquals(0, json.get("missCount"));
+  }
 }
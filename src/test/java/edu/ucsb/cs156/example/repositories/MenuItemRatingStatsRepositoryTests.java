@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.config.SecondLevelCacheConfig;
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
+import edu.ucsb.cs156.example.services.TableVersionService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.hibernate.dialect.MySQL8Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({ SecondLevelCacheConfig.class, TableVersionService.class })
+public class MenuItemRatingStatsRepositoryTests {
+
+  @Autowired
+  MenuItemRatingStatsRepository menuItemRatingStatsRepository;
+
+  @Autowired
+  EntityManager entityManager;
+
+  private MenuItemRatingStats stats(long itemId) {
+    entityManager.clear();
+    return menuItemRatingStatsRepository.findById(itemId).orElseThrow();
+  }
+
+  @Test
+  public void addOrCreate_creates_the_row_for_a_first_review() {
+    menuItemRatingStatsRepository.addOrCreate(7L, 1, 4, 0, 0, 0, 1, 0);
+
+    assertEquals(MenuItemRatingStats.builder().itemId(7L).reviewCount(1).starsTotal(4).fourStars(1).build(),
+        stats(7L));
+  }
+
+  @Test
+  public void addOrCreate_adds_to_an_existing_row() {
+    menuItemRatingStatsRepository.addOrCreate(7L, 1, 4, 0, 0, 0, 1, 0);
+    menuItemRatingStatsRepository.addOrCreate(7L, 2, 6, 1, 0, 0, 0, 1);
+    menuItemRatingStatsRepository.addOrCreate(8L, 1, 1, 1, 0, 0, 0, 0);
+
+    assertEquals(MenuItemRatingStats.builder().itemId(7L).reviewCount(3).starsTotal(10)
+        .oneStar(1).fourStars(1).fiveStars(1).build(), stats(7L));
+    assertEquals(MenuItemRatingStats.builder().itemId(8L).reviewCount(1).starsTotal(1).oneStar(1).build(),
+        stats(8L));
+  }
+
+  private static MenuItemRatingStatsRepositoryImpl onOtherDatabase(int updated) {
+    EntityManager entityManager = mock(EntityManager.class, RETURNS_DEEP_STUBS);
+    SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+    when(entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+    when(sessionFactory.getJdbcServices().getDialect()).thenReturn(new MySQL8Dialect());
+    Query adjust = mock(Query.class);
+    when(adjust.setParameter(anyString(), any())).thenReturn(adjust);
+    when(adjust.executeUpdate()).thenReturn(updated);
+    when(entityManager.createQuery(MenuItemRatingStatsRepositoryCustom.ADJUST)).thenReturn(adjust);
+    MenuItemRatingStatsRepositoryImpl repository = new MenuItemRatingStatsRepositoryImpl();
+    repository.entityManager = entityManager;
+    repository.chooseUpsert();
+    return repository;
+  }
+
+  @Test
+  public void addOrCreate_falls_back_to_update_then_insert_on_other_databases() {
+    MenuItemRatingStatsRepositoryImpl repository = onOtherDatabase(0);
+
+    repository.addOrCreate(7L, 1, 4, 0, 0, 0, 1, 0);
+
+    verify(repository.entityManager, times(1)).persist(
+        MenuItemRatingStats.builder().itemId(7L).reviewCount(1).starsTotal(4).fourStars(1).build());
+    verify(repository.entityManager, never()).createNativeQuery(anyString());
+  }
+
+  @Test
+  public void addOrCreate_fallback_only_inserts_when_nothing_was_updated() {
+    MenuItemRatingStatsRepositoryImpl repository = onOtherDatabase(1);
+
+    repository.addOrCreate(7L, 1, 4, 0, 0, 0, 1, 0);
+
+    verify(repository.entityManager, never()).persist(any());
+  }
+}
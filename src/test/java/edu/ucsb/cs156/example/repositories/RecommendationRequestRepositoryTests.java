@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.config.SecondLevelCacheConfig;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.RecommendationRequestQuery;
+import edu.ucsb.cs156.example.models.RecommendationRequestQuery.SortKey;
+import edu.ucsb.cs156.example.services.TableVersionService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Import({ SecondLevelCacheConfig.class, TableVersionService.class })
+public class RecommendationRequestRepositoryTests {
+
+  private static final LocalDateTime JAN_1 = LocalDateTime.parse("2024-01-01T00:00:00");
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  List<RecommendationRequest> saved = new ArrayList<>();
+
+  // ids in insertion order; dateNeeded repeats so that ties have to be
+  // broken by id
+  @BeforeEach
+  public void seed() {
+    saved.add(save("p1@ucsb.edu", "s1@ucsb.edu", false, 3));
+    saved.add(save("p1@ucsb.edu", "s2@ucsb.edu", false, 1));
+    saved.add(save("p1@ucsb.edu", "s1@ucsb.edu", true, 1));
+    saved.add(save("p2@ucsb.edu", "s1@ucsb.edu", false, 1));
+    saved.add(save("p1@ucsb.edu", "s3@ucsb.edu", false, 2));
+    saved.add(save("p1@ucsb.edu", "s3@ucsb.edu", false, 1));
+    saved.add(save("p1@ucsb.edu", "s4@ucsb.edu", false, -1));
+  }
+
+  private RecommendationRequest save(String professorEmail, String requesterEmail, boolean done, int daysNeeded) {
+    return recommendationRequestRepository.save(RecommendationRequest.builder()
+        .professorEmail(professorEmail)
+        .requesterEmail(requesterEmail)
+        .explanation("explanation")
+        .dateRequested(JAN_1.minusDays(daysNeeded))
+        .dateNeeded(daysNeeded < 0 ? null : JAN_1.plusDays(daysNeeded))
+        .done(done)
+        .build());
+  }
+
+  private List<RecommendationRequest> rows(int... indexes) {
+    List<RecommendationRequest> rows = new ArrayList<>();
+    for (int index : indexes) {
+      rows.add(saved.get(index));
+    }
+    return rows;
+  }
+
+  @Test
+  public void open_requests_for_a_professor_in_date_needed_order_one_page_at_a_time() {
+    RecommendationRequestQuery.RecommendationRequestQueryBuilder query = RecommendationRequestQuery.builder()
+        .professorEmail("p1@ucsb.edu")
+        .done(false)
+        .limit(2);
+
+    List<RecommendationRequest> first = recommendationRequestRepository.findPage(query.build());
+    assertEquals(rows(1, 5), first);
+
+    RecommendationRequest last = first.get(1);
+    List<RecommendationRequest> second = recommendationRequestRepository.findPage(
+        query.afterKey(last.getDateNeeded()).afterId(last.getId()).build());
+    assertEquals(rows(4, 0), second);
+
+    last = second.get(1);
+    List<RecommendationRequest> third = recommendationRequestRepository.findPage(
+        query.afterKey(last.getDateNeeded()).afterId(last.getId()).build());
+    assertEquals(List.of(), third);
+  }
+
+  @Test
+  public void descending_pages_continue_below_the_cursor() {
+    RecommendationRequestQuery.RecommendationRequestQueryBuilder query = RecommendationRequestQuery.builder()
+        .descending(true)
+        .limit(3);
+
+    List<RecommendationRequest> first = recommendationRequestRepository.findPage(query.build());
+    assertEquals(rows(0, 4, 5), first);
+
+    RecommendationRequest last = first.get(2);
+    assertEquals(rows(3, 2, 1), recommendationRequestRepository.findPage(
+        query.afterKey(last.getDateNeeded()).afterId(last.getId()).build()));
+  }
+
+  @Test
+  public void requests_needed_in_a_range() {
+    assertEquals(rows(4, 0), recommendationRequestRepository.findPage(RecommendationRequestQuery.builder()
+        .dateNeededFrom(JAN_1.plusDays(2))
+        .dateNeededTo(JAN_1.plusDays(3))
+        .limit(10)
+        .build()));
+    assertEquals(rows(1, 2, 3, 5), recommendationRequestRepository.findPage(RecommendationRequestQuery.builder()
+        .dateNeededTo(JAN_1.plusDays(1))
+        .limit(10)
+        .build()));
+  }
+
+  @Test
+  public void requests_by_requester_sorted_by_date_requested() {
+    assertEquals(rows(0, 2, 3), recommendationRequestRepository.findPage(RecommendationRequestQuery.builder()
+        .requesterEmail("s1@ucsb.edu")
+        .sortBy(SortKey.DATE_REQUESTED)
+        .limit(10)
+        .build()));
+  }
+
+  @Test
+  public void requests_by_id_include_those_without_a_date_needed() {
+    RecommendationRequestQuery.RecommendationRequestQueryBuilder query = RecommendationRequestQuery.builder()
+        .sortBy(SortKey.ID)
+        .limit(4);
+
+    assertEquals(rows(0, 1, 2, 3), recommendationRequestRepository.findPage(query.build()));
+    assertEquals(rows(4, 5, 6), recommendationRequestRepository.findPage(
+        query.afterId(saved.get(3).getId()).build()));
+    assertEquals(rows(2, 1, 0), recommendationRequestRepository.findPage(
+        query.descending(true).afterId(saved.get(3).getId()).build()));
+  }
+}
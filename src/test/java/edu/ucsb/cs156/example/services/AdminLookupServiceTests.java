@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.UserChangedEvent;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class AdminLookupServiceTests {
+
+  @Test
+  void test_configured_admin_email_skips_database() {
+    UserRepository userRepository = mock(UserRepository.class);
+    AdminLookupService adminLookupService = new AdminLookupService(List.of("admin@ucsb.edu"), userRepository, 10, 300);
+
+    assertTrue(adminLookupService.isAdminEmail("admin@ucsb.edu"));
+    assertTrue(adminLookupService.isAdmin("admin@ucsb.edu"));
+    verify(userRepository, never()).findByEmail("admin@ucsb.edu");
+  }
+
+  @Test
+  void test_database_admin_flag_is_cached() {
+    UserRepository userRepository = mock(UserRepository.class);
+    AdminLookupService adminLookupService = new AdminLookupService(List.of("admin@ucsb.edu"), userRepository, 10, 300);
+    User u = User.builder().email("prof@ucsb.edu").admin(true).build();
+    when(userRepository.findByEmail("prof@ucsb.edu")).thenReturn(Optional.of(u));
+
+    assertTrue(adminLookupService.isAdmin("prof@ucsb.edu"));
+    assertTrue(adminLookupService.isAdmin("prof@ucsb.edu"));
+
+    verify(userRepository, times(1)).findByEmail("prof@ucsb.edu");
+    assertEquals(1, adminLookupService.getStatistics().getHitCount());
+  }
+
+  @Test
+  void test_unknown_and_null_emails_are_not_admin() {
+    UserRepository userRepository = mock(UserRepository.class);
+    AdminLookupService adminLookupService = new AdminLookupService(List.of("admin@ucsb.edu"), userRepository, 10, 300);
+    when(userRepository.findByEmail("student@ucsb.edu")).thenReturn(Optional.empty());
+
+    assertFalse(adminLookupService.isAdmin("student@ucsb.edu"));
+    assertFalse(adminLookupService.isAdmin(null));
+  }
+
+  @Test
+  void test_user_changed_event_drops_cached_flag() {
+    UserRepository userRepository = mock(UserRepository.class);
+    AdminLookupService adminLookupService = new AdminLookupService(List.of("admin@ucsb.edu"), userRepository, 10, 300);
+    User before = User.builder().email("prof@ucsb.edu").admin(false).build();
+    User after = User.builder().email("prof@ucsb.edu").admin(true).build();
+    when(userRepository.findByEmail("prof@ucsb.edu")).thenReturn(Optional.of(before), Optional.of(after));
+
+    assertFalse(adminLookupService.isAdmin("prof@ucsb.edu"));
+    adminLookupService.onUserChanged(UserChangedEvent.builder().email("prof@ucsb.edu").googleSub("sub").build());
+    assertTrue(adminLookupService.isAdmin("prof@ucsb.edu"));
+
+    verify(userRepository, times(2)).findByEmail("prof@ucsb.edu");
+  }
+
+}
@@ -0,0 +1,126 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.errors.InvalidCoordinatesException;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+class DiningCommonsLocatorTests {
+
+  UCSBDiningCommonsRepository repository;
+  DiningCommonsLocator locator;
+
+  UCSBDiningCommons carrillo = commons("carrillo", 34.409953, -119.85277);
+  UCSBDiningCommons dlg = commons("de-la-guerra", 34.409811, -119.845026);
+  UCSBDiningCommons ortega = commons("ortega", 34.410987, -119.847759);
+  UCSBDiningCommons portola = commons("portola", 34.417723, -119.867427);
+  UCSBDiningCommons nowhere = commons("nowhere", null, null);
+
+  @BeforeEach
+  void setup() {
+    repository = mock(UCSBDiningCommonsRepository.class);
+    locator = new DiningCommonsLocator();
+    locator.ucsbDiningCommonsRepository = repository;
+  }
+
+  @Test
+  void test_nearest_orders_by_distance_and_skips_commons_without_location() {
+    when(repository.findAll()).thenReturn(List.of(carrillo, dlg, ortega, portola, nowhere));
+
+    List<NearbyDiningCommons> result = locator.nearest(34.4100, -119.8460, 10, null);
+
+    assertEquals(List.of("de-la-guerra", "ortega", "carrillo", "portola"), codes(result));
+    assertEquals(92, result.get(0).getDistanceMeters(), 1);
+  }
+
+  @Test
+  void test_nearest_limits_to_k_and_radius() {
+    when(repository.findAll()).thenReturn(List.of(carrillo, dlg, ortega, portola));
+
+    assertEquals(List.of("de-la-guerra", "ortega"), codes(locator.nearest(34.4100, -119.8460, 2, null)));
+    assertEquals(List.of("de-la-guerra", "ortega"), codes(locator.nearest(34.4100, -119.8460, 10, 500.0)));
+    assertEquals(List.of(), codes(locator.nearest(0, 0, 10, 1000.0)));
+  }
+
+  @Test
+  void test_index_is_built_once_until_refreshed() {
+    when(repository.findAll()).thenReturn(List.of(carrillo));
+    locator.nearest(34.41, -119.85, 1, null);
+    locator.nearest(34.41, -119.85, 1, null);
+    verify(repository, times(1)).findAll();
+
+    when(repository.findAll()).thenReturn(List.of(carrillo, portola));
+    locator.refresh();
+    assertEquals(2, locator.nearest(34.41, -119.85, 5, null).size());
+  }
+
+  @Test
+  void test_empty_table() {
+    when(repository.findAll()).thenReturn(List.of());
+    assertEquals(List.of(), locator.nearest(34.41, -119.85, 5, null));
+  }
+
+  @Test
+  void test_invalid_coordinates_are_rejected() {
+    assertThrows(InvalidCoordinatesException.class, () -> locator.nearest(90.5, 0, 1, null));
+    assertThrows(InvalidCoordinatesException.class, () -> locator.nearest(0, -180.5, 1, null));
+    assertThrows(InvalidCoordinatesException.class, () -> locator.nearest(Double.NaN, 0, 1, null));
+  }
+
+  @Test
+  void test_matches_brute_force_across_the_globe() {
+    Random random = new Random(156);
+    List<UCSBDiningCommons> all = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      all.add(commons("c" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+    }
+    when(repository.findAll()).thenReturn(all);
+
+    for (int q = 0; q < 50; q++) {
+      double lat = random.nextDouble() * 180 - 90;
+      double lon = random.nextDouble() * 360 - 180;
+      List<String> expected = all.stream()
+          .sorted(Comparator.comparingDouble(c -> haversine(lat, lon, c.getLatitude(), c.getLongitude())))
+          .limit(7)
+          .map(UCSBDiningCommons::getCode)
+          .toList();
+      List<NearbyDiningCommons> result = locator.nearest(lat, lon, 7, null);
+      assertEquals(expected, codes(result));
+      UCSBDiningCommons first = result.get(0).getCommons();
+      double expectedMeters = haversine(lat, lon, first.getLatitude(), first.getLongitude());
+      assertTrue(Math.abs(expectedMeters - result.get(0).getDistanceMeters()) < 1.0);
+    }
+  }
+
+  private static UCSBDiningCommons commons(String code, Double latitude, Double longitude) {
+    return UCSBDiningCommons.builder().code(code).name(code).latitude(latitude).longitude(longitude).build();
+  }
+
+  private static List<String> codes(List<NearbyDiningCommons> result) {
+    return result.stream().map(n -> n.getCommons().getCode()).toList();
+  }
+
+  private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+    double dLat = Math.toRadians(lat2 - lat1);
+    double dLon = Math.toRadians(lon2 - lon1);
+    double a = Math.pow(Math.sin(dLat / 2), 2)
+        + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLon / 2), 2);
+    return 2 * DiningCommonsIndex.EARTH_RADIUS_METERS * Math.asin(Math.sqrt(a));
+  }
+}
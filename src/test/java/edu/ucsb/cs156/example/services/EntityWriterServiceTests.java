@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+
+class EntityWriterServiceTests {
+
+  private static final List<MenuItemReview> REVIEWS = List.of(
+      MenuItemReview.builder().id(1L).itemId(2L).reviewerEmail("a@ucsb.edu").stars(5)
+          .dateReviewed(LocalDateTime.of(2023, 1, 1, 12, 30)).comments("Crispy").build(),
+      MenuItemReview.builder().id(2L).itemId(2L).reviewerEmail("b@ucsb.edu").stars(1)
+          .dateReviewed(LocalDateTime.of(2023, 1, 2, 8, 0)).comments(null).build());
+
+  private static ObjectMapper mapper() {
+    return Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+  }
+
+  private static EntityWriterService service(ObjectMapper mapper) {
+    EntityWriterService entityWriters = new EntityWriterService();
+    entityWriters.mapper = mapper;
+    return entityWriters;
+  }
+
+  @Test
+  void test_writers_are_built_once_per_type() {
+    EntityWriterService entityWriters = service(mapper());
+
+    assertSame(entityWriters.writerFor(MenuItemReview.class), entityWriters.writerFor(MenuItemReview.class));
+    assertSame(entityWriters.listWriterFor(MenuItemReview.class), entityWriters.listWriterFor(MenuItemReview.class));
+  }
+
+  @Test
+  void test_list_writer_writes_what_the_mapper_writes() throws Exception {
+    ObjectMapper mapper = mapper();
+    EntityWriterService entityWriters = service(mapper);
+
+    assertEquals(mapper.writeValueAsString(REVIEWS),
+        entityWriters.listWriterFor(MenuItemReview.class).writeValueAsString(REVIEWS));
+    assertEquals(mapper.writeValueAsString(REVIEWS.get(0)),
+        entityWriters.writerFor(MenuItemReview.class).writeValueAsString(REVIEWS.get(0)));
+  }
+
+  @Test
+  void test_generic_writer_writes_projected_rows() throws Exception {
+    ObjectMapper mapper = mapper();
+    List<Map<String, Object>> rows = List.of(Map.of("orgCode", "ZPR"));
+
+    assertEquals(mapper.writeValueAsString(rows), service(mapper).writer().writeValueAsString(rows));
+  }
+}
@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.config.SecondLevelCacheConfig;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.errors.InvalidFieldsException;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ SecondLevelCacheConfig.class, TableVersionService.class, FieldProjectionService.class })
+public class FieldProjectionServiceTests {
+
+  private static final LocalDateTime JAN_1 = LocalDateTime.parse("2024-01-01T00:00:00");
+
+  @Autowired
+  FieldProjectionService fieldProjection;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  List<MenuItemReview> saved = new ArrayList<>();
+
+  @BeforeEach
+  public void seed() {
+    for (int stars = 1; stars <= 3; stars++) {
+      saved.add(menuItemReviewRepository.save(MenuItemReview.builder()
+          .itemId(7L)
+          .reviewerEmail("r%d@ucsb.edu".formatted(stars))
+          .stars(stars)
+          .dateReviewed(JAN_1.plusDays(stars))
+          .comments("a long comment the table never shows")
+          .build()));
+    }
+  }
+
+  private Map<String, Object> row(Object... fieldsAndValues) {
+    Map<String, Object> row = new LinkedHashMap<>();
+    for (int i = 0; i < fieldsAndValues.length; i += 2) {
+      row.put((String) fieldsAndValues[i], fieldsAndValues[i + 1]);
+    }
+    return row;
+  }
+
+  @Test
+  public void no_fields_means_whole_rows() {
+    assertEquals(List.of(), fieldProjection.selectFields(MenuItemReview.class, null));
+    assertEquals(List.of(), fieldProjection.selectFields(MenuItemReview.class, " "));
+  }
+
+  @Test
+  public void fields_keep_their_order_and_drop_repeats() {
+    assertEquals(List.of("stars", "id"), fieldProjection.selectFields(MenuItemReview.class, "stars, id,stars"));
+  }
+
+  @Test
+  public void unknown_fields_are_rejected() {
+    InvalidFieldsException e = assertThrows(InvalidFieldsException.class,
+        () -> fieldProjection.selectFields(MenuItemReview.class, "id,rating"));
+    assertEquals("Invalid field rating; expected a comma-separated list of "
+        + "[id, itemId, reviewerEmail, stars, dateReviewed, comments, version]", e.getMessage());
+  }
+
+  @Test
+  public void find_all_selects_only_the_requested_fields() {
+    List<Map<String, Object>> rows = fieldProjection.findAll(MenuItemReview.class, List.of("stars", "id"));
+
+    assertEquals(List.of(
+        row("stars", 1, "id", saved.get(0).getId()),
+        row("stars", 2, "id", saved.get(1).getId()),
+        row("stars", 3, "id", saved.get(2).getId())), rows);
+  }
+
+  @Test
+  public void find_page_starts_after_the_given_id() {
+    List<Map<String, Object>> rows = fieldProjection.findPage(MenuItemReview.class, List.of("id", "reviewerEmail"),
+        saved.get(0).getId(), 1);
+
+    assertEquals(List.of(row("id", saved.get(1).getId(), "reviewerEmail", "r2@ucsb.edu")), rows);
+  }
+
+  // the attribute is Id, but it is written as id
+  @Test
+  public void fields_are_json_property_names() {
+    UCSBDiningCommonsMenuItem item = menuItemRepository.save(UCSBDiningCommonsMenuItem.builder()
+        .diningCommonsCode("ortega")
+        .name("Tofu")
+        .station("Entrees")
+        .build());
+
+    List<String> fields = fieldProjection.selectFields(UCSBDiningCommonsMenuItem.class, "id,name");
+
+    assertEquals(List.of(row("id", item.getId(), "name", "Tofu")),
+        fieldProjection.findAll(UCSBDiningCommonsMenuItem.class, fields));
+  }
+}
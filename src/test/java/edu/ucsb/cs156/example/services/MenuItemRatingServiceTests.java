@@ -0,0 +1,208 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingStatsRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+
+class MenuItemRatingServiceTests {
+
+  private MenuItemRatingService service() {
+    MenuItemRatingService service = new MenuItemRatingService();
+    service.statsRepository = mock(MenuItemRatingStatsRepository.class);
+    service.reviewRepository = mock(MenuItemReviewRepository.class);
+    return service;
+  }
+
+  @Test
+  void test_reviewAdded_adds_or_creates_row_in_one_statement() {
+    MenuItemRatingService service = service();
+
+    service.reviewAdded(MenuItemReview.builder().itemId(7L).stars(4).build());
+
+    verify(service.statsRepository, times(1)).addOrCreate(7L, 1, 4, 0, 0, 0, 1, 0);
+    verify(service.statsRepository, never()).adjust(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+    verify(service.statsRepository, never()).save(any());
+  }
+
+  @Test
+  void test_reviewRemoved_never_creates_a_row() {
+    MenuItemRatingService service = service();
+    when(service.statsRepository.adjust(7L, -1, -2, 0, -1, 0, 0, 0)).thenReturn(0);
+
+    service.reviewRemoved(MenuItemReview.builder().itemId(7L).stars(2).build());
+
+    verify(service.statsRepository, times(1)).adjust(7L, -1, -2, 0, -1, 0, 0, 0);
+    verify(service.statsRepository, never()).addOrCreate(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+    verify(service.statsRepository, never()).save(any());
+  }
+
+  @Test
+  void test_reviewRemoved_decrements_and_ignores_out_of_range_stars_in_histogram() {
+    MenuItemRatingService service = service();
+    when(service.statsRepository.adjust(7L, -1, -9, 0, 0, 0, 0, 0)).thenReturn(1);
+
+    service.reviewRemoved(MenuItemReview.builder().itemId(7L).stars(9).build());
+
+    verify(service.statsRepository, times(1)).adjust(7L, -1, -9, 0, 0, 0, 0, 0);
+  }
+
+  @Test
+  void test_reviewChanged_moves_review_between_items() {
+    MenuItemRatingService service = service();
+    when(service.statsRepository.adjust(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+
+    service.reviewChanged(7L, 1, MenuItemReview.builder().itemId(8L).stars(5).build());
+
+    verify(service.statsRepository, times(1)).adjust(7L, -1, -1, -1, 0, 0, 0, 0);
+    verify(service.statsRepository, times(1)).addOrCreate(8L, 1, 5, 0, 0, 0, 0, 1);
+  }
+
+  @Test
+  void test_reviewChanged_does_nothing_when_item_and_stars_unchanged() {
+    MenuItemRatingService service = service();
+
+    service.reviewChanged(7L, 3, MenuItemReview.builder().itemId(7L).stars(3).comments("edited").build());
+
+    verifyNoInteractions(service.statsRepository);
+  }
+
+  @Test
+  void test_reviewChanged_updates_when_only_stars_change() {
+    MenuItemRatingService service = service();
+    when(service.statsRepository.adjust(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+
+    service.reviewChanged(7L, 3, MenuItemReview.builder().itemId(7L).stars(4).build());
+
+    verify(service.statsRepository, times(1)).adjust(7L, -1, -3, 0, 0, -1, 0, 0);
+    verify(service.statsRepository, times(1)).addOrCreate(7L, 1, 4, 0, 0, 0, 1, 0);
+  }
+
+  @Test
+  void test_reviewsAdded_folds_chunk_into_one_update_per_item() {
+    MenuItemRatingService service = service();
+    when(service.statsRepository.adjust(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+
+    service.reviewsAdded(Arrays.asList(
+        MenuItemReview.builder().itemId(7L).stars(5).build(),
+        MenuItemReview.builder().itemId(8L).stars(1).build(),
+        MenuItemReview.builder().itemId(7L).stars(3).build()));
+
+    verify(service.statsRepository, times(1)).addOrCreate(7L, 2, 8, 0, 0, 1, 0, 1);
+    verify(service.statsRepository, times(1)).addOrCreate(8L, 1, 1, 1, 0, 0, 0, 0);
+  }
+
+  @Test
+  void test_addReview_saves_and_counts_review() {
+    MenuItemRatingService service = service();
+    MenuItemReview review = MenuItemReview.builder().itemId(7L).stars(4).build();
+    MenuItemReview saved = MenuItemReview.builder().id(1L).itemId(7L).stars(4).build();
+    when(service.reviewRepository.save(review)).thenReturn(saved);
+
+    assertEquals(saved, service.addReview(review));
+
+    verify(service.statsRepository, times(1)).addOrCreate(7L, 1, 4, 0, 0, 0, 1, 0);
+  }
+
+  @Test
+  void test_updateReview_saves_and_moves_count() {
+    MenuItemRatingService service = service();
+    MenuItemReview review = MenuItemReview.builder().id(1L).itemId(8L).stars(5).build();
+    when(service.reviewRepository.save(review)).thenReturn(review);
+    when(service.statsRepository.adjust(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+
+    assertEquals(review, service.updateReview(7L, 1, review));
+
+    verify(service.statsRepository, times(1)).adjust(7L, -1, -1, -1, 0, 0, 0, 0);
+    verify(service.statsRepository, times(1)).addOrCreate(8L, 1, 5, 0, 0, 0, 0, 1);
+  }
+
+  @Test
+  void test_removeReview_deletes_and_uncounts_review() {
+    MenuItemRatingService service = service();
+    MenuItemReview review = MenuItemReview.builder().id(1L).itemId(7L).stars(3).build();
+    when(service.statsRepository.adjust(7L, -1, -3, 0, 0, -1, 0, 0)).thenReturn(1);
+
+    service.removeReview(review);
+
+    verify(service.reviewRepository, times(1)).delete(review);
+    verify(service.statsRepository, times(1)).adjust(7L, -1, -3, 0, 0, -1, 0, 0);
+  }
+
+  @Test
+  void test_getStats_returns_empty_stats_for_unreviewed_item() {
+    MenuItemRatingService service = service();
+    MenuItemRatingStats stats = MenuItemRatingStats.builder().itemId(7L).reviewCount(2).starsTotal(7).build();
+    when(service.statsRepository.findById(7L)).thenReturn(Optional.of(stats));
+    when(service.statsRepository.findById(8L)).thenReturn(Optional.empty());
+
+    assertEquals(3.5, service.getStats(7L).getAverageStars());
+    assertEquals(MenuItemRatingStats.builder().itemId(8L).build(), service.getStats(8L));
+    assertEquals(0.0, service.getStats(8L).getAverageStars());
+  }
+
+  @Test
+  void test_getStats_bulk_keeps_requested_order() {
+    MenuItemRatingService service = service();
+    MenuItemRatingStats seven = MenuItemRatingStats.builder().itemId(7L).reviewCount(1).starsTotal(5).build();
+    when(service.statsRepository.findAllById(Arrays.asList(8L, 7L))).thenReturn(Arrays.asList(seven));
+
+    List<MenuItemRatingStats> result = service.getStats(Arrays.asList(8L, 7L));
+
+    assertEquals(Arrays.asList(MenuItemRatingStats.builder().itemId(8L).build(), seven), result);
+  }
+
+  @Test
+  void test_rebuild_recomputes_from_reviews() {
+    MenuItemRatingService service = service();
+    List<Object[]> rows = Arrays.<Object[]>asList(new Object[] { 7L, 2L, 8L, 0L, 0L, 1L, 0L, 1L });
+    when(service.reviewRepository.summarizeByItemId()).thenReturn(rows);
+
+    service.rebuild();
+
+    verify(service.statsRepository, times(1)).deleteAllInBulk();
+    verify(service.statsRepository, times(1)).saveAll(Arrays.asList(MenuItemRatingStats.builder()
+        .itemId(7L).reviewCount(2).starsTotal(8).threeStars(1).fiveStars(1).build()));
+  }
+
+  @Test
+  void test_rebuildIfEmpty_only_rebuilds_missing_stats() {
+    MenuItemRatingService service = service();
+    when(service.statsRepository.count()).thenReturn(0L, 3L);
+    when(service.reviewRepository.count()).thenReturn(5L);
+    when(service.reviewRepository.summarizeByItemId()).thenReturn(Arrays.asList());
+
+    service.rebuildIfEmpty();
+    service.rebuildIfEmpty();
+
+    verify(service.reviewRepository, times(1)).summarizeByItemId();
+  }
+
+  @Test
+  void test_rebuildIfEmpty_skips_when_there_are_no_reviews() {
+    MenuItemRatingService service = service();
+    when(service.statsRepository.count()).thenReturn(0L);
+    when(service.reviewRepository.count()).thenReturn(0L);
+
+    service.rebuildIfEmpty();
+
+    verify(service.reviewRepository, never()).summarizeByItemId();
+  }
+
+}
@@ -0,0 +1,218 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQL8Dialect;
+import org.hibernate.dialect.PostgreSQL9Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.BatchItemResult;
+
+class MenuItemReviewBatchServiceTests {
+
+  private MenuItemReviewBatchService service(EntityManager entityManager, PlatformTransactionManager transactionManager, int chunkSize) {
+    MenuItemReviewBatchService service = new MenuItemReviewBatchService();
+    service.entityManager = entityManager;
+    service.transactionManager = transactionManager;
+    service.chunkSize = chunkSize;
+    service.menuItemRatingService = mock(MenuItemRatingService.class);
+    service.menuItemReviewSearch = mock(MenuItemReviewSearchService.class);
+    return service;
+  }
+
+  @Test
+  void test_createAll_commits_one_transaction_per_chunk() {
+    // arrange
+    EntityManager entityManager = mock(EntityManager.class);
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    long[] nextId = { 100 };
+    doAnswer(invocation -> {
+      ((MenuItemReview) invocation.getArgument(0)).setId(nextId[0]++);
+      return null;
+    }).when(entityManager).persist(any());
+
+    List<MenuItemReview> reviews = Arrays.asList(
+        MenuItemReview.builder().id(7L).itemId(1L).stars(1).build(),
+        MenuItemReview.builder().itemId(2L).stars(2).build(),
+        MenuItemReview.builder().itemId(3L).stars(3).build());
+
+    // act
+    MenuItemReviewBatchService service = service(entityManager, transactionManager, 2);
+    List<BatchItemResult> results = service.createAll(reviews.iterator());
+
+    // assert
+    verify(service.menuItemRatingService, times(2)).reviewsAdded(any());
+    verify(service.menuItemReviewSearch, times(2)).reviewsSaved(any());
+    verify(transactionManager, times(2)).getTransaction(any());
+    verify(transactionManager, times(2)).commit(any());
+    verify(entityManager, times(3)).persist(any());
+    verify(entityManager, times(2)).flush();
+    verify(entityManager, times(2)).clear();
+    assertEquals(3, results.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, results.get(i).getIndex());
+      assertTrue(results.get(i).getCreated());
+      assertEquals(100L + i, results.get(i).getId());
+    }
+  }
+
+  @Test
+  void test_createAll_retries_failed_chunk_one_review_at_a_time() {
+    // arrange
+    EntityManager entityManager = mock(EntityManager.class);
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    doAnswer(invocation -> {
+      if (((MenuItemReview) invocation.getArgument(0)).getItemId() == 2L) {
+        throw new PersistenceException("constraint violated");
+      }
+      return null;
+    }).when(entityManager).persist(any());
+
+    List<MenuItemReview> reviews = Arrays.asList(
+        MenuItemReview.builder().itemId(1L).build(),
+        MenuItemReview.builder().itemId(2L).build(),
+        MenuItemReview.builder().itemId(3L).build());
+
+    // act
+    MenuItemReviewBatchService service = service(entityManager, transactionManager, 2);
+    List<BatchItemResult> results = service.createAll(reviews.iterator());
+
+    // assert
+    // the first chunk, then its second review on its own
+    verify(transactionManager, times(2)).rollback(any());
+    // the first review on its own, then the second chunk
+    verify(transactionManager, times(2)).commit(any());
+    // only what committed is indexed
+    verify(service.menuItemReviewSearch, times(2)).reviewsSaved(any());
+    assertEquals(3, results.size());
+    assertTrue(results.get(0).getCreated());
+    assertFalse(results.get(1).getCreated());
+    assertEquals("constraint violated", results.get(1).getMessage());
+    assertTrue(results.get(2).getCreated());
+    assertEquals(2, results.get(2).getIndex());
+  }
+
+  @Test
+  void test_createAllFromNdjson_reports_unreadable_lines_and_continues() throws Exception {
+    // arrange
+    EntityManager entityManager = mock(EntityManager.class);
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    String body = """
+        {"itemId":1,"reviewerEmail":"a@ucsb.edu","stars":1,"dateReviewed":"2023-01-01T00:00:00"}
+        {"itemId":2,"stars":
+        
+        {"itemId":3,"reviewerEmail":"c@ucsb.edu","stars":3,"dateReviewed":"2023-01-03T00:00:00"} {}
+        {"itemId":4,"reviewerEmail":"d@ucsb.edu","stars":4,"dateReviewed":"2023-01-04T00:00:00"}
+        """;
+
+    // act
+    MenuItemReviewBatchService service = service(entityManager, transactionManager, 2);
+    service.mapper = Jackson2ObjectMapperBuilder.json().build();
+    List<BatchItemResult> results = service.createAllFromNdjson(new StringReader(body));
+
+    // assert
+    ArgumentCaptor<MenuItemReview> persisted = ArgumentCaptor.forClass(MenuItemReview.class);
+    verify(entityManager, times(2)).persist(persisted.capture());
+    assertEquals(List.of(1L, 4L), persisted.getAllValues().stream().map(MenuItemReview::getItemId).toList());
+    assertEquals(4, results.size());
+    for (int i = 0; i < 4; i++) {
+      assertEquals(i, results.get(i).getIndex());
+    }
+    assertTrue(results.get(0).getCreated());
+    assertFalse(results.get(1).getCreated());
+    assertNotNull(results.get(1).getMessage());
+    // a second value on the same line is not a review of its own
+    assertFalse(results.get(2).getCreated());
+    assertNotNull(results.get(2).getMessage());
+    assertTrue(results.get(3).getCreated());
+  }
+
+  private EntityManager entityManagerFor(Dialect dialect) {
+    EntityManager entityManager = mock(EntityManager.class, RETURNS_DEEP_STUBS);
+    SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+    when(entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+    when(sessionFactory.getJdbcServices().getDialect()).thenReturn(dialect);
+    when(entityManager.createQuery("SELECT COALESCE(MAX(r.id), 0) FROM MenuItemReview r").getSingleResult())
+        .thenReturn(120L);
+    return entityManager;
+  }
+
+  @Test
+  void test_alignIdSequence_moves_sequence_past_existing_ids() {
+    // arrange
+    EntityManager entityManager = entityManagerFor(new PostgreSQL9Dialect());
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    when(entityManager.createNativeQuery(
+        "SELECT CASE WHEN is_called THEN last_value ELSE last_value - 50 END FROM menuitemreview_seq")
+        .getSingleResult())
+        .thenReturn(-49L);
+    Query alter = mock(Query.class);
+    when(entityManager.createNativeQuery("ALTER SEQUENCE menuitemreview_seq RESTART WITH 170")).thenReturn(alter);
+
+    // act
+    service(entityManager, transactionManager, 2).alignIdSequence();
+
+    // assert
+    verify(alter, times(1)).executeUpdate();
+  }
+
+  @Test
+  void test_alignIdSequence_leaves_sequence_that_is_already_ahead() {
+    // arrange
+    EntityManager entityManager = entityManagerFor(new H2Dialect());
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    when(entityManager.createNativeQuery(
+        "SELECT CURRENT_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'MENUITEMREVIEW_SEQ'")
+        .getSingleResult())
+        .thenReturn(150L);
+
+    // act
+    service(entityManager, transactionManager, 2).alignIdSequence();
+
+    // assert
+    verify(entityManager, never()).createNativeQuery("ALTER SEQUENCE menuitemreview_seq RESTART WITH 170");
+  }
+
+  @Test
+  void test_alignIdSequence_skips_dialects_it_cannot_read_the_sequence_on() {
+    // arrange
+    EntityManager entityManager = entityManagerFor(new MySQL8Dialect());
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    // act
+    service(entityManager, transactionManager, 2).alignIdSequence();
+
+    // assert
+    verify(transactionManager, never()).getTransaction(any());
+    verify(entityManager, never()).createNativeQuery(anyString());
+  }
+
+}
@@ -0,0 +1,215 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.MenuItemReviewSearchHit;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+
+class MenuItemReviewSearchServiceTests {
+
+  MenuItemReviewRepository repository;
+  MenuItemReviewSearchService search;
+
+  // what the database holds; findAllById only returns rows that are here
+  Map<Long, MenuItemReview> table = new LinkedHashMap<>();
+
+  @BeforeEach
+  void setup() {
+    repository = mock(MenuItemReviewRepository.class);
+    when(repository.findAllById(any())).thenAnswer(invocation -> {
+      List<MenuItemReview> found = new ArrayList<>();
+      for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+        if (table.containsKey(id)) {
+          found.add(table.get(id));
+        }
+      }
+      return found;
+    });
+    search = new MenuItemReviewSearchService();
+    search.reviewRepository = repository;
+
+    save(review(1, 10, 1, "The soup was cold and salty"));
+    save(review(2, 10, 4, "Cold brew coffee, nice and cold"));
+    save(review(3, 11, 2, "Fries arrived cold"));
+    save(review(4, 11, 5, "Warm cookies, cold milk"));
+    save(review(5, 12, 5, "Best burritos on campus"));
+  }
+
+  @AfterEach
+  void close() throws IOException {
+    search.close();
+  }
+
+  @Test
+  void test_term_query_ranks_more_frequent_matches_first() {
+    Page<MenuItemReviewSearchHit> page = search.search("cold", null, null, PageRequest.of(0, 10));
+
+    assertEquals(4, page.getTotalElements());
+    assertEquals(2L, ids(page).get(0));
+    assertEquals(List.of(1L, 2L, 3L, 4L), ids(page).stream().sorted().collect(Collectors.toList()));
+    List<MenuItemReviewSearchHit> hits = page.getContent();
+    for (int i = 1; i < hits.size(); i++) {
+      assertTrue(hits.get(i - 1).getScore() >= hits.get(i).getScore());
+    }
+  }
+
+  @Test
+  void test_terms_are_all_required_and_stemmed() {
+    assertEquals(List.of(1L), ids(search.search("cold soups", null, null, PageRequest.of(0, 10))));
+    assertEquals(List.of(5L), ids(search.search("burrito", null, null, PageRequest.of(0, 10))));
+  }
+
+  @Test
+  void test_phrase_and_prefix_queries() {
+    assertEquals(List.of(4L), ids(search.search("\"cold milk\"", null, null, PageRequest.of(0, 10))));
+    assertEquals(List.of(), ids(search.search("\"milk cold\"", null, null, PageRequest.of(0, 10))));
+    assertEquals(List.of(5L), ids(search.search("burr*", null, null, PageRequest.of(0, 10))));
+  }
+
+  @Test
+  void test_filters_by_item_and_stars() {
+    assertEquals(List.of(3L, 4L),
+        ids(search.search("cold", 11L, null, PageRequest.of(0, 10))).stream().sorted().collect(Collectors.toList()));
+    assertEquals(List.of(4L), ids(search.search("cold", 11L, 5, PageRequest.of(0, 10))));
+    assertEquals(List.of(1L), ids(search.search("cold", null, 1, PageRequest.of(0, 10))));
+  }
+
+  @Test
+  void test_pages_through_results_in_rank_order() {
+    List<Long> all = ids(search.search("cold", null, null, PageRequest.of(0, 10)));
+
+    Page<MenuItemReviewSearchHit> second = search.search("cold", null, null, PageRequest.of(1, 3));
+
+    assertEquals(4, second.getTotalElements());
+    assertEquals(2, second.getTotalPages());
+    assertEquals(all.subList(3, 4), ids(second));
+  }
+
+  @Test
+  void test_pages_past_the_result_window_are_empty() {
+    Pageable deep = PageRequest.of(MenuItemReviewSearchService.MAX_RESULT_WINDOW, 10);
+
+    Page<MenuItemReviewSearchHit> page = search.search("cold", null, null, deep);
+
+    assertEquals(List.of(), ids(page));
+  }
+
+  @Test
+  void test_offsets_beyond_int_range_are_empty_pages_with_the_total() {
+    // page 5,000,000 of 500 starts at 2,500,000,000, which doesn't fit an int
+    Page<MenuItemReviewSearchHit> page = search.search("cold", null, null, PageRequest.of(5_000_000, 500));
+
+    assertEquals(List.of(), ids(page));
+    assertEquals(4, page.getTotalElements());
+  }
+
+  @Test
+  void test_update_and_delete_are_searchable_immediately() {
+    MenuItemReview fries = table.get(3L);
+    fries.setComments("Fries arrived hot");
+    save(fries);
+    table.remove(4L);
+    search.reviewRemoved(4L);
+
+    assertEquals(List.of(1L, 2L),
+        ids(search.search("cold", null, null, PageRequest.of(0, 10))).stream().sorted().collect(Collectors.toList()));
+    assertEquals(List.of(3L), ids(search.search("hot", null, null, PageRequest.of(0, 10))));
+  }
+
+  @Test
+  void test_hits_missing_from_the_database_are_skipped() {
+    table.remove(2L);
+
+    assertEquals(List.of(1L, 3L, 4L),
+        ids(search.search("cold", null, null, PageRequest.of(0, 10))).stream().sorted().collect(Collectors.toList()));
+  }
+
+  @Test
+  void test_review_without_comments_is_indexed_for_nothing() {
+    save(review(6, 13, 3, null));
+
+    assertEquals(4, search.search("cold", null, null, PageRequest.of(0, 10)).getTotalElements());
+  }
+
+  @Test
+  void test_rebuild_reindexes_the_table_in_chunks() {
+    List<MenuItemReview> many = new ArrayList<>();
+    for (long id = 1; id <= 1500; id++) {
+      many.add(review(id, 20, 3, id % 3 == 0 ? "lukewarm pasta" : "fine"));
+    }
+    table.clear();
+    many.forEach(r -> table.put(r.getId(), r));
+    when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+      long after = invocation.getArgument(0);
+      Pageable pageable = invocation.getArgument(1);
+      return many.stream().filter(r -> r.getId() > after).limit(pageable.getPageSize()).collect(Collectors.toList());
+    });
+
+    search.rebuild();
+
+    assertEquals(0, search.search("cold", null, null, PageRequest.of(0, 10)).getTotalElements());
+    assertEquals(500, search.search("lukewarm", null, null, PageRequest.of(0, 10)).getTotalElements());
+  }
+
+  @Test
+  void test_searches_during_rebuild_see_the_old_index() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+      loading.countDown();
+      release.await();
+      return new ArrayList<>(table.values());
+    });
+
+    CompletableFuture<Void> rebuild = CompletableFuture.runAsync(search::rebuild);
+    loading.await();
+    // a write during the rebuild waits for it rather than publishing the half-built index
+    CompletableFuture<Void> write = CompletableFuture.runAsync(() -> save(review(6, 13, 3, "cold pizza")));
+    assertThrows(TimeoutException.class, () -> write.get(200, TimeUnit.MILLISECONDS));
+
+    assertEquals(4, search.search("cold", null, null, PageRequest.of(0, 10)).getTotalElements());
+
+    release.countDown();
+    rebuild.get();
+    write.get();
+    assertEquals(5, search.search("cold", null, null, PageRequest.of(0, 10)).getTotalElements());
+  }
+
+  private void save(MenuItemReview review) {
+    table.put(review.getId(), review);
+    search.reviewSaved(review);
+  }
+
+  private static List<Long> ids(Page<MenuItemReviewSearchHit> page) {
+    return page.getContent().stream().map(hit -> hit.getReview().getId()).collect(Collectors.toList());
+  }
+
+  private static MenuItemReview review(long id, long itemId, int stars, String comments) {
+    return MenuItemReview.builder().id(id).itemId(itemId).stars(stars).comments(comments).build();
+  }
+}
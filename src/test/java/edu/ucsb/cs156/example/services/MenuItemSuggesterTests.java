@@ -0,0 +1,171 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+
+class MenuItemSuggesterTests {
+
+  UCSBDiningCommonsMenuItemRepository repository;
+  MenuItemSuggester suggester;
+
+  UCSBDiningCommonsMenuItem pesto = item(1, "ortega", "Entree Specials", "Baked Pesto Pasta with Chicken");
+  UCSBDiningCommonsMenuItem chickenTenders = item(2, "ortega", "Grill", "Chicken Tenders");
+  UCSBDiningCommonsMenuItem chickpea = item(3, "carrillo", "Entree", "Chickpea Curry (vgn)");
+  UCSBDiningCommonsMenuItem creme = item(4, "carrillo", "Dessert", "Crème Brûlée");
+  UCSBDiningCommonsMenuItem chili = item(5, "portola", "Soup", "Turkey  CHILI");
+  UCSBDiningCommonsMenuItem macAndCheese = item(6, "portola", "Entree", "Mac & Cheese");
+
+  @BeforeEach
+  void setup() {
+    repository = mock(UCSBDiningCommonsMenuItemRepository.class);
+    when(repository.findAll()).thenReturn(List.of(pesto, chickenTenders, chickpea, creme, chili, macAndCheese));
+    suggester = new MenuItemSuggester();
+    suggester.ucsbDiningCommonsMenuItemRepository = repository;
+  }
+
+  @Test
+  void test_name_prefix_matches_come_before_word_matches() {
+    assertEquals(List.of("Chicken Tenders", "Chickpea Curry (vgn)", "Baked Pesto Pasta with Chicken", "Turkey  CHILI"),
+        names(suggester.suggest("chi", null, null, 10)));
+  }
+
+  @Test
+  void test_case_accents_and_spacing_are_ignored() {
+    assertEquals(List.of("Crème Brûlée"), names(suggester.suggest("creme BRU", null, null, 10)));
+    assertEquals(List.of("Turkey  CHILI"), names(suggester.suggest("turkey chili", null, null, 10)));
+    assertEquals(List.of("Mac & Cheese"), names(suggester.suggest("chee", null, null, 10)));
+  }
+
+  @Test
+  void test_filters_by_commons_and_station() {
+    assertEquals(List.of("Chicken Tenders", "Baked Pesto Pasta with Chicken"),
+        names(suggester.suggest("chi", "ortega", null, 10)));
+    assertEquals(List.of("Chicken Tenders"), names(suggester.suggest("chi", "ortega", "Grill", 10)));
+    assertEquals(List.of(), names(suggester.suggest("chi", "ortega", "Soup", 10)));
+    assertEquals(List.of(), names(suggester.suggest("chi", "nowhere", null, 10)));
+  }
+
+  @Test
+  void test_blank_prefix_lists_names_alphabetically_up_to_limit() {
+    assertEquals(List.of("Baked Pesto Pasta with Chicken", "Chicken Tenders"),
+        names(suggester.suggest("", null, null, 2)));
+    assertEquals(1, suggester.suggest("", null, null, 0).size());
+    assertEquals(6, suggester.suggest(null, null, null, 1000).size());
+  }
+
+  @Test
+  void test_index_is_built_once() {
+    suggester.suggest("chi", null, null, 10);
+    suggester.suggest("mac", null, null, 10);
+
+    verify(repository, times(1)).findAll();
+  }
+
+  @Test
+  void test_writes_update_the_index_without_reloading() {
+    suggester.refresh();
+
+    suggester.itemSaved(item(7, "ortega", "Grill", "Chili Cheese Fries"));
+    UCSBDiningCommonsMenuItem moved = item(2, "portola", "Grill", "Chicken Tenders");
+    suggester.itemSaved(moved);
+    suggester.itemRemoved(5);
+    suggester.itemRemoved(99);
+
+    assertEquals(List.of("Chili Cheese Fries", "Baked Pesto Pasta with Chicken"),
+        names(suggester.suggest("chi", "ortega", null, 10)));
+    assertEquals(List.of("Chicken Tenders"), names(suggester.suggest("chi", "portola", null, 10)));
+    verify(repository, times(1)).findAll();
+  }
+
+  @Test
+  void test_index_keeps_its_own_copy_of_items() {
+    suggester.refresh();
+
+    chili.setName("Vegetable Soup");
+
+    assertEquals(List.of("Turkey  CHILI"), names(suggester.suggest("turkey", null, null, 10)));
+  }
+
+  @Test
+  void test_suggestions_carry_the_saved_version() {
+    chickenTenders.setVersion(3L);
+    suggester.refresh();
+    UCSBDiningCommonsMenuItem renamed = item(1, "ortega", "Entree Specials", "Pesto Pasta");
+    renamed.setVersion(8L);
+    suggester.itemSaved(renamed);
+
+    List<UCSBDiningCommonsMenuItem> suggestions = suggester.suggest("", "ortega", null, 10);
+
+    assertEquals(List.of(chickenTenders, renamed), suggestions);
+    assertEquals(List.of(3L, 8L), suggestions.stream().map(UCSBDiningCommonsMenuItem::getVersion).collect(Collectors.toList()));
+  }
+
+  @Test
+  void test_writes_before_the_index_is_loaded_are_picked_up_by_the_load() {
+    suggester.itemSaved(item(7, "ortega", "Grill", "Chili Cheese Fries"));
+    suggester.itemRemoved(1);
+
+    assertEquals(List.of("Chicken Tenders", "Baked Pesto Pasta with Chicken"),
+        names(suggester.suggest("chi", "ortega", null, 10)));
+  }
+
+  @Test
+  void test_items_without_commons_or_station_are_indexed() {
+    suggester.itemSaved(item(8, null, null, "Mystery Meat"));
+    suggester.refresh();
+    suggester.itemSaved(item(8, null, null, "Mystery Meat"));
+
+    assertEquals(List.of("Mystery Meat"), names(suggester.suggest("mys", null, null, 10)));
+  }
+
+  @Test
+  void test_matches_brute_force_on_random_names() {
+    String[] words = { "chicken", "chili", "cheese", "chips", "curry", "pasta", "pesto", "pizza", "tofu", "taco" };
+    String[] commons = { "ortega", "carrillo", "portola", "de-la-guerra" };
+    String[] stations = { "Grill", "Entree", "Soup" };
+    Random random = new Random(156);
+    List<UCSBDiningCommonsMenuItem> all = new ArrayList<>();
+    for (int i = 1; i <= 2000; i++) {
+      String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+      all.add(item(i, commons[random.nextInt(commons.length)], stations[random.nextInt(stations.length)], name));
+    }
+    when(repository.findAll()).thenReturn(all);
+    suggester.refresh();
+
+    for (String prefix : List.of("c", "ch", "chi", "p", "pes", "taco t", "z")) {
+      List<UCSBDiningCommonsMenuItem> expected = all.stream()
+          .filter(i -> i.getDiningCommonsCode().equals("ortega"))
+          .filter(i -> i.getName().startsWith(prefix) || i.getName().contains(" " + prefix))
+          .collect(Collectors.toList());
+      List<UCSBDiningCommonsMenuItem> actual = suggester.suggest(prefix, "ortega", null, MenuItemSuggester.MAX_SUGGESTIONS);
+
+      assertEquals(Math.min(expected.size(), MenuItemSuggester.MAX_SUGGESTIONS), actual.size(), prefix);
+      for (UCSBDiningCommonsMenuItem item : actual) {
+        assertTrue(expected.stream().anyMatch(e -> e.getId() == item.getId()), prefix);
+      }
+    }
+  }
+
+  private static List<String> names(List<UCSBDiningCommonsMenuItem> items) {
+    return items.stream().map(UCSBDiningCommonsMenuItem::getName).collect(Collectors.toList());
+  }
+
+  private static UCSBDiningCommonsMenuItem item(long id, String commons, String station, String name) {
+    return UCSBDiningCommonsMenuItem.builder().Id(id).diningCommonsCode(commons).station(station).name(name).build();
+  }
+}
@@ -0,0 +1,60 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+class ReferenceDataCacheTests {
+
+  private static final UCSBOrganization OLD = UCSBOrganization.builder().orgCode("ZPR").orgTranslation("Old").build();
+  private static final UCSBOrganization NEW = UCSBOrganization.builder().orgCode("ZPR").orgTranslation("New").build();
+
+  @Test
+  void test_load_running_during_invalidate_is_not_served_afterwards() throws Exception {
+    UCSBOrganizationRepository repository = mock(UCSBOrganizationRepository.class);
+    UCSBOrganizationCacheService cache = new UCSBOrganizationCacheService(repository, null, null, 10, 600);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch written = new CountDownLatch(1);
+    when(repository.findAll()).thenAnswer(invocation -> {
+      loading.countDown();
+      written.await();
+      return List.of(OLD);
+    }).thenReturn(List.of(NEW));
+
+    // a load reads the old rows, and the table changes before it finishes
+    CompletableFuture<Iterable<?>> stale = CompletableFuture.supplyAsync(() -> cache.findAll(List.of()));
+    loading.await();
+    cache.invalidate("ZPR");
+    written.countDown();
+
+    assertEquals(List.of(OLD), stale.get());
+    assertEquals(List.of(NEW), cache.findAll(List.of()));
+    verify(repository, times(2)).findAll();
+  }
+
+  @Test
+  void test_invalidate_drops_cached_rows() {
+    UCSBOrganizationRepository repository = mock(UCSBOrganizationRepository.class);
+    UCSBOrganizationCacheService cache = new UCSBOrganizationCacheService(repository, null, null, 10, 600);
+    when(repository.findById("ZPR")).thenReturn(Optional.of(OLD), Optional.of(NEW));
+
+    assertEquals(Optional.of(OLD), cache.findById("ZPR"));
+    assertEquals(Optional.of(OLD), cache.findById("ZPR"));
+    cache.invalidate("ZPR");
+
+    assertEquals(Optional.of(NEW), cache.findById("ZPR"));
+    verify(repository, times(2)).findById("ZPR");
+  }
+}
@@ -0,0 +1,57 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+
+class TableVersionServiceTests {
+
+  @Test
+  void test_changed_moves_only_that_tables_etag() {
+    TableVersionService tableVersionService = new TableVersionService();
+    String restaurants = tableVersionService.etag(Restaurant.class);
+    String dates = tableVersionService.etag(UCSBDate.class);
+
+    tableVersionService.changed(Restaurant.class);
+
+    assertNotEquals(restaurants, tableVersionService.etag(Restaurant.class));
+    assertEquals(dates, tableVersionService.etag(UCSBDate.class));
+    assertEquals(1, tableVersionService.current(Restaurant.class));
+    assertTrue(tableVersionService.etag(Restaurant.class).matches("\"Restaurant-[0-9a-z]+-1\""));
+  }
+
+  @Test
+  void test_changes_in_a_transaction_bump_again_once_after_completion() {
+    TableVersionService tableVersionService = new TableVersionService();
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      tableVersionService.changed(Restaurant.class);
+      tableVersionService.changed(Restaurant.class);
+      assertEquals(2, tableVersionService.current(Restaurant.class));
+
+      List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+      assertEquals(1, synchronizations.size());
+      synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+      assertEquals(3, tableVersionService.current(Restaurant.class));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void test_etags_differ_between_runs() throws InterruptedException {
+    TableVersionService earlier = new TableVersionService();
+    Thread.sleep(2);
+    TableVersionService later = new TableVersionService();
+    assertNotEquals(earlier.etag(Restaurant.class), later.etag(Restaurant.class));
+  }
+}
@@ -0,0 +1,51 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CacheStatistics;
+import edu.ucsb.cs156.example.models.UserChangedEvent;
+
+class UserCacheServiceTests {
+
+  @Test
+  void test_get_loads_once_and_then_hits() {
+    UserCacheService userCacheService = new UserCacheService(10, 300);
+    User u = User.builder().id(1L).googleSub("sub1").build();
+    AtomicInteger loads = new AtomicInteger();
+
+    User first = userCacheService.get("sub1", sub -> { loads.incrementAndGet(); return u; });
+    User second = userCacheService.get("sub1", sub -> { loads.incrementAndGet(); return u; });
+
+    assertSame(u, first);
+    assertSame(u, second);
+    assertEquals(1, loads.get());
+    CacheStatistics stats = userCacheService.getStatistics();
+    assertEquals(1, stats.getHitCount());
+    assertEquals(1, stats.getMissCount());
+    assertEquals(1, stats.getSize());
+  }
+
+  @Test
+  void test_invalidate_forces_reload() {
+    UserCacheService userCacheService = new UserCacheService(10, 300);
+    User u = User.builder().id(1L).googleSub("sub1").build();
+    AtomicInteger loads = new AtomicInteger();
+
+    userCacheService.get("sub1", sub -> { loads.incrementAndGet(); return u; });
+    userCacheService.invalidate("sub1");
+    userCacheService.get("sub1", sub -> { loads.incrementAndGet(); return u; });
+    userCacheService.onUserChanged(UserChangedEvent.builder().email("a@ucsb.edu").googleSub("sub1").build());
+    userCacheService.get("sub1", sub -> { loads.incrementAndGet(); return u; });
+    userCacheService.invalidateAll();
+    userCacheService.get("sub1", sub -> { loads.incrementAndGet(); return u; });
+
+    assertEquals(4, loads.get());
+  }
+
+}
@@ -2,10 +2,18 @@ package edu.ucsb.cs156.example.testconfig;
 
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 
+import java.util.List;
 
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminLookupService;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.UserCacheService;
 
 @TestConfiguration
 public class TestConfig {
@@ -20,4 +28,25 @@ public class TestConfig {
         return new GrantedAuthoritiesService();
     }
 
+    @Bean
+    public UserCacheService userCacheService() {
+        return new UserCacheService(100, 300);
+    }
+
+    @Bean
+    public AdminLookupService adminLookupService(UserRepository userRepository) {
+        return new AdminLookupService(List.of("admin@example.org"), userRepository, 100, 300);
+    }
+
+    @Bean
+    public TableVersionService tableVersionService() {
+        return new TableVersionService();
+    }
+
+    // async handlers complete before the request returns
+    @Bean
+    public TaskExecutor controllerExecutor() {
+        return new SyncTaskExecutor();
+    }
+
 }
@@ -0,0 +1,2 @@
+/* test fixture for FrontendResourceConfigTests */
+(function () { document.getElementById("root").textContent = "hello"; })();